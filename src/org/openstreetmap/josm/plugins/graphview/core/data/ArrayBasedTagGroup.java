@@ -0,0 +1,273 @@
+package org.openstreetmap.josm.plugins.graphview.core.data;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * TagGroup that stores keys and values in two arrays sorted by key.
+ * This needs much less memory than {@link MapBasedTagGroup},
+ * especially if equal strings are shared between tag groups
+ * (e.g. by interning them while reading the data).
+ */
+public class ArrayBasedTagGroup implements TagGroup {
+	
+	/** groups with more tags than this use binary search to find keys */
+	private static final int MAX_LINEAR_SEARCH_SIZE = 8;
+	
+	private final String[] keys;
+	private final String[] values;
+	
+	/**
+	 * @param keys    keys of the tags; != null, each != null.
+	 *                For duplicate keys, only the last value is used.
+	 * @param values  values of the tags, same length as keys; each != null
+	 */
+	public ArrayBasedTagGroup(String[] keys, String[] values) {
+		
+		if (keys == null || values == null || keys.length != values.length) {
+			throw new IllegalArgumentException();
+		}
+		
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] == null || values[i] == null) {
+				throw new IllegalArgumentException();
+			}
+		}
+		
+		String[] sortedKeys = keys.clone();
+		String[] sortedValues = values.clone();
+		
+		/* sort by key (insertion sort, tag groups are usually small).
+		 * The sort is stable, so duplicate keys remain in their input order. */
+		
+		for (int i = 1; i < sortedKeys.length; i++) {
+			
+			String key = sortedKeys[i];
+			String value = sortedValues[i];
+			
+			int j = i - 1;
+			
+			while (j >= 0 && sortedKeys[j].compareTo(key) > 0) {
+				sortedKeys[j + 1] = sortedKeys[j];
+				sortedValues[j + 1] = sortedValues[j];
+				j--;
+			}
+			
+			sortedKeys[j + 1] = key;
+			sortedValues[j + 1] = value;
+			
+		}
+		
+		/* remove duplicate keys, keeping the last value */
+		
+		int size = 0;
+		
+		for (int i = 0; i < sortedKeys.length; i++) {
+			
+			if (size > 0 && sortedKeys[size - 1].equals(sortedKeys[i])) {
+				size--;
+			}
+			
+			sortedKeys[size] = sortedKeys[i];
+			sortedValues[size] = sortedValues[i];
+			size++;
+			
+		}
+		
+		if (size < sortedKeys.length) {
+			sortedKeys = Arrays.copyOf(sortedKeys, size);
+			sortedValues = Arrays.copyOf(sortedValues, size);
+		}
+		
+		this.keys = sortedKeys;
+		this.values = sortedValues;
+		
+	}
+	
+	/**
+	 * returns the index of a key, or -1 if it is not contained
+	 */
+	private int indexOf(String key) {
+		
+		if (keys.length <= MAX_LINEAR_SEARCH_SIZE) {
+			
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i].equals(key)) {
+					return i;
+				}
+			}
+			
+			return -1;
+			
+		} else {
+			
+			int index = Arrays.binarySearch(keys, key);
+			return index >= 0 ? index : -1;
+			
+		}
+		
+	}
+	
+	@Override
+	public String getValue(String key) {
+		assert key != null;
+		int index = indexOf(key);
+		return index >= 0 ? values[index] : null;
+	}
+	
+	@Override
+	public boolean containsKey(String key) {
+		assert key != null;
+		return indexOf(key) >= 0;
+	}
+	
+	@Override
+	public boolean containsAnyKey(Iterable<String> keys) {
+		for (String key : keys) {
+			if (this.containsKey(key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean containsValue(String value) {
+		assert value != null;
+		for (String v : values) {
+			if (v.equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean containsAnyValue(Iterable<String> values) {
+		for (String value : values) {
+			if (this.containsValue(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean contains(Tag tag) {
+		assert tag != null;
+		return contains(tag.key, tag.value);
+	}
+	
+	@Override
+	public boolean containsAny(Iterable<Tag> tags) {
+		for (Tag tag : tags) {
+			if (this.contains(tag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean contains(String key, String value) {
+		assert key != null;
+		assert value != null;
+		return value.equals(getValue(key));
+	}
+	
+	@Override
+	public boolean containsAny(Iterable<String> keys, String value) {
+		for (String key : keys) {
+			if (this.contains(key, value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean containsAny(Iterable<String> keys, Iterable<String> values) {
+		for (String key : keys) {
+			if (this.containsAny(key, values)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean containsAny(String key, Iterable<String> values) {
+		String actualValue = getValue(key);
+		if (actualValue != null) {
+			for (String value : values) {
+				if (actualValue.equals(value)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public int size() {
+		return keys.length;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return keys.length == 0;
+	}
+	
+	/**
+	 * returns an Iterator providing access to all Tags, ordered by key.
+	 * The Iterator does not support the {@link Iterator#remove()} method.
+	 */
+	@Override
+	public Iterator<Tag> iterator() {
+		
+		return new Iterator<Tag>() {
+			
+			private int index = 0;
+			
+			@Override
+			public boolean hasNext() {
+				return index < keys.length;
+			}
+			
+			@Override
+			public Tag next() {
+				if (index >= keys.length) {
+					throw new NoSuchElementException();
+				}
+				Tag tag = new Tag(keys[index], values[index]);
+				index ++;
+				return tag;
+			}
+			
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+			
+		};
+		
+	}
+	
+	@Override
+	public String toString() {
+		
+		StringBuilder result = new StringBuilder("{");
+		
+		for (int i = 0; i < keys.length; i++) {
+			if (i > 0) {
+				result.append(", ");
+			}
+			result.append(keys[i]).append('=').append(values[i]);
+		}
+		
+		return result.append('}').toString();
+		
+	}
+	
+}
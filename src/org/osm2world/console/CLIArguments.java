@@ -99,4 +99,15 @@ public interface CLIArguments {
 	File getParameterFile();
 	boolean isParameterFile();
 	
+	/* daemon mode */
+	
+	@Option(description="keep running and process parameter files"
+			+ " placed in this directory")
+	File getDaemon();
+	boolean isDaemon();
+	
+	@Option(description="number of parameter files processed at the same time"
+			+ " in daemon mode", longName="daemon.threads", defaultValue="1")
+	int getDaemonThreads();
+	
 }
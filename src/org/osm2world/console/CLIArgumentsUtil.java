@@ -13,7 +13,7 @@ import java.util.regex.Pattern;
 
 public final class CLIArgumentsUtil {
 	
-	public static enum ProgramMode {GUI, CONVERT, HELP, VERSION, PARAMFILE};
+	public static enum ProgramMode {GUI, CONVERT, HELP, VERSION, PARAMFILE, DAEMON};
 	public static enum OutputMode {OBJ, POV, PNG, PPM};
 	
 	private CLIArgumentsUtil() { }
@@ -63,6 +63,17 @@ public final class CLIArgumentsUtil {
 					+ "and orthographic view";
 			}
 			
+		} else if (getProgramMode(args) == DAEMON) {
+			
+			if (!args.getDaemon().isDirectory()) {
+				return "daemon spool directory does not exist: "
+						+ args.getDaemon();
+			}
+			
+			if (args.getDaemonThreads() < 1) {
+				return "at least one daemon thread required";
+			}
+			
 		}
 		
 		return null;
@@ -81,10 +92,11 @@ public final class CLIArgumentsUtil {
 
 	public static final ProgramMode getProgramMode(CLIArguments args) {
 		return args.isParameterFile() ? PARAMFILE
-				: args.getHelp() ? HELP
-					: args.getVersion() ? VERSION
-						: args.getGui() ? GUI
-							: CONVERT;
+				: args.isDaemon() ? DAEMON
+					: args.getHelp() ? HELP
+						: args.getVersion() ? VERSION
+							: args.getGui() ? GUI
+								: CONVERT;
 	}
 	
 	public static final OutputMode getOutputMode(File outputFile) {
@@ -53,6 +53,13 @@ public class OSM2World {
 			System.exit(1);
 		}
 		
+		/* keep running in daemon mode */
+		
+		if (getProgramMode(args) == ProgramMode.DAEMON) {
+			new RenderDaemon(args.getDaemon(), args.getDaemonThreads()).run();
+			return;
+		}
+		
 		/* parse lines from parameter file (if one exists) */
 		
 		List<CLIArguments> argumentsList = Collections.singletonList(args);
@@ -86,30 +93,9 @@ public class OSM2World {
 			
 		}
 		
-		/* collect parameter groups into compatible groups
-		 * (groups of parameter groups that use the same input and config files) */
+		/* collect parameter groups into compatible groups */
 		
-		List<CLIArgumentsGroup> argumentsGroups = new ArrayList<CLIArgumentsGroup>();
-		
-		for (CLIArguments arguments : argumentsList) {
-			
-			boolean added = false;
-			
-			for (CLIArgumentsGroup compatibleGroup : argumentsGroups) {
-				if (compatibleGroup.isCompatible(arguments)) {
-					// add to existing compatible group
-					compatibleGroup.addCLIArguments(arguments);
-					added = true;
-					break;
-				}
-			}
-			
-			if (!added) {
-				// start a new compatible group
-				argumentsGroups.add(new CLIArgumentsGroup(arguments));
-			}
-			
-		}
+		List<CLIArgumentsGroup> argumentsGroups = groupArguments(argumentsList);
 		
 		/* execute conversions */
 		
@@ -133,7 +119,7 @@ public class OSM2World {
 		
 	}
 
-	private static CLIArguments parseArguments(String[] unparsedArgs)
+	static CLIArguments parseArguments(String[] unparsedArgs)
 		throws ArgumentValidationException, Exception {
 		
 		CLIArguments args = CliFactory.parseArguments(CLIArguments.class, unparsedArgs);
@@ -145,6 +131,53 @@ public class OSM2World {
 		
 	}
 
+	/**
+	 * collects parameter groups into compatible groups
+	 * (groups of parameter groups that use the same input and config files)
+	 */
+	static List<CLIArgumentsGroup> groupArguments(
+			List<CLIArguments> argumentsList) {
+		
+		List<CLIArgumentsGroup> argumentsGroups = new ArrayList<CLIArgumentsGroup>();
+		
+		for (CLIArguments arguments : argumentsList) {
+			
+			boolean added = false;
+			
+			for (CLIArgumentsGroup compatibleGroup : argumentsGroups) {
+				if (compatibleGroup.isCompatible(arguments)) {
+					// add to existing compatible group
+					compatibleGroup.addCLIArguments(arguments);
+					added = true;
+					break;
+				}
+			}
+			
+			if (!added) {
+				// start a new compatible group
+				argumentsGroups.add(new CLIArgumentsGroup(arguments));
+			}
+			
+		}
+		
+		return argumentsGroups;
+		
+	}
+	
+	/**
+	 * reads a configuration file
+	 */
+	static Configuration loadConfig(File configFile)
+			throws ConfigurationException {
+		
+		PropertiesConfiguration fileConfig = new PropertiesConfiguration();
+		fileConfig.setListDelimiter(';');
+		fileConfig.load(configFile);
+		
+		return fileConfig;
+		
+	}
+	
 	private static void executeArgumentsGroup(CLIArgumentsGroup argumentsGroup) {
 		
 		/* load configuration file */
@@ -157,10 +190,7 @@ public class OSM2World {
 		if (representativeArgs.isConfig()) {
 			try {
 				configFile = representativeArgs.getConfig();
-				PropertiesConfiguration fileConfig = new PropertiesConfiguration();
-				fileConfig.setListDelimiter(';');
-				fileConfig.load(configFile);
-				config = fileConfig;
+				config = loadConfig(configFile);
 			} catch (ConfigurationException e) {
 				System.err.println("could not read config, ignoring it: ");
 				System.err.println(e);
@@ -16,6 +16,8 @@ import org.osm2world.core.ConversionFacade.Phase;
 import org.osm2world.core.ConversionFacade.ProgressListener;
 import org.osm2world.core.ConversionFacade.Results;
 import org.osm2world.core.map_data.creation.MapProjection;
+import org.osm2world.core.map_elevation.creation.BicubicRasterInterpolator;
+import org.osm2world.core.map_elevation.creation.BilinearRasterInterpolator;
 import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.LPEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.LeastSquaresInterpolator;
@@ -27,6 +29,7 @@ import org.osm2world.core.map_elevation.creation.ZeroInterpolator;
 import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.target.common.rendering.Camera;
 import org.osm2world.core.target.common.rendering.OrthoTilesUtil;
 import org.osm2world.core.target.common.rendering.OrthoTilesUtil.CardinalDirection;
@@ -60,6 +63,12 @@ public final class Output {
 		} else if ("NaturalNeighborInterpolator".equals(interpolatorType)) {
 			cf.setTerrainEleInterpolatorFactory(
 					new DefaultFactory<TerrainInterpolator>(NaturalNeighborInterpolator.class));
+		} else if ("BilinearRasterInterpolator".equals(interpolatorType)) {
+			cf.setTerrainEleInterpolatorFactory(
+					new DefaultFactory<TerrainInterpolator>(BilinearRasterInterpolator.class));
+		} else if ("BicubicRasterInterpolator".equals(interpolatorType)) {
+			cf.setTerrainEleInterpolatorFactory(
+					new DefaultFactory<TerrainInterpolator>(BicubicRasterInterpolator.class));
 		}
 		
 		String enforcerType = config.getString("eleConstraintEnforcer");
@@ -74,6 +83,29 @@ public final class Output {
 					new DefaultFactory<EleConstraintEnforcer>(LPEleConstraintEnforcer.class));
 		}
 		
+		/* use the same materials for the conversion
+		 * and for writing the output files */
+		
+		MaterialRegistry materialRegistry = new MaterialRegistry(config);
+		materialRegistry.activate();
+		
+		try {
+			writeOutput(config, argumentsGroup, cf, perfListener, start);
+		} finally {
+			MaterialRegistry.deactivate();
+		}
+		
+	}
+	
+	/**
+	 * runs the conversion and writes all output files
+	 * of a group of arguments
+	 */
+	private static void writeOutput(Configuration config,
+			CLIArgumentsGroup argumentsGroup, ConversionFacade cf,
+			PerformanceListener perfListener, long start)
+		throws IOException {
+		
 		Results results = cf.createRepresentations(
 				argumentsGroup.getRepresentative().getInput(), null, config, null);
 		
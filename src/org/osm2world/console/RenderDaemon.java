@@ -0,0 +1,329 @@
+package org.osm2world.console;
+
+import static org.osm2world.console.CLIArgumentsUtil.getProgramMode;
+import static org.osm2world.console.CLIArgumentsUtil.ProgramMode.CONVERT;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
+
+/**
+ * keeps running and executes conversions for parameter files
+ * which are placed in a spool directory. This avoids the startup costs
+ * of a new process for each conversion, and caches such as
+ * the {@link org.osm2world.core.map_elevation.creation.SRTMTileCache}
+ * remain filled from one conversion to the next.
+ * Each conversion activates its own
+ * {@link org.osm2world.core.target.common.material.MaterialRegistry}
+ * only while it is running (see {@link Output}), so the reused threads
+ * do not carry one job's materials into the next.
+ *
+ * Parameter files use the same format as for --parameterFile
+ * and need to have the suffix {@value #JOB_SUFFIX}. A file is renamed
+ * to {@value #RUNNING_SUFFIX} while it is processed. Afterwards,
+ * it is deleted and a file with the suffix {@value #STATUS_SUFFIX}
+ * is written, containing lines with the status, time and output files.
+ */
+public class RenderDaemon implements Runnable {
+	
+	public static final String JOB_SUFFIX = ".params";
+	public static final String RUNNING_SUFFIX = ".running";
+	public static final String STATUS_SUFFIX = ".status";
+	
+	private static final long POLL_INTERVAL_MS = 500;
+	
+	private final File spoolDirectory;
+	private final int threadCount;
+	
+	/** limits the number of parameter files taken from the spool directory */
+	private final Semaphore freeThreads;
+	
+	/** configurations with the modification time of their file */
+	private final Map<File, Configuration> configCache =
+			new HashMap<File, Configuration>();
+	private final Map<File, Long> configTimestamps =
+			new HashMap<File, Long>();
+	
+	private volatile boolean stopped = false;
+	
+	/**
+	 * @param spoolDirectory  directory which is watched for parameter files
+	 * @param threadCount     maximum number of parameter files
+	 *                        processed at the same time
+	 */
+	public RenderDaemon(File spoolDirectory, int threadCount) {
+		this.spoolDirectory = spoolDirectory;
+		this.threadCount = threadCount;
+		this.freeThreads = new Semaphore(threadCount);
+	}
+	
+	/**
+	 * processes parameter files until {@link #stop()} is called.
+	 * Parameter files which are already being processed
+	 * will be finished before returning.
+	 */
+	@Override
+	public void run() {
+		
+		System.out.println("daemon watching " + spoolDirectory
+				+ " with " + threadCount + " threads");
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		
+		try {
+			
+			while (!stopped) {
+				
+				submitJobs(executor);
+				
+				try {
+					Thread.sleep(POLL_INTERVAL_MS);
+				} catch (InterruptedException e) {
+					stopped = true;
+				}
+				
+			}
+			
+		} finally {
+			
+			executor.shutdown();
+			
+			try {
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * makes {@link #run()} return after the current parameter files
+	 */
+	public void stop() {
+		stopped = true;
+	}
+	
+	/**
+	 * claims parameter files from the spool directory while there are
+	 * free threads, and submits them to the executor
+	 */
+	private void submitJobs(ExecutorService executor) {
+		
+		File[] jobFiles = spoolDirectory.listFiles(new FileFilter() {
+			@Override public boolean accept(File file) {
+				return file.isFile() && file.getName().endsWith(JOB_SUFFIX);
+			}
+		});
+		
+		if (jobFiles == null) {
+			System.err.println("cannot read spool directory " + spoolDirectory);
+			return;
+		}
+		
+		Arrays.sort(jobFiles);
+		
+		for (File jobFile : jobFiles) {
+			
+			if (!freeThreads.tryAcquire()) break;
+			
+			String name = jobFile.getName().substring(0,
+					jobFile.getName().length() - JOB_SUFFIX.length());
+			
+			final File runningFile = new File(spoolDirectory, name + RUNNING_SUFFIX);
+			final File statusFile = new File(spoolDirectory, name + STATUS_SUFFIX);
+			
+			/* renaming fails if the file has been claimed by someone else */
+			
+			if (!jobFile.renameTo(runningFile)) {
+				freeThreads.release();
+				continue;
+			}
+			
+			executor.execute(new Runnable() {
+				@Override public void run() {
+					try {
+						processJob(runningFile, statusFile);
+					} finally {
+						freeThreads.release();
+					}
+				}
+			});
+			
+		}
+		
+	}
+	
+	/**
+	 * executes the conversions from a parameter file
+	 * and writes the status file
+	 */
+	private void processJob(File runningFile, File statusFile) {
+		
+		long start = System.currentTimeMillis();
+		
+		List<String> errors = new ArrayList<String>();
+		List<File> outputFiles = new ArrayList<File>();
+		
+		try {
+			
+			/* parse parameters */
+			
+			List<CLIArguments> argumentsList = new ArrayList<CLIArguments>();
+			
+			for (String[] unparsedArgs : CLIArgumentsUtil
+					.getUnparsedParameterGroups(runningFile)) {
+				
+				try {
+					
+					CLIArguments args = OSM2World.parseArguments(unparsedArgs);
+					
+					if (getProgramMode(args) == CONVERT) {
+						argumentsList.add(args);
+					} else {
+						errors.add("only conversions are supported in daemon mode: "
+								+ Arrays.toString(unparsedArgs));
+					}
+					
+				} catch (Exception e) {
+					errors.add("could not parse parameters "
+							+ Arrays.toString(unparsedArgs) + ": " + e.getMessage());
+				}
+				
+			}
+			
+			/* execute conversions */
+			
+			for (CLIArgumentsGroup argumentsGroup
+					: OSM2World.groupArguments(argumentsList)) {
+				
+				try {
+					
+					Output.output(getConfig(argumentsGroup.getRepresentative()),
+							argumentsGroup);
+					
+					for (CLIArguments args : argumentsGroup.getCLIArgumentsList()) {
+						outputFiles.addAll(args.getOutput());
+					}
+					
+				} catch (Exception e) {
+					e.printStackTrace();
+					errors.add("conversion of "
+							+ argumentsGroup.getRepresentative().getInput()
+							+ " failed: " + e);
+				}
+				
+			}
+			
+		} catch (IOException e) {
+			errors.add("could not read parameter file: " + e.getMessage());
+		}
+		
+		/* write status */
+		
+		long time = System.currentTimeMillis() - start;
+		
+		try {
+			writeStatusFile(statusFile, errors, outputFiles, time);
+		} catch (IOException e) {
+			System.err.println("could not write status file " + statusFile);
+			System.err.println(e);
+		}
+		
+		runningFile.delete();
+		
+		System.out.println("finished " + runningFile.getName() + " after "
+				+ time + " ms" + (errors.isEmpty() ? "" : " with errors"));
+		
+	}
+	
+	/**
+	 * returns the configuration for a conversion. Configuration files
+	 * are only read again if they have been modified.
+	 * The returned configurations are shared and must not be modified.
+	 */
+	private synchronized Configuration getConfig(CLIArguments args) {
+		
+		if (!args.isConfig()) {
+			return new BaseConfiguration();
+		}
+		
+		File configFile = args.getConfig().getAbsoluteFile();
+		long timestamp = configFile.lastModified();
+		
+		if (!configCache.containsKey(configFile)
+				|| configTimestamps.get(configFile) != timestamp) {
+			
+			Configuration config;
+			
+			try {
+				config = OSM2World.loadConfig(configFile);
+			} catch (ConfigurationException e) {
+				System.err.println("could not read config, ignoring it: ");
+				System.err.println(e);
+				config = new BaseConfiguration();
+			}
+			
+			configCache.put(configFile, config);
+			configTimestamps.put(configFile, timestamp);
+			
+		}
+		
+		return configCache.get(configFile);
+		
+	}
+	
+	/**
+	 * writes the results of a parameter file to a status file.
+	 * The file is renamed after writing, so that it is complete
+	 * as soon as it appears.
+	 */
+	private static void writeStatusFile(File statusFile, List<String> errors,
+			List<File> outputFiles, long time) throws IOException {
+		
+		File tempFile = new File(statusFile.getPath() + ".tmp");
+		
+		PrintWriter writer = new PrintWriter(new FileWriter(tempFile));
+		
+		try {
+			
+			writer.println("status=" + (errors.isEmpty() ? "success" : "failure"));
+			writer.println("time=" + time);
+			
+			for (File outputFile : outputFiles) {
+				writer.println("output=" + outputFile.getAbsolutePath());
+			}
+			
+			for (String error : errors) {
+				writer.println("error=" + error.replace('\n', ' '));
+			}
+			
+		} finally {
+			writer.close();
+		}
+		
+		statusFile.delete();
+		
+		if (!tempFile.renameTo(statusFile)) {
+			throw new IOException("cannot rename " + tempFile);
+		}
+		
+	}
+	
+}
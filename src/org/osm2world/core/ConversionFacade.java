@@ -1,7 +1,5 @@
 package org.osm2world.core;
 
-import static java.util.Collections.emptyList;
-
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -20,27 +18,34 @@ import org.osm2world.core.map_data.creation.OriginMapProjection;
 import org.osm2world.core.map_data.data.MapData;
 import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.EleConstraintValidator;
+import org.osm2world.core.map_elevation.creation.LPEleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.LeastSquaresInterpolator;
 import org.osm2world.core.map_elevation.creation.NoneEleConstraintEnforcer;
+import org.osm2world.core.map_elevation.creation.RasterInterpolator;
 import org.osm2world.core.map_elevation.creation.SRTMData;
+import org.osm2world.core.map_elevation.creation.SRTMTileCache;
+import org.osm2world.core.map_elevation.creation.SiteBasedTerrainInterpolator;
 import org.osm2world.core.map_elevation.creation.TerrainElevationData;
+import org.osm2world.core.map_elevation.creation.TerrainInterpolationUtil;
 import org.osm2world.core.map_elevation.creation.TerrainInterpolator;
+import org.osm2world.core.map_elevation.creation.TerrainSites;
 import org.osm2world.core.map_elevation.creation.ZeroInterpolator;
 import org.osm2world.core.map_elevation.data.EleConnector;
-import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.osm.creation.JOSMFileHack;
 import org.osm2world.core.osm.creation.OsmosisReader;
 import org.osm2world.core.osm.data.OSMData;
 import org.osm2world.core.target.Renderable;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.TargetUtil;
-import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.target.common.material.MaterialRegistry;
 import org.osm2world.core.util.FaultTolerantIterationUtil;
 import org.osm2world.core.util.FaultTolerantIterationUtil.Operation;
+import org.osm2world.core.util.ParallelIterationUtil;
 import org.osm2world.core.util.functions.DefaultFactory;
 import org.osm2world.core.util.functions.Factory;
 import org.osm2world.core.world.creation.WorldCreator;
 import org.osm2world.core.world.creation.WorldModule;
+import org.osm2world.core.world.data.TerrainDependentWorldObject;
 import org.osm2world.core.world.data.WorldObject;
 import org.osm2world.core.world.modules.BarrierModule;
 import org.osm2world.core.world.modules.BridgeModule;
@@ -72,11 +77,14 @@ public class ConversionFacade {
 		private final MapProjection mapProjection;
 		private final MapData mapData;
 		private final TerrainElevationData eleData;
+		private final MaterialRegistry materialRegistry;
 		
-		private Results(MapProjection mapProjection, MapData mapData, TerrainElevationData eleData) {
+		private Results(MapProjection mapProjection, MapData mapData,
+				TerrainElevationData eleData, MaterialRegistry materialRegistry) {
 			this.mapProjection = mapProjection;
 			this.mapData = mapData;
 			this.eleData = eleData;
+			this.materialRegistry = materialRegistry;
 		}
 
 		public MapProjection getMapProjection() {
@@ -91,6 +99,17 @@ public class ConversionFacade {
 			return eleData;
 		}
 		
+		/**
+		 * returns the materials used by this conversion.
+		 * Unless the caller had activated a registry before the conversion,
+		 * it is no longer active afterwards. Code rendering the results
+		 * needs to {@link MaterialRegistry#activate()} it first
+		 * and call {@link MaterialRegistry#deactivate()} when it is done.
+		 */
+		public MaterialRegistry getMaterialRegistry() {
+			return materialRegistry;
+		}
+		
 		/**
 		 * collects and returns all representations that implement a
 		 * renderableType, including terrain.
@@ -273,6 +292,11 @@ public class ConversionFacade {
 	 * @param targets       receivers of the conversion results; can be null if
 	 *                      you want to handle the returned results yourself
 	 * 
+	 * If a {@link MaterialRegistry} is active for the current thread, it is
+	 * used for the conversion and remains active. It should have been created
+	 * from the same configuration. Otherwise, a registry is created
+	 * from the configuration and is only active during the conversion.
+	 * 
 	 * @throws BoundingBoxSizeException  for oversized bounding boxes
 	 */
 	public Results createRepresentations(OSMData osmData,
@@ -306,7 +330,7 @@ public class ConversionFacade {
 		OriginMapProjection mapProjection = mapProjectionFactory.make();
 		mapProjection.setOrigin(osmData);
 		
-		OSMToMapDataConverter converter = new OSMToMapDataConverter(mapProjection);
+		OSMToMapDataConverter converter = new OSMToMapDataConverter(mapProjection, config);
 		MapData mapData = converter.createMapData(osmData);
 		
 		/* apply world modules */
@@ -316,9 +340,37 @@ public class ConversionFacade {
 			worldModules = createDefaultModuleList();
 		}
 		
-		Materials.configureMaterials(config);
-			//this will cause problems if multiple conversions are run
-			//at the same time, because global variables are being modified
+		/* use the caller's material registry if there is one,
+		 * otherwise use this conversion's materials while it is running */
+		
+		MaterialRegistry materialRegistry = MaterialRegistry.getActive();
+		boolean ownRegistry = (materialRegistry == null);
+		
+		if (ownRegistry) {
+			materialRegistry = new MaterialRegistry(config);
+			materialRegistry.activate();
+		}
+		
+		try {
+			return createRepresentations(mapProjection, mapData,
+					worldModules, config, targets, materialRegistry);
+		} finally {
+			if (ownRegistry) {
+				MaterialRegistry.deactivate();
+			}
+		}
+		
+	}
+	
+	/**
+	 * applies the world modules to map data, calculates elevations and
+	 * supplies the results to the targets. Expects the material registry
+	 * to be active.
+	 */
+	private Results createRepresentations(MapProjection mapProjection,
+			MapData mapData, List<WorldModule> worldModules,
+			Configuration config, List<Target<?>> targets,
+			MaterialRegistry materialRegistry) {
 		
 		WorldCreator moduleManager =
 			new WorldCreator(config, worldModules);
@@ -331,7 +383,20 @@ public class ConversionFacade {
 		TerrainElevationData eleData = null;
 				
 		if (srtmDir != null) {
-			eleData = new SRTMData(new File(srtmDir), mapProjection);
+			
+			long cacheBytes = config.getLong("srtmCacheSize",
+					SRTMTileCache.DEFAULT_MAX_BYTES / (1024 * 1024)) * 1024 * 1024;
+			
+			String srtmUnzipDir = config.getString("srtmUnzipDir", null);
+			File unzipDirectory = srtmUnzipDir == null
+					? SRTMTileCache.DEFAULT_UNZIP_DIRECTORY
+					: new File(srtmUnzipDir);
+			
+			SRTMTileCache tileCache = SRTMTileCache.getSharedInstance(
+					cacheBytes, unzipDirectory);
+			
+			eleData = new SRTMData(new File(srtmDir), mapProjection, tileCache);
+			
 		}
 		
 		calculateElevations(mapData, eleData, config);
@@ -351,7 +416,7 @@ public class ConversionFacade {
 			}
 		}
 		
-		return new Results(mapProjection, mapData, eleData);
+		return new Results(mapProjection, mapData, eleData, materialRegistry);
 		
 	}
 	
@@ -368,14 +433,30 @@ public class ConversionFacade {
 				? terrainEleInterpolatorFactory.make()
 				: new ZeroInterpolator();
 		
+		if (interpolator instanceof LeastSquaresInterpolator) {
+			((LeastSquaresInterpolator)interpolator).setThreadCount(
+					config.getInt("leastSquaresThreads", 1));
+		}
+		
 		/* provide known elevations from eleData to the interpolator */
 		
 		StopWatch stopWatch = new StopWatch();
 		stopWatch.start();
 				
-		if (!(interpolator instanceof ZeroInterpolator)) {
+		if (interpolator instanceof RasterInterpolator) {
+			
+			if (!(eleData instanceof SRTMData)) {
+				throw new IllegalArgumentException("terrain interpolator "
+						+ interpolator.getClass().getSimpleName()
+						+ " requires SRTM data, but the elevation data is "
+						+ eleData.getClass().getSimpleName());
+			}
+			
+			((RasterInterpolator)interpolator).setElevationData((SRTMData)eleData);
+			
+		} else if (interpolator instanceof SiteBasedTerrainInterpolator) {
 		
-			Collection<VectorXYZ> sites = emptyList();
+			TerrainSites sites = new TerrainSites(0);
 			
 			try {
 							
@@ -389,7 +470,7 @@ public class ConversionFacade {
 				e.printStackTrace();
 			}
 			
-			interpolator.setKnownSites(sites);
+			((SiteBasedTerrainInterpolator)interpolator).setKnownSites(sites);
 			
 			System.out.println("time setKnownSites: " + stopWatch);
 			stopWatch.reset();
@@ -397,23 +478,43 @@ public class ConversionFacade {
 			
 		}
 		
-		/* interpolate connectors' elevations */
+		/* provide the interpolator to objects which adapt their
+		 * connectors to the terrain, before the connectors are requested */
+		
+		for (WorldObject worldObject : mapData.getWorldObjects()) {
+			if (worldObject instanceof TerrainDependentWorldObject) {
+				((TerrainDependentWorldObject)worldObject)
+						.setTerrainInterpolator(interpolator);
+			}
+		}
+		
+		/* collect the connectors */
 		
-		final List<EleConnector> connectors = new ArrayList<EleConnector>();
+		final List<EleConnector> allConnectors = new ArrayList<EleConnector>();
 		
 		FaultTolerantIterationUtil.iterate(mapData.getWorldObjects(),
 				new Operation<WorldObject>() {
 			@Override public void perform(WorldObject worldObject) {
 				
 				for (EleConnector conn : worldObject.getEleConnectors()) {
-					conn.setPosXYZ(interpolator.interpolateEle(conn.pos));
-					connectors.add(conn);
+					allConnectors.add(conn);
 				}
 				
 			}
 		});
 		
-		System.out.println("time terrain interpolation: " + stopWatch);
+		/* interpolate connectors' elevations */
+		
+		int threadCount = ParallelIterationUtil.getThreadCount(
+				config.getInt("eleInterpolationThreads", 1));
+		
+		List<EleConnector> connectors = TerrainInterpolationUtil.interpolateEles(
+				allConnectors, interpolator, threadCount);
+		
+		System.out.println("time terrain interpolation: " + stopWatch
+				+ " (" + connectors.size() + " connectors, "
+				+ (long)(connectors.size() * 1000.0 / Math.max(stopWatch.getTime(), 1))
+				+ " per second)");
 		stopWatch.reset();
 		stopWatch.start();
 		
@@ -421,10 +522,16 @@ public class ConversionFacade {
 		
 		boolean debugConstraints = config.getBoolean("debugConstraints", false);
 		
+		EleConstraintEnforcer baseEnforcer = eleConstraintEnforcerFactory.make();
+		
+		if (baseEnforcer instanceof LPEleConstraintEnforcer) {
+			((LPEleConstraintEnforcer)baseEnforcer).setThreadCount(
+					config.getInt("eleConstraintThreads", 1));
+		}
+		
 		final EleConstraintEnforcer enforcer = debugConstraints
-				? new EleConstraintValidator(mapData,
-						eleConstraintEnforcerFactory.make())
-				: eleConstraintEnforcerFactory.make();
+				? new EleConstraintValidator(mapData, baseEnforcer)
+				: baseEnforcer;
 		
 		enforcer.addConnectors(connectors);
 		
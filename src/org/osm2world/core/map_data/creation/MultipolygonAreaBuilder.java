@@ -11,8 +11,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 import org.openstreetmap.josm.plugins.graphview.core.data.MapBasedTagGroup;
 import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
@@ -35,6 +37,9 @@ import org.osm2world.core.osm.data.OSMWay;
 import org.osm2world.core.osm.ruleset.HardcodedRuleset;
 import org.osm2world.core.osm.ruleset.Ruleset;
 
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
 /**
  * utility class for creating areas from multipolygon relations,
  * including those with non-closed member ways.
@@ -187,7 +192,11 @@ final class MultipolygonAreaBuilder {
 	}
 
 	/**
-	 * builds closed rings from any mixture of closed and unclosed segments
+	 * builds closed rings from any mixture of closed and unclosed segments.
+	 * 
+	 * Sequences are looked up using an index of their end nodes.
+	 * If several sequences can be appended, the one that comes first
+	 * in the list is used.
 	 * 
 	 * @return  null if building closed rings isn't possible
 	 */
@@ -196,39 +205,61 @@ final class MultipolygonAreaBuilder {
 		
 		List<Ring> closedRings = new ArrayList<Ring>();
 		
+		/* index the sequences by their first and last node */
+		
+		Map<MapNode, List<Integer>> endNodeIndex =
+				new HashMap<MapNode, List<Integer>>(2 * sequences.size());
+		
+		for (int i = 0; i < sequences.size(); i++) {
+			
+			NodeSequence sequence = sequences.get(i);
+			
+			addToEndNodeIndex(endNodeIndex, sequence.getFirstNode(), i);
+			
+			if (!sequence.isClosed()) {
+				addToEndNodeIndex(endNodeIndex, sequence.getLastNode(), i);
+			}
+			
+		}
+		
+		boolean[] used = new boolean[sequences.size()];
+		int remainingSequences = sequences.size();
+		int lastUnusedIndex = sequences.size() - 1;
+		
 		NodeSequence currentRing = null;
 		
-		while (sequences.size() > 0) {
+		while (remainingSequences > 0) {
 			
 			if (currentRing == null) {
 				
 				// start a new ring with any remaining node sequence
 				
-				currentRing = sequences.remove(sequences.size() - 1);
+				while (used[lastUnusedIndex]) {
+					lastUnusedIndex --;
+				}
+				
+				currentRing = sequences.get(lastUnusedIndex);
+				used[lastUnusedIndex] = true;
 				
 			} else {
 				
 				// try to continue the ring by appending a node sequence
 				
-				NodeSequence assignedSequence = null;
-				
-				for (NodeSequence sequence : sequences) {
-				
-					if (currentRing.tryAdd(sequence)) {
-						assignedSequence = sequence;
-						break;
-					}
-					
-				}
+				int assignedIndex = min(
+						firstUnusedIndex(endNodeIndex, currentRing.getFirstNode(), used),
+						firstUnusedIndex(endNodeIndex, currentRing.getLastNode(), used));
 				
-				if (assignedSequence != null) {
-					sequences.remove(assignedSequence);
+				if (assignedIndex < sequences.size()) {
+					currentRing.tryAdd(sequences.get(assignedIndex));
+					used[assignedIndex] = true;
 				} else {
 					return null;
 				}
 				
 			}
 			
+			remainingSequences --;
+			
 			// check whether the ring under construction is closed
 			
 			if (currentRing != null && currentRing.isClosed()) {
@@ -252,8 +283,52 @@ final class MultipolygonAreaBuilder {
 		return closedRings;
 		
 	}
+	
+	private static final void addToEndNodeIndex(
+			Map<MapNode, List<Integer>> endNodeIndex, MapNode node, int index) {
+		
+		List<Integer> indices = endNodeIndex.get(node);
+		
+		if (indices == null) {
+			indices = new ArrayList<Integer>(2);
+			endNodeIndex.put(node, indices);
+		}
+		
+		indices.add(index);
+		
+	}
+	
+	/**
+	 * returns the lowest index of an unused sequence starting or ending
+	 * with a node, or {@link Integer#MAX_VALUE} if there is none
+	 */
+	private static final int firstUnusedIndex(
+			Map<MapNode, List<Integer>> endNodeIndex, MapNode node,
+			boolean[] used) {
+		
+		List<Integer> indices = endNodeIndex.get(node);
+		
+		if (indices != null) {
+			for (int index : indices) {
+				if (!used[index]) {
+					return index;
+				}
+			}
+		}
+		
+		return Integer.MAX_VALUE;
+		
+	}
 
 	/**
+	 * creates areas from rings. Each ring that isn't contained
+	 * in another remaining ring becomes an outer ring, the rings directly
+	 * within it become its holes. The used rings are removed and the process
+	 * is repeated until no rings are left.
+	 * 
+	 * Containment between rings is determined only once, using
+	 * an {@link STRtree} of the rings' bounding boxes.
+	 * 
 	 * @param rings  rings to build polygons from; will be empty afterwards
 	 */
 	private static final Collection<MapArea> buildPolygonsFromRings(
@@ -262,65 +337,90 @@ final class MultipolygonAreaBuilder {
 		Collection<MapArea> finishedPolygons =
 				new ArrayList<MapArea>(rings.size() / 2);
 		
-		/* build polygon */
+		/* find the rings containing each ring */
 		
-		while (!rings.isEmpty()) {
-			
-			/* find an outer ring */
+		STRtree ringTree = new STRtree();
+		
+		for (int i = 0; i < rings.size(); i++) {
+			ringTree.insert(rings.get(i).getEnvelope(), i);
+		}
+		
+		List<List<Integer>> containedRings = new ArrayList<List<Integer>>(rings.size());
+		int[] containingRingCounts = new int[rings.size()];
+		
+		for (int i = 0; i < rings.size(); i++) {
+			containedRings.add(new ArrayList<Integer>());
+		}
+		
+		for (int i = 0; i < rings.size(); i++) {
 			
-			Ring outerRing = null;
+			Ring ring = rings.get(i);
+			Envelope envelope = ring.getEnvelope();
 			
-			for (Ring candidate : rings) {
+			for (Object candidate : ringTree.query(envelope)) {
 				
-				boolean containedInOtherRings = false;
+				int candidateIndex = (Integer)candidate;
+				Ring candidateRing = rings.get(candidateIndex);
 				
-				for (Ring otherRing : rings) {
-					if (otherRing != candidate
-							&& otherRing.containsRing(candidate)) {
-						containedInOtherRings = true;
-						break;
-					}
-				}
+				/* a containing ring's envelope contains this ring's envelope */
 				
-				if (!containedInOtherRings) {
-					outerRing = candidate;
-					break;
+				if (candidateIndex != i
+						&& candidateRing.getEnvelope().contains(envelope)
+						&& candidateRing.containsRing(ring)) {
+					containedRings.get(candidateIndex).add(i);
+					containingRingCounts[i] ++;
 				}
 				
 			}
 			
-			/* find inner rings of that ring */
+		}
+		
+		/* keep the rings that aren't contained in another remaining ring
+		 * (i.e. the candidates for outer rings) ordered by their index */
+		
+		TreeSet<Integer> uncontainedRings = new TreeSet<Integer>();
+		
+		for (int i = 0; i < rings.size(); i++) {
+			if (containingRingCounts[i] == 0) {
+				uncontainedRings.add(i);
+			}
+		}
+		
+		/* build polygons */
+		
+		int remainingRings = rings.size();
+		
+		while (remainingRings > 0) {
+			
+			/* find an outer ring */
 			
-			Collection<Ring> innerRings = new ArrayList<Ring>();
+			if (uncontainedRings.isEmpty()) {
+				throw new InvalidGeometryException(
+						"no outer ring, rings are contained in each other");
+			}
 			
-			for (Ring ring : rings) {
-				if (ring != outerRing && outerRing.containsRing(ring)) {
-					
-					boolean containedInOtherRings = false;
-					
-					for (Ring otherRing : rings) {
-						if (otherRing != ring && otherRing != outerRing
-								&& otherRing.containsRing(ring)) {
-							containedInOtherRings = true;
-							break;
-						}
-					}
-					
-					if (!containedInOtherRings) {
-						innerRings.add(ring);
-					}
-					
+			int outerIndex = uncontainedRings.pollFirst();
+			Ring outerRing = rings.get(outerIndex);
+			
+			/* find inner rings of that ring,
+			 * i.e. rings not contained by any other remaining ring */
+			
+			List<Integer> innerIndices = new ArrayList<Integer>();
+			
+			for (int i : containedRings.get(outerIndex)) {
+				if (containingRingCounts[i] == 1) {
+					innerIndices.add(i);
 				}
 			}
 			
-			/* create a new area and remove the used rings */
+			/* create a new area */
 			
-			List<List<MapNode>> holes = new ArrayList<List<MapNode>>(innerRings.size());
-			List<SimplePolygonXZ> holesXZ = new ArrayList<SimplePolygonXZ>(innerRings.size());
+			List<List<MapNode>> holes = new ArrayList<List<MapNode>>(innerIndices.size());
+			List<SimplePolygonXZ> holesXZ = new ArrayList<SimplePolygonXZ>(innerIndices.size());
 			
-			for (Ring innerRing : innerRings) {
-				holes.add(innerRing.closedNodeSequence);
-				holesXZ.add(innerRing.getPolygon());
+			for (int i : innerIndices) {
+				holes.add(rings.get(i).closedNodeSequence);
+				holesXZ.add(rings.get(i).getPolygon());
 			}
 			
 			MapArea area = new MapArea(relation, outerRing.getNodeLoop(), holes,
@@ -328,15 +428,44 @@ final class MultipolygonAreaBuilder {
 			
 			finishedPolygons.add(area);
 			
-			rings.remove(outerRing);
-			rings.removeAll(innerRings);
+			/* remove the used rings */
+			
+			removeRing(outerIndex, containedRings, containingRingCounts,
+					uncontainedRings);
+			
+			for (int i : innerIndices) {
+				uncontainedRings.remove(i);
+				removeRing(i, containedRings, containingRingCounts,
+						uncontainedRings);
+			}
+			
+			remainingRings -= 1 + innerIndices.size();
 			
 		}
 		
+		rings.clear();
+		
 		return finishedPolygons;
 		
 	}
 	
+	/**
+	 * updates the number of remaining containing rings
+	 * for all rings within a removed ring
+	 */
+	private static final void removeRing(int index,
+			List<List<Integer>> containedRings, int[] containingRingCounts,
+			TreeSet<Integer> uncontainedRings) {
+		
+		for (int i : containedRings.get(index)) {
+			containingRingCounts[i] --;
+			if (containingRingCounts[i] == 0) {
+				uncontainedRings.add(i);
+			}
+		}
+		
+	}
+	
 	private static final TagGroup COASTLINE_NODE_TAGS = new MapBasedTagGroup(
 			new Tag("osm2world:note", "fake node from coastline processing"));
 	
@@ -758,6 +887,9 @@ final class MultipolygonAreaBuilder {
 		private final NodeSequence closedNodeSequence;
 		private final SimplePolygonXZ polygon;
 		
+		/** stores the result for {@link #getEnvelope()} */
+		private Envelope envelope = null;
+		
 		public Ring(NodeSequence closedNodeSequence) {
 
 			assert closedNodeSequence.isClosed();
@@ -783,6 +915,20 @@ final class MultipolygonAreaBuilder {
 			
 		}
 		
+		/**
+		 * returns the bounding box as a JTS envelope
+		 */
+		private Envelope getEnvelope() {
+			
+			if (envelope == null) {
+				AxisAlignedBoundingBoxXZ box = polygon.getAxisAlignedBoundingBoxXZ();
+				envelope = new Envelope(box.minX, box.maxX, box.minZ, box.maxZ);
+			}
+			
+			return envelope;
+			
+		}
+		
 		private List<MapNode> getNodeLoop() {
 			return closedNodeSequence;
 		}
@@ -10,13 +10,19 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
 import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
 import org.openstreetmap.josm.plugins.graphview.core.data.osmosis.OSMFileDataSource;
 import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.osm2world.core.map_data.creation.index.Map2dTree;
 import org.osm2world.core.map_data.creation.index.MapDataIndex;
 import org.osm2world.core.map_data.creation.index.MapIntersectionGrid;
 import org.osm2world.core.map_data.data.MapArea;
@@ -26,6 +32,7 @@ import org.osm2world.core.map_data.data.MapElement;
 import org.osm2world.core.map_data.data.MapNode;
 import org.osm2world.core.map_data.data.MapWaySegment;
 import org.osm2world.core.map_data.data.overlaps.MapIntersectionWW;
+import org.osm2world.core.map_data.data.overlaps.MapOverlap;
 import org.osm2world.core.map_data.data.overlaps.MapOverlapAA;
 import org.osm2world.core.map_data.data.overlaps.MapOverlapNA;
 import org.osm2world.core.map_data.data.overlaps.MapOverlapType;
@@ -45,6 +52,7 @@ import org.osm2world.core.osm.data.OSMWay;
 import org.osm2world.core.osm.ruleset.HardcodedRuleset;
 import org.osm2world.core.osm.ruleset.Ruleset;
 import org.osm2world.core.util.FaultTolerantIterationUtil.Operation;
+import org.osm2world.core.util.ParallelIterationUtil;
 
 /**
  * converts {@link OSMData} into the internal map data representation
@@ -54,12 +62,24 @@ public class OSMToMapDataConverter {
 	private final Ruleset ruleset = new HardcodedRuleset();
 	
 	private final MapProjection mapProjection;
+	private final Configuration config;
 	
 	private static final Tag MULTIPOLYON_TAG = new Tag("type", "multipolygon");
 	
-		
-	public OSMToMapDataConverter(MapProjection mapProjection) {
+	
+	/**
+	 * @param config  configuration; its "overlapIndex" value selects the
+	 *                index structure for overlap detection
+	 *                ("grid" or "2dtree", default "grid"). != null
+	 */
+	public OSMToMapDataConverter(MapProjection mapProjection,
+			Configuration config) {
 		this.mapProjection = mapProjection;
+		this.config = config;
+	}
+	
+	public OSMToMapDataConverter(MapProjection mapProjection) {
+		this(mapProjection, new BaseConfiguration());
 	}
 
 	public MapData createMapData(OSMData osmData) throws IOException {
@@ -224,95 +244,271 @@ public class OSMToMapDataConverter {
 	
 	/**
 	 * calculates intersections and adds the information to the
-	 * {@link MapElement}s
+	 * {@link MapElement}s.
+	 * 
+	 * Candidate pairs are collected from the index in batches.
+	 * The geometric tests for each batch can be performed by multiple
+	 * threads ("overlapThreads" configuration value), but the results are
+	 * always added to the elements in the order of the candidate pairs,
+	 * so the result does not depend on the number of threads.
 	 */
-	private static void calculateIntersectionsInMapData(MapData mapData) {
+	private void calculateIntersectionsInMapData(MapData mapData) {
 		
-		MapDataIndex index = new MapIntersectionGrid(mapData.getDataBoundary());
+		MapDataIndex index = createIndex(mapData);
 		
-		for (MapElement e1 : mapData.getMapElements()) {
-			
-			/* collect all nearby elements */
-			
-			Collection<? extends Iterable<MapElement>> leaves
-					= index.insertAndProbe(e1);
+		int threadCount = ParallelIterationUtil.getThreadCount(
+				config.getInt("overlapThreads", 1));
+		
+		/* make sure that lazily calculated data is available
+		 * before it is accessed by multiple threads */
+		
+		for (MapArea area : mapData.getMapAreas()) {
+			area.getAreaSegments();
+		}
+		
+		long candidatePairCount = 0;
+		
+		/* a single pool of threads is used for all batches */
+		
+		ExecutorService executor = null;
+		
+		if (threadCount > 1) {
+			executor = Executors.newFixedThreadPool(threadCount);
+		}
+		
+		try {
 			
-			Iterable<MapElement> nearbyElements;
+			List<CandidatePair> batch = new ArrayList<CandidatePair>(PAIR_BATCH_SIZE);
 			
-			if (leaves.size() == 1) {
-				nearbyElements = leaves.iterator().next();
-			} else {
-				// collect and de-duplicate elements from all the leaves
-				Set<MapElement> elementSet = new HashSet<MapElement>();
-				for (Iterable<MapElement> leaf : leaves) {
-					for (MapElement e : leaf) {
-						elementSet.add(e);
+			for (MapElement e1 : mapData.getMapElements()) {
+				
+				/* collect all nearby elements */
+				
+				Collection<? extends Iterable<MapElement>> leaves
+						= index.insertAndProbe(e1);
+				
+				Iterable<MapElement> nearbyElements;
+				
+				if (leaves.size() == 1) {
+					nearbyElements = leaves.iterator().next();
+				} else {
+					// collect and de-duplicate elements from all the leaves
+					Set<MapElement> elementSet = new LinkedHashSet<MapElement>();
+					for (Iterable<MapElement> leaf : leaves) {
+						for (MapElement e : leaf) {
+							elementSet.add(e);
+						}
+					}
+					nearbyElements = elementSet;
+				}
+				
+				for (MapElement e2 : nearbyElements) {
+				
+					if (e1 == e2) { continue; }
+					
+					candidatePairCount += 1;
+					
+					if (isOverlapPossible(e1, e2)) {
+						batch.add(new CandidatePair(e1, e2));
 					}
+					
 				}
-				nearbyElements = elementSet;
+				
+				if (batch.size() >= PAIR_BATCH_SIZE) {
+					processCandidatePairs(batch, executor, threadCount);
+					batch.clear();
+				}
+				
 			}
 			
-			for (MapElement e2 : nearbyElements) {
+			processCandidatePairs(batch, executor, threadCount);
 			
-				if (e1 == e2) { continue; }
-				
-				addOverlapBetween(e1, e2);
-				
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
 			}
+		}
+		
+		System.out.println("overlap candidate pairs: " + candidatePairCount);
+		
+	}
+	
+	/** number of candidate pairs that are collected before processing them */
+	private static final int PAIR_BATCH_SIZE = 10000;
+	
+	/**
+	 * two elements which might overlap, and the result of the test
+	 */
+	private static final class CandidatePair {
+		
+		final MapElement e1;
+		final MapElement e2;
+		
+		MapOverlap<?, ?> overlap = null;
+		
+		CandidatePair(MapElement e1, MapElement e2) {
+			this.e1 = e1;
+			this.e2 = e2;
+		}
+		
+	}
+	
+	/**
+	 * calculates the overlaps for a batch of candidate pairs,
+	 * then adds them to the elements in the order of the batch
+	 * 
+	 * @param executor  executor for the overlap calculations;
+	 *                  null to calculate them in the calling thread
+	 */
+	private static void processCandidatePairs(List<CandidatePair> batch,
+			ExecutorService executor, int threadCount) {
+		
+		Operation<CandidatePair> operation = new Operation<CandidatePair>() {
+			@Override public void perform(CandidatePair pair) {
+				pair.overlap = calculateOverlap(pair.e1, pair.e2);
+			}
+		};
+		
+		if (executor == null) {
+			ParallelIterationUtil.iterate(batch, operation, 1);
+		} else {
+			ParallelIterationUtil.iterate(batch, operation, executor, threadCount);
+		}
+		
+		for (CandidatePair pair : batch) {
+			if (pair.overlap != null) {
+				addOverlapToElements(pair.overlap);
+			}
+		}
+		
+	}
+	
+	/**
+	 * creates the {@link MapDataIndex} for overlap detection
+	 * selected by the configuration
+	 */
+	private MapDataIndex createIndex(MapData mapData) {
+		
+		String indexType = config.getString("overlapIndex", "grid");
+		
+		if ("2dtree".equals(indexType)) {
+			
+			return new Map2dTree(mapData.getDataBoundary());
+			
+		} else {
+			
+			if (!"grid".equals(indexType)) {
+				System.err.println("unknown overlapIndex '" + indexType
+						+ "', using grid");
+			}
+			
+			int elementCount = mapData.getMapNodes().size()
+					+ mapData.getMapWaySegments().size()
+					+ mapData.getMapAreas().size();
+			
+			return new MapIntersectionGrid(
+					mapData.getDataBoundary(), elementCount);
 			
 		}
 		
 	}
 
 	/**
-	 * adds the overlap between two {@link MapElement}s
-	 * to both, if it exists. It calls the appropriate
-	 * subtype-specific addOverlapBetween method
+	 * checks whether {@link #calculateOverlap(MapElement, MapElement)}
+	 * can return an overlap for elements of these types
+	 */
+	private static boolean isOverlapPossible(MapElement e1, MapElement e2) {
+		return e1 instanceof MapArea || e2 instanceof MapArea
+				|| (e1 instanceof MapWaySegment && e2 instanceof MapWaySegment);
+	}
+	
+	/**
+	 * adds an overlap to the elements participating in it
+	 */
+	private static void addOverlapToElements(MapOverlap<?, ?> overlap) {
+		
+		if (overlap instanceof MapIntersectionWW) {
+			
+			MapIntersectionWW intersection = (MapIntersectionWW) overlap;
+			intersection.e1.addOverlap(intersection);
+			intersection.e2.addOverlap(intersection);
+			
+		} else if (overlap instanceof MapOverlapWA) {
+			
+			MapOverlapWA overlapWA = (MapOverlapWA) overlap;
+			overlapWA.e1.addOverlap(overlapWA);
+			overlapWA.e2.addOverlap(overlapWA);
+			
+		} else if (overlap instanceof MapOverlapAA) {
+			
+			MapOverlapAA overlapAA = (MapOverlapAA) overlap;
+			overlapAA.e1.addOverlap(overlapAA);
+			overlapAA.e2.addOverlap(overlapAA);
+			
+		} else if (overlap instanceof MapOverlapNA) {
+			
+			MapOverlapNA overlapNA = (MapOverlapNA) overlap;
+			overlapNA.e2.addOverlap(overlapNA);
+			
+		}
+		
+	}
+	
+	/**
+	 * calculates the overlap between two {@link MapElement}s, if it exists.
+	 * It calls the appropriate subtype-specific calculateOverlap method.
+	 * Does not modify the elements, and can therefore be called
+	 * by multiple threads at the same time.
+	 * 
+	 * @return  the overlap; null if the elements don't overlap
 	 */
-	private static void addOverlapBetween(MapElement e1, MapElement e2) {
+	private static MapOverlap<?, ?> calculateOverlap(MapElement e1, MapElement e2) {
 		
 		if (e1 instanceof MapWaySegment
 				&& e2 instanceof MapWaySegment) {
 			
-			addOverlapBetween((MapWaySegment) e1, (MapWaySegment) e2);
+			return calculateOverlap((MapWaySegment) e1, (MapWaySegment) e2);
 			
 		} else if (e1 instanceof MapWaySegment
 				&& e2 instanceof MapArea) {
 			
-			addOverlapBetween((MapWaySegment) e1, (MapArea) e2);
+			return calculateOverlap((MapWaySegment) e1, (MapArea) e2);
 			
 		} else if (e1 instanceof MapArea
 				&& e2 instanceof MapWaySegment) {
 			
-			addOverlapBetween((MapWaySegment) e2, (MapArea) e1);
+			return calculateOverlap((MapWaySegment) e2, (MapArea) e1);
 			
 		} else if (e1 instanceof MapArea
 				&& e2 instanceof MapArea) {
 			
-			addOverlapBetween((MapArea) e1, (MapArea) e2);
+			return calculateOverlap((MapArea) e1, (MapArea) e2);
 			
 		} else if (e1 instanceof MapNode
 				&& e2 instanceof MapArea) {
 			
-			addOverlapBetween((MapNode) e1, (MapArea) e2);
+			return calculateOverlap((MapNode) e1, (MapArea) e2);
 			
 		} else if (e1 instanceof MapArea
 				&& e2 instanceof MapNode) {
 			
-			addOverlapBetween((MapNode) e2, (MapArea) e1);
+			return calculateOverlap((MapNode) e2, (MapArea) e1);
+			
+		} else {
+			
+			return null;
 			
 		}
 		
 	}
 
 	/**
-	 * adds the overlap between two {@link MapWaySegment}s
-	 * to both, if it exists
+	 * calculates the overlap between two {@link MapWaySegment}s, if it exists
 	 */
-	private static void addOverlapBetween(
+	private static MapIntersectionWW calculateOverlap(
 			MapWaySegment line1, MapWaySegment line2) {
 		
-		if (line1.isConnectedTo(line2)) { return; }
+		if (line1.isConnectedTo(line2)) { return null; }
 		
 		VectorXZ intersection = GeometryUtil.getLineSegmentIntersection(
 				line1.getStartNode().getPos(),
@@ -321,24 +517,18 @@ public class OSMToMapDataConverter {
 				line2.getEndNode().getPos());
 		
 		if (intersection != null) {
-			
-			/* add the intersection */
-			
-			MapIntersectionWW newIntersection =
-				new MapIntersectionWW(line1, line2, intersection);
-			
-			line1.addOverlap(newIntersection);
-			line2.addOverlap(newIntersection);
-											
+			return new MapIntersectionWW(line1, line2, intersection);
+		} else {
+			return null;
 		}
 
 	}
 	
 	/**
-	 * adds the overlap between a {@link MapWaySegment}
-	 * and a {@link MapArea} to both, if it exists
+	 * calculates the overlap between a {@link MapWaySegment}
+	 * and a {@link MapArea}, if it exists
 	 */
-	private static void addOverlapBetween(
+	private static MapOverlapWA calculateOverlap(
 			MapWaySegment line, MapArea area) {
 		
 		final LineSegmentXZ segmentXZ = line.getLineSegment();
@@ -348,15 +538,9 @@ public class OSMToMapDataConverter {
 		for (MapAreaSegment areaSegment : area.getAreaSegments()) {
 			if (areaSegment.sharesBothNodes(line)) {
 				
-				MapOverlapWA newOverlap =
-					new MapOverlapWA(line, area, MapOverlapType.SHARE_SEGMENT,
-							Collections.<VectorXZ>emptyList(),
-							Collections.<MapAreaSegment>emptyList());
-				
-				line.addOverlap(newOverlap);
-				area.addOverlap(newOverlap);
-				
-				return;
+				return new MapOverlapWA(line, area, MapOverlapType.SHARE_SEGMENT,
+						Collections.<VectorXZ>emptyList(),
+						Collections.<MapAreaSegment>emptyList());
 				
 			}
 		}
@@ -434,22 +618,22 @@ public class OSMToMapDataConverter {
 			
 			/* add the overlap */
 			
-			MapOverlapWA newOverlap = new MapOverlapWA(line, area,
+			return new MapOverlapWA(line, area,
 						intersects ? MapOverlapType.INTERSECT : MapOverlapType.CONTAIN,
 						intersectionPositions, intersectingSegments);
 			
-			line.addOverlap(newOverlap);
-			area.addOverlap(newOverlap);
+		} else {
+			
+			return null;
 			
 		}
 		
 	}
 
 	/**
-	 * adds the overlap between two {@link MapArea}s
-	 * to both, if it exists
+	 * calculates the overlap between two {@link MapArea}s, if it exists
 	 */
-	private static void addOverlapBetween(
+	private static MapOverlapAA calculateOverlap(
 			MapArea area1, MapArea area2) {
 		
 		/* check whether the areas have a shared segment */
@@ -461,12 +645,8 @@ public class OSMToMapDataConverter {
 			for (MapAreaSegment area2Segment : area2Segments) {
 				if (area1Segment.sharesBothNodes(area2Segment)) {
 					
-					MapOverlapAA newOverlap =
-						new MapOverlapAA(area1, area2, MapOverlapType.SHARE_SEGMENT);
-					area1.addOverlap(newOverlap);
-					area2.addOverlap(newOverlap);
-					
-					return;
+					return new MapOverlapAA(area1, area2,
+							MapOverlapType.SHARE_SEGMENT);
 					
 				}
 			}
@@ -529,36 +709,32 @@ public class OSMToMapDataConverter {
 					
 		if (contains1 || contains2 || intersects) {
 			
-			/* add the overlap */
-			
-			MapOverlapAA newOverlap = null;
-			
 			if (contains1) {
-				newOverlap = new MapOverlapAA(area2, area1, MapOverlapType.CONTAIN);
+				return new MapOverlapAA(area2, area1, MapOverlapType.CONTAIN);
 			} else if (contains2) {
-				newOverlap = new MapOverlapAA(area1, area2, MapOverlapType.CONTAIN);
+				return new MapOverlapAA(area1, area2, MapOverlapType.CONTAIN);
 			} else {
-				newOverlap = new MapOverlapAA(area1, area2, MapOverlapType.INTERSECT);
+				return new MapOverlapAA(area1, area2, MapOverlapType.INTERSECT);
 			}
 			
-			area1.addOverlap(newOverlap);
-			area2.addOverlap(newOverlap);
+		} else {
+			
+			return null;
 			
 		}
 		
 	}
 	
-	private static void addOverlapBetween(MapNode node, MapArea area) {
+	/**
+	 * calculates the overlap between a {@link MapNode}
+	 * and a {@link MapArea}, if it exists
+	 */
+	private static MapOverlapNA calculateOverlap(MapNode node, MapArea area) {
 		
 		if (area.getPolygon().contains(node.getPos())) {
-			
-			/* add the overlap */
-			
-			MapOverlapNA newOverlap =
-					new MapOverlapNA(node, area, MapOverlapType.CONTAIN);
-			
-			area.addOverlap(newOverlap);
-			
+			return new MapOverlapNA(node, area, MapOverlapType.CONTAIN);
+		} else {
+			return null;
 		}
 		
 	}
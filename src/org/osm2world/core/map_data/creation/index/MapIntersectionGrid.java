@@ -1,5 +1,7 @@
 package org.osm2world.core.map_data.creation.index;
 
+import static java.lang.Math.*;
+
 import java.util.Collection;
 
 import org.osm2world.core.map_data.data.MapElement;
@@ -9,8 +11,20 @@ import org.osm2world.core.math.datastructures.IntersectionGrid;
 
 public class MapIntersectionGrid implements MapDataIndex {
 	
+	/** average number of elements per cell aimed for by the adaptive layout */
+	private static final int TARGET_ELEMENTS_PER_CELL = 16;
+	
+	/** lower limit for the cell size of the adaptive layout, in meters */
+	private static final double MIN_CELL_SIZE = 10;
+	
+	/** upper limit for the number of cells in each dimension */
+	private static final int MAX_CELL_COUNT = 1000;
+	
 	private final IntersectionGrid<MapElement> intersectionGrid;
-			
+	
+	/**
+	 * creates a grid with a fixed layout of roughly 50x50 cells
+	 */
 	public MapIntersectionGrid(AxisAlignedBoundingBoxXZ dataBoundary) {
 		
 		AxisAlignedBoundingBoxXZ gridBounds = dataBoundary.pad(10);
@@ -22,6 +36,34 @@ public class MapIntersectionGrid implements MapDataIndex {
 		
 	}
 	
+	/**
+	 * creates a grid with a layout that is chosen based on the number
+	 * of elements and the size of the data boundary, so that each cell
+	 * contains about the same number of elements regardless of extent
+	 * and density of the data.
+	 *
+	 * @param elementCount  number of elements that will be inserted
+	 */
+	public MapIntersectionGrid(AxisAlignedBoundingBoxXZ dataBoundary,
+			int elementCount) {
+		
+		AxisAlignedBoundingBoxXZ gridBounds = dataBoundary.pad(10);
+		
+		double targetCellCount = max(1.0,
+				(double)elementCount / TARGET_ELEMENTS_PER_CELL);
+		
+		double cellSize = sqrt(gridBounds.sizeX() * gridBounds.sizeZ()
+				/ targetCellCount);
+		
+		cellSize = max(cellSize, MIN_CELL_SIZE);
+		cellSize = max(cellSize, gridBounds.sizeX() / MAX_CELL_COUNT);
+		cellSize = max(cellSize, gridBounds.sizeZ() / MAX_CELL_COUNT);
+		
+		intersectionGrid = new IntersectionGrid<MapElement>(
+				gridBounds, cellSize, cellSize);
+		
+	}
+	
 	@Override
 	public void insert(MapElement e) {
 		intersectionGrid.insert(e);
@@ -183,7 +183,7 @@ public class MapArea implements MapElement {
 	}
 	
 	@Override
-	public AreaWorldObject getPrimaryRepresentation() {
+	public synchronized AreaWorldObject getPrimaryRepresentation() {
 		if (representations.isEmpty()) {
 			return null;
 		} else {
@@ -192,9 +192,10 @@ public class MapArea implements MapElement {
 	}
 
 	/**
-	 * adds a visual representation for this area
+	 * adds a visual representation for this area.
+	 * Can be called by multiple threads at the same time.
 	 */
-	public void addRepresentation(AreaWorldObject representation) {
+	public synchronized void addRepresentation(AreaWorldObject representation) {
 		this.representations.add(representation);
 	}
 	
@@ -213,7 +214,7 @@ public class MapArea implements MapElement {
 
 	@Override
 	public AxisAlignedBoundingBoxXZ getAxisAlignedBoundingBoxXZ() {
-		return new AxisAlignedBoundingBoxXZ(getOuterPolygon().getVertexCollection());
+		return getOuterPolygon().getAxisAlignedBoundingBoxXZ();
 	}
 	
 	@Override
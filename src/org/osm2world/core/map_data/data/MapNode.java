@@ -210,7 +210,7 @@ public class MapNode implements MapElement {
 	}
 	
 	@Override
-	public NodeWorldObject getPrimaryRepresentation() {
+	public synchronized NodeWorldObject getPrimaryRepresentation() {
 		if (representations.isEmpty()) {
 			return null;
 		} else {
@@ -219,9 +219,10 @@ public class MapNode implements MapElement {
 	}
 
 	/**
-	 * adds a visual representation for this node
+	 * adds a visual representation for this node.
+	 * Can be called by multiple threads at the same time.
 	 */
-	public void addRepresentation(NodeWorldObject representation) {
+	public synchronized void addRepresentation(NodeWorldObject representation) {
 		this.representations.add(representation);
 	}
 		
@@ -0,0 +1,180 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static java.lang.Math.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
+import org.osm2world.core.math.VectorXZ;
+
+/**
+ * chooses points for the triangulation of terrain based on its shape.
+ * Flat terrain gets few points, steep or uneven terrain gets many.
+ *
+ * The area is covered by square cells of the maximum size, aligned to
+ * multiples of that size. Each cell is divided into four smaller cells
+ * (forming a quadtree) until approximating the terrain within the cell
+ * using its corners' elevations causes an error below the vertical
+ * tolerance, or until the cell has the minimum size.
+ * The corners of the resulting cells are used as points.
+ */
+public class AdaptiveTerrainSampler {
+	
+	private final double verticalTolerance;
+	private final double minPointDistance;
+	private final int levels;
+	
+	/**
+	 * @param verticalTolerance  maximum elevation error within a cell
+	 *                           that does not cause it to be divided
+	 * @param minPointDistance   minimum size of cells
+	 * @param maxPointDistance   maximum size of cells; will be rounded down
+	 *                           to a power of two multiple of minPointDistance
+	 */
+	public AdaptiveTerrainSampler(double verticalTolerance,
+			double minPointDistance, double maxPointDistance) {
+		
+		if (minPointDistance <= 0 || maxPointDistance < minPointDistance) {
+			throw new IllegalArgumentException("invalid point distances: "
+					+ minPointDistance + ", " + maxPointDistance);
+		}
+		
+		this.verticalTolerance = verticalTolerance;
+		this.minPointDistance = minPointDistance;
+		
+		int levels = 0;
+		
+		while (minPointDistance * (1 << (levels + 1)) <= maxPointDistance
+				&& levels < 20) {
+			levels += 1;
+		}
+		
+		this.levels = levels;
+		
+	}
+	
+	public double getMinPointDistance() {
+		return minPointDistance;
+	}
+	
+	public double getMaxPointDistance() {
+		return minPointDistance * (1 << levels);
+	}
+	
+	/**
+	 * returns the points within a bounding box. Points closer to the
+	 * box's boundary than 0.01 are omitted, like in
+	 * {@link org.osm2world.core.math.VectorGridXZ}.
+	 *
+	 * @param interpolator  terrain interpolator with known sites
+	 */
+	public List<VectorXZ> getPoints(AxisAlignedBoundingBoxXZ box,
+			TerrainInterpolator interpolator) {
+		
+		/* positions are stored as multiples of minPointDistance,
+		 * so shared corners of cells will have identical coordinates */
+		
+		long rootSize = 1L << levels;
+		
+		long minX = (long) floor(box.minX / minPointDistance / rootSize) * rootSize;
+		long minZ = (long) floor(box.minZ / minPointDistance / rootSize) * rootSize;
+		long maxX = (long) ceil(box.maxX / minPointDistance / rootSize) * rootSize;
+		long maxZ = (long) ceil(box.maxZ / minPointDistance / rootSize) * rootSize;
+		
+		Set<VectorXZ> pointSet = new LinkedHashSet<VectorXZ>();
+		
+		for (long x = minX; x < maxX; x += rootSize) {
+			for (long z = minZ; z < maxZ; z += rootSize) {
+				addCellPoints(pointSet, interpolator, x, z, rootSize, box);
+			}
+		}
+		
+		/* remove points on or outside the boundary */
+		
+		List<VectorXZ> result = new ArrayList<VectorXZ>(pointSet.size());
+		
+		for (VectorXZ p : pointSet) {
+			if (p.x >= box.minX + 0.01 && p.x <= box.maxX - 0.01
+					&& p.z >= box.minZ + 0.01 && p.z <= box.maxZ - 0.01) {
+				result.add(p);
+			}
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * adds the corners of a cell to the result, or divides it into
+	 * four smaller cells if the terrain within the cell isn't flat enough
+	 *
+	 * @param x     minimum x coordinate, in multiples of minPointDistance
+	 * @param z     minimum z coordinate, in multiples of minPointDistance
+	 * @param size  size of the cell, in multiples of minPointDistance
+	 */
+	private void addCellPoints(Set<VectorXZ> result,
+			TerrainInterpolator interpolator,
+			long x, long z, long size, AxisAlignedBoundingBoxXZ box) {
+		
+		if (!box.overlaps(new AxisAlignedBoundingBoxXZ(
+				x * minPointDistance, z * minPointDistance,
+				(x + size) * minPointDistance, (z + size) * minPointDistance))) {
+			return;
+		}
+		
+		if (size > 1 && !isFlat(interpolator, x, z, size)) {
+			
+			long half = size / 2;
+			
+			addCellPoints(result, interpolator, x, z, half, box);
+			addCellPoints(result, interpolator, x + half, z, half, box);
+			addCellPoints(result, interpolator, x, z + half, half, box);
+			addCellPoints(result, interpolator, x + half, z + half, half, box);
+			
+		} else {
+			
+			result.add(point(x, z));
+			result.add(point(x + size, z));
+			result.add(point(x, z + size));
+			result.add(point(x + size, z + size));
+			
+		}
+		
+	}
+	
+	/**
+	 * checks whether the terrain within a cell can be approximated
+	 * by bilinear interpolation between its corners. The elevation is
+	 * compared at the center and the midpoints of the cell's sides.
+	 */
+	private boolean isFlat(TerrainInterpolator interpolator,
+			long x, long z, long size) {
+		
+		long half = size / 2;
+		
+		double ele00 = ele(interpolator, x, z);
+		double ele10 = ele(interpolator, x + size, z);
+		double ele01 = ele(interpolator, x, z + size);
+		double ele11 = ele(interpolator, x + size, z + size);
+		
+		return abs(ele(interpolator, x + half, z) - (ele00 + ele10) / 2) <= verticalTolerance
+				&& abs(ele(interpolator, x, z + half) - (ele00 + ele01) / 2) <= verticalTolerance
+				&& abs(ele(interpolator, x + size, z + half) - (ele10 + ele11) / 2) <= verticalTolerance
+				&& abs(ele(interpolator, x + half, z + size) - (ele01 + ele11) / 2) <= verticalTolerance
+				&& abs(ele(interpolator, x + half, z + half)
+						- (ele00 + ele10 + ele01 + ele11) / 4) <= verticalTolerance;
+		
+	}
+	
+	private double ele(TerrainInterpolator interpolator, long x, long z) {
+		return interpolator.interpolateEle(point(x, z)).y;
+	}
+	
+	private VectorXZ point(long x, long z) {
+		return new VectorXZ(x * minPointDistance, z * minPointDistance);
+	}
+	
+}
@@ -0,0 +1,60 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static java.lang.Math.floor;
+
+/**
+ * {@link RasterInterpolator} using bicubic (Catmull-Rom) interpolation
+ * of the 4x4 samples around each position. The result is smoother than
+ * that of {@link BilinearRasterInterpolator}, and reproduces
+ * the samples' elevations exactly at their positions.
+ *
+ * Where any of the samples lacks data, bilinear interpolation is used.
+ */
+public class BicubicRasterInterpolator extends RasterInterpolator {
+	
+	@Override
+	protected double interpolate(double x, double y) {
+		
+		int x0 = (int)floor(x);
+		int y0 = (int)floor(y);
+		
+		double tx = x - x0;
+		double ty = y - y0;
+		
+		double[] rowValues = new double[4];
+		
+		for (int j = 0; j < 4; j++) {
+			
+			double s0 = getSample(x0 - 1, y0 + j - 1);
+			double s1 = getSample(x0, y0 + j - 1);
+			double s2 = getSample(x0 + 1, y0 + j - 1);
+			double s3 = getSample(x0 + 2, y0 + j - 1);
+			
+			rowValues[j] = catmullRom(s0, s1, s2, s3, tx);
+			
+			if (Double.isNaN(rowValues[j])) {
+				return interpolateBilinear(x, y);
+			}
+			
+		}
+		
+		return catmullRom(rowValues[0], rowValues[1],
+				rowValues[2], rowValues[3], ty);
+		
+	}
+	
+	/**
+	 * interpolates between p1 and p2 with a Catmull-Rom spline
+	 *
+	 * @param t  relative position between p1 (0) and p2 (1)
+	 */
+	static final double catmullRom(double p0, double p1, double p2, double p3,
+			double t) {
+		
+		return p1 + 0.5 * t * (p2 - p0
+				+ t * (2 * p0 - 5 * p1 + 4 * p2 - p3
+				+ t * (3 * (p1 - p2) + p3 - p0)));
+		
+	}
+	
+}
@@ -0,0 +1,14 @@
+package org.osm2world.core.map_elevation.creation;
+
+/**
+ * {@link RasterInterpolator} using bilinear interpolation
+ * between the four samples around each position
+ */
+public class BilinearRasterInterpolator extends RasterInterpolator {
+	
+	@Override
+	protected double interpolate(double x, double y) {
+		return interpolateBilinear(x, y);
+	}
+	
+}
@@ -0,0 +1,13 @@
+package org.osm2world.core.map_elevation.creation;
+
+import org.osm2world.core.math.VectorXZ;
+
+/**
+ * a {@link TerrainInterpolator} which allows multiple threads to call
+ * {@link #interpolateEle(VectorXZ)} at the same time
+ * after the known elevation data has been set.
+ * Results must not depend on the order of the calls.
+ */
+public interface ConcurrentTerrainInterpolator extends TerrainInterpolator {
+	
+}
@@ -4,6 +4,7 @@ import static java.lang.Math.*;
 import static org.osm2world.core.math.GeometryUtil.isRightOf;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -11,6 +12,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
 import java.util.Stack;
 
@@ -25,7 +27,6 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 
 //TODO: test performance effects of:
-// * starting point choice of the walk
 // * caching circumcircles
 // * only calculating area of triangles that are actually changed
 
@@ -34,6 +35,8 @@ import com.google.common.collect.Multimap;
  * Built to be used as a Voronoi Diagram dual for natural neighbor
  * interpolation of the y elevation values carried by each point.
  * The triangulation is constructed by incremental insertion.
+ * For large point sets, {@link #insertAll(Collection)} should be used,
+ * which inserts the points in a spatially coherent order.
  */
 public class DelaunayTriangulation {
 	
@@ -144,17 +147,7 @@ public class DelaunayTriangulation {
 		}
 		
 		public VectorXZ getCircumcircleCenter() {
-			
-			VectorXZ b = p1.subtract(p0).xz();
-			VectorXZ c = p2.subtract(p0).xz();
-
-			double d = 2 * (b.x * c.z - b.z * c.x);
-
-			double rX = (c.z * (b.x * b.x + b.z * b.z) - b.z * (c.x * c.x + c.z * c.z)) / d;
-			double rZ = (b.x * (c.x * c.x + c.z * c.z) - c.x * (b.x * b.x + b.z * b.z)) / d;
-			
-			return new VectorXZ(rX, rZ).add(p0.xz());
-			
+			return circumcircleCenter(p0.x, p0.z, p1.x, p1.z, p2.x, p2.z);
 		}
 		
 		private TriangleXZ triangleXZ = null;
@@ -490,7 +483,14 @@ public class DelaunayTriangulation {
 	 * for iterating/walking through the triangulation along neighborships
 	 */
 	public final DelaunayTriangle handleTriangle;
-
+	
+	/**
+	 * a triangle created by the most recent call to
+	 * {@link #insert(VectorXYZ)}, or null. Used as the start of
+	 * visibility walks, because subsequent points are often nearby.
+	 */
+	private DelaunayTriangle lastInsertedTriangle = null;
+	
 	public DelaunayTriangulation(AxisAlignedBoundingBoxXZ bounds) {
 				
 		VectorXYZ boundV0 = bounds.bottomLeft().xyz(0);
@@ -521,7 +521,34 @@ public class DelaunayTriangulation {
 
 	public Stack<Flip> insert(VectorXYZ point) { //TODO: should use <T extends Has(Immutable)Position>
 		
-		DelaunayTriangle triangleEnclosingPoint = getEnlosingTriangle(point.xz());
+		Stack<Flip> flipStack = insert(point, getWalkStart());
+		
+		lastInsertedTriangle = flipStack.peek().getCreatedTriangles()[0];
+		
+		return flipStack;
+		
+	}
+	
+	/**
+	 * inserts a number of points. The points are inserted along a
+	 * space-filling curve, using a biased randomized insertion order (BRIO):
+	 * Points are assigned to rounds of roughly doubling size, and each
+	 * round is sorted along a Hilbert curve. Because each visibility walk
+	 * starts at the previous insertion, this is much faster
+	 * than inserting the points in an arbitrary order.
+	 */
+	public void insertAll(Collection<VectorXYZ> points) {
+		
+		for (VectorXYZ point : sortForInsertion(points)) {
+			insert(point);
+		}
+		
+	}
+	
+	private Stack<Flip> insert(VectorXYZ point, DelaunayTriangle walkStart) {
+		
+		DelaunayTriangle triangleEnclosingPoint =
+				getEnlosingTriangle(point.xz(), walkStart);
 		
 		if (triangleEnclosingPoint == null) {
 			System.out.println("null");
@@ -569,15 +596,19 @@ public class DelaunayTriangulation {
 	
 	/**
 	 * temporarily inserts a point to calculate its natural neighbors,
-	 * then undoes the insertion
+	 * then undoes the insertion.
+	 * {@link #getNaturalNeighbors(VectorXZ)} calculates the same result
+	 * without modifying the triangulation.
 	 */
 	public NaturalNeighbors probe(VectorXZ point) {
 
 		VectorXYZ probePoint = point.xyz(0);
 		
-		/* insert the point */
+		/* insert the point
+		 * (the triangles created here will be removed again,
+		 * so they are not used as start of later walks) */
 		
-		Stack<Flip> flipStack = insert(probePoint);
+		Stack<Flip> flipStack = insert(probePoint, getWalkStart());
 		
 		/* identify neighbors and modified triangles */
 		
@@ -666,6 +697,190 @@ public class DelaunayTriangulation {
 		
 	}
 	
+	/**
+	 * calculates the natural neighbors of a point and their weights
+	 * for Sibson's natural neighbor interpolation.
+	 * 
+	 * The results are the same as those of {@link #probe(VectorXZ)},
+	 * but the triangulation is not modified. Therefore, this method can
+	 * be called by multiple threads at the same time,
+	 * as long as no points are inserted.
+	 * Unlike probe, this also calculates valid weights
+	 * if corners of the bounding box are among the natural neighbors.
+	 * 
+	 * The triangles which would be removed by an insertion of the point
+	 * (the "cavity") are found using the same test as {@link #insert(VectorXYZ)}.
+	 * Each natural neighbor's weight is the area its voronoi cell
+	 * would lose to the new cell. That area is bounded by the
+	 * circumcircle centers of the neighbor's cavity triangles and the
+	 * circumcircle centers of the two triangles which would be created
+	 * at the neighbor.
+	 */
+	public NaturalNeighbors getNaturalNeighbors(VectorXZ point) {
+		
+		VectorXYZ probePoint = point.xyz(0);
+		
+		/* find the cavity, starting with the enclosing triangle */
+		
+		Set<DelaunayTriangle> cavity = new HashSet<DelaunayTriangle>();
+		List<CavityEdge> boundary = new ArrayList<CavityEdge>();
+		
+		DelaunayTriangle enclosingTriangle =
+				getEnlosingTriangle(point, getWalkStart());
+		
+		cavity.add(enclosingTriangle);
+		
+		Stack<CavityEdge> uncheckedEdges = new Stack<CavityEdge>();
+		
+		for (int i = 0; i <= 2; i++) {
+			uncheckedEdges.push(new CavityEdge(enclosingTriangle, i));
+		}
+		
+		while (!uncheckedEdges.isEmpty()) {
+			
+			CavityEdge edge = uncheckedEdges.pop();
+			
+			DelaunayTriangle neighbor = edge.getOuterTriangle();
+			
+			if (cavity.contains(neighbor)) continue;
+			
+			if (neighbor != null && neighbor != handleTriangle
+					&& new DelaunayTriangle(edge.getStart(), edge.getEnd(),
+							probePoint).angleAt(2)
+						+ neighbor.angleOppositeOf(edge.triangle) > PI) {
+				
+				cavity.add(neighbor);
+				
+				int i = neighbor.indexOfNeighbor(edge.triangle);
+				uncheckedEdges.push(new CavityEdge(neighbor, (i + 1) % 3));
+				uncheckedEdges.push(new CavityEdge(neighbor, (i + 2) % 3));
+				
+			} else {
+				
+				boundary.add(edge);
+				
+			}
+			
+		}
+		
+		/* calculate the area stolen from each natural neighbor's cell.
+		 * The neighbors are the end points of the cavity's boundary edges. */
+		
+		List<VectorXYZ> neighbors = new ArrayList<VectorXYZ>(boundary.size());
+		List<Double> stolenAreas = new ArrayList<Double>(boundary.size());
+		
+		for (CavityEdge edge : boundary) {
+			
+			if (cavity.contains(edge.getOuterTriangle())) continue;
+			
+			VectorXYZ previous = edge.getStart();
+			VectorXYZ neighbor = edge.getEnd();
+			
+			/* collect the circumcircle centers of the cavity triangles
+			 * around the neighbor, going from the boundary edge ending
+			 * at the neighbor to the boundary edge starting there */
+			
+			List<VectorXZ> centers = new ArrayList<VectorXZ>();
+			
+			centers.add(circumcircleCenter(previous.x, previous.z,
+					neighbor.x, neighbor.z, point.x, point.z));
+			
+			DelaunayTriangle triangle = edge.triangle;
+			centers.add(triangle.getCircumcircleCenter());
+			
+			while (cavity.contains(triangle.getRightNeighbor(neighbor))) {
+				triangle = triangle.getRightNeighbor(neighbor);
+				centers.add(triangle.getCircumcircleCenter());
+			}
+			
+			VectorXYZ next = triangle.getPoint(
+					(triangle.indexOfPoint(neighbor) + 1) % 3);
+			
+			centers.add(circumcircleCenter(neighbor.x, neighbor.z,
+					next.x, next.z, point.x, point.z));
+			
+			/* calculate the area of the polygon formed by the centers */
+			
+			double doubleArea = 0;
+			
+			for (int i = 0; i < centers.size(); i++) {
+				VectorXZ c1 = centers.get(i);
+				VectorXZ c2 = centers.get((i + 1) % centers.size());
+				doubleArea += (c1.x - neighbor.x) * (c2.z - neighbor.z)
+						- (c2.x - neighbor.x) * (c1.z - neighbor.z);
+			}
+			
+			neighbors.add(neighbor);
+			stolenAreas.add(abs(doubleArea) / 2);
+			
+		}
+		
+		/* calculate relative weights of neighbors */
+		
+		NaturalNeighbors result = new NaturalNeighbors(neighbors);
+		
+		double stolenAreaSum = 0;
+		
+		for (double stolenArea : stolenAreas) {
+			stolenAreaSum += stolenArea;
+		}
+		
+		for (int i = 0; i < result.neighbors.length; i++) {
+			result.relativeWeights[i] = stolenAreas.get(i) / stolenAreaSum;
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * an edge of a {@link DelaunayTriangle} within a cavity
+	 * (see {@link DelaunayTriangulation#getNaturalNeighbors(VectorXZ)}),
+	 * going from the point with the index to the following point
+	 */
+	private static class CavityEdge {
+		
+		final DelaunayTriangle triangle;
+		final int index;
+		
+		CavityEdge(DelaunayTriangle triangle, int index) {
+			this.triangle = triangle;
+			this.index = index;
+		}
+		
+		VectorXYZ getStart() {
+			return triangle.getPoint(index);
+		}
+		
+		VectorXYZ getEnd() {
+			return triangle.getPoint((index + 1) % 3);
+		}
+		
+		/** returns the triangle on the other side of the edge; may be null */
+		DelaunayTriangle getOuterTriangle() {
+			return triangle.getNeighbor(index);
+		}
+		
+	}
+	
+	/**
+	 * calculates the center of the circumcircle through three points
+	 */
+	private static VectorXZ circumcircleCenter(double x0, double z0,
+			double x1, double z1, double x2, double z2) {
+		
+		double bX = x1 - x0, bZ = z1 - z0;
+		double cX = x2 - x0, cZ = z2 - z0;
+		
+		double d = 2 * (bX * cZ - bZ * cX);
+		
+		double rX = (cZ * (bX * bX + bZ * bZ) - bZ * (cX * cX + cZ * cZ)) / d;
+		double rZ = (bX * (cX * cX + cZ * cZ) - cX * (bX * bX + bZ * bZ)) / d;
+		
+		return new VectorXZ(rX + x0, rZ + z0);
+		
+	}
+	
 	public List<DelaunayTriangle> getIncidentTriangles(final VectorXYZ point) {
 
 		List<DelaunayTriangle> result = new ArrayList<DelaunayTriangle>();
@@ -808,11 +1023,24 @@ public class DelaunayTriangulation {
 	 * @param point  must lie within the triangulation; != null
 	 */
 	public DelaunayTriangle getEnlosingTriangle(VectorXZ point) {
+		return getEnlosingTriangle(point, getWalkStart());
+	}
+	
+	private DelaunayTriangle getWalkStart() {
+		if (lastInsertedTriangle != null) {
+			return lastInsertedTriangle;
+		} else {
+			return handleTriangle;
+		}
+	}
+	
+	private DelaunayTriangle getEnlosingTriangle(VectorXZ point,
+			DelaunayTriangle walkStart) {
 		
 		/* use a 'visibility walk' through the triangulation,
-		 * starting at the handleTriangle */
+		 * starting at walkStart */
 		
-		DelaunayTriangle currentTriangle = handleTriangle;
+		DelaunayTriangle currentTriangle = walkStart;
 		
 		boolean triangleContainsPoint = false;
 		
@@ -844,4 +1072,110 @@ public class DelaunayTriangulation {
 		
 	}
 	
+	/** number of bits per axis used for the Hilbert curve */
+	private static final int HILBERT_ORDER = 16;
+	
+	/** number of bits used for the point index in the sort keys */
+	private static final int INDEX_BITS = 26;
+	
+	/**
+	 * returns the points in biased randomized insertion order,
+	 * with each round sorted along a Hilbert curve.
+	 * Uses a fixed seed, so the result is always the same for the same input.
+	 * 
+	 * If there are too many points to encode their indices in the sort keys
+	 * (more than 2^{@value #INDEX_BITS}), they are returned in input order.
+	 */
+	static List<VectorXYZ> sortForInsertion(Collection<VectorXYZ> points) {
+		
+		List<VectorXYZ> pointList = new ArrayList<VectorXYZ>(points);
+		
+		if (pointList.isEmpty() || pointList.size() > (1 << INDEX_BITS)) {
+			return pointList;
+		}
+		
+		AxisAlignedBoundingBoxXZ bounds = new AxisAlignedBoundingBoxXZ(pointList);
+		
+		double cellCount = 1 << HILBERT_ORDER;
+		double scaleX = (cellCount - 1) / max(bounds.sizeX(), 1e-10);
+		double scaleZ = (cellCount - 1) / max(bounds.sizeZ(), 1e-10);
+		
+		/* assign each point to a round; the last round contains about
+		 * half of the points, the previous one a quarter, and so on */
+		
+		int roundCount = 1;
+		while ((1 << roundCount) < pointList.size()) {
+			roundCount ++;
+		}
+		
+		Random random = new Random(0);
+		
+		/* build sort keys consisting of round, Hilbert index
+		 * and the point's index in the list (in this order of significance) */
+		
+		long[] keys = new long[pointList.size()];
+		
+		for (int i = 0; i < pointList.size(); i++) {
+			
+			int round = roundCount - 1;
+			while (round > 0 && random.nextBoolean()) {
+				round --;
+			}
+			
+			VectorXYZ p = pointList.get(i);
+			
+			long hilbertIndex = hilbertIndex(
+					(int) ((p.x - bounds.minX) * scaleX),
+					(int) ((p.z - bounds.minZ) * scaleZ));
+			
+			keys[i] = ((long)round << (2 * HILBERT_ORDER + INDEX_BITS))
+					| (hilbertIndex << INDEX_BITS) | i;
+			
+		}
+		
+		Arrays.sort(keys);
+		
+		List<VectorXYZ> result = new ArrayList<VectorXYZ>(pointList.size());
+		
+		for (long key : keys) {
+			result.add(pointList.get((int) (key & ((1 << INDEX_BITS) - 1))));
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * calculates the distance along a Hilbert curve
+	 * for a cell of a 2^{@value #HILBERT_ORDER} grid
+	 */
+	private static long hilbertIndex(int x, int z) {
+		
+		long d = 0;
+		
+		for (int s = 1 << (HILBERT_ORDER - 1); s > 0; s /= 2) {
+			
+			int rx = (x & s) > 0 ? 1 : 0;
+			int rz = (z & s) > 0 ? 1 : 0;
+			
+			d += (long)s * s * ((3 * rx) ^ rz);
+			
+			/* rotate the quadrant */
+			
+			if (rz == 0) {
+				if (rx == 1) {
+					x = s - 1 - x;
+					z = s - 1 - z;
+				}
+				int temp = x;
+				x = z;
+				z = temp;
+			}
+			
+		}
+		
+		return d;
+		
+	}
+	
 }
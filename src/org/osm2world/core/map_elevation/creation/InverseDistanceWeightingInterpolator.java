@@ -10,7 +10,8 @@ import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.math.datastructures.IntersectionGrid;
 
 
-public class InverseDistanceWeightingInterpolator implements TerrainInterpolator {
+public class InverseDistanceWeightingInterpolator implements ConcurrentTerrainInterpolator,
+		SiteBasedTerrainInterpolator {
 	
 	private static final double CUTOFF = 300;
 	
@@ -27,7 +28,7 @@ public class InverseDistanceWeightingInterpolator implements TerrainInterpolator
 	}
 	
 	@Override
-	public void setKnownSites(Collection<VectorXYZ> sites) {
+	public void setKnownSites(TerrainSites sites) {
 		
 		this.sites = sites;
 		
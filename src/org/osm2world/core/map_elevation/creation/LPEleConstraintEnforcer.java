@@ -4,8 +4,11 @@ import static org.osm2world.core.map_elevation.data.GroundState.ON;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,30 +26,80 @@ import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.util.FaultTolerantIterationUtil;
 import org.osm2world.core.util.FaultTolerantIterationUtil.Operation;
+import org.osm2world.core.util.ParallelIterationUtil;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 
 /**
- * enforces constraints using linear programming
+ * enforces constraints using linear programming.
+ * 
+ * The variables and constraints are split into independent components
+ * (sets of variables connected by constraints). A separate linear program
+ * is solved for each component, using multiple threads.
+ * Components whose constraints are already satisfied by the
+ * initial elevations are skipped.
+ * 
+ * The number of threads can be configured
+ * with the "eleConstraintThreads" configuration value.
  */
 public class LPEleConstraintEnforcer implements EleConstraintEnforcer {
 
-	private final Problem problem;
+	/** number of components listed individually in the solve statistics */
+	private static final int REPORTED_COMPONENT_COUNT = 10;
+	
+	private static final double SATISFIED_EPSILON = 1e-6;
+	
+	private int threadCount;
+	
+	/** false if all constraints are solved as a single linear program */
+	private final boolean splitComponents;
+	
+	private final List<LPConstraint> constraints;
 	
 	private final List<LPVariablePair> variables;
 	private final Map<EleConnector, LPVariablePair> variableMap;
 
+	/**
+	 * @param threadCount  number of threads used to solve components,
+	 *                     see {@link ParallelIterationUtil#getThreadCount(int)}
+	 */
+	public LPEleConstraintEnforcer(int threadCount) {
+		this(threadCount, true);
+	}
 	
+	/**
+	 * creates an enforcer using a single thread
+	 */
 	public LPEleConstraintEnforcer() {
+		this(1);
+	}
+	
+	/**
+	 * @param splitComponents  whether to solve independent components
+	 *                         as separate linear programs
+	 */
+	LPEleConstraintEnforcer(int threadCount, boolean splitComponents) {
+		
+		this.threadCount = ParallelIterationUtil.getThreadCount(threadCount);
+		this.splitComponents = splitComponents;
 		
-		problem = new Problem();
+		constraints = new ArrayList<LPConstraint>();
 		
 		variables = new ArrayList<LPVariablePair>();
 		variableMap = new HashMap<EleConnector, LPVariablePair>();
 		
 	}
 	
+	/**
+	 * sets the number of threads used to solve components
+	 * 
+	 * @param threadCount  see {@link ParallelIterationUtil#getThreadCount(int)}
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = ParallelIterationUtil.getThreadCount(threadCount);
+	}
+	
 	@Override
 	public void addConnectors(Iterable<EleConnector> connectors) {
 		
@@ -299,6 +352,7 @@ public class LPEleConstraintEnforcer implements EleConstraintEnforcer {
 			String op, double limit) {
 		
 		Linear linear = new Linear();
+		List<LPVariablePair> constraintVariables = new ArrayList<LPVariablePair>(3);
 		
 		double limitCorrection = 0;
 		
@@ -307,6 +361,7 @@ public class LPEleConstraintEnforcer implements EleConstraintEnforcer {
 			linear.add(factor1, c1.posVar());
 			linear.add(-factor1, c1.negVar());
 			limitCorrection += factor1 * var1.getPosXYZ().y;
+			constraintVariables.add(c1);
 		}
 		
 		if (var2 != null) {
@@ -314,6 +369,7 @@ public class LPEleConstraintEnforcer implements EleConstraintEnforcer {
 			linear.add(factor2, c2.posVar());
 			linear.add(-factor2, c2.negVar());
 			limitCorrection += factor2 * var2.getPosXYZ().y;
+			constraintVariables.add(c2);
 		}
 		
 		if (var3 != null) {
@@ -321,9 +377,11 @@ public class LPEleConstraintEnforcer implements EleConstraintEnforcer {
 			linear.add(factor3, c3.posVar());
 			linear.add(-factor3, c3.negVar());
 			limitCorrection += factor3 * var3.getPosXYZ().y;
+			constraintVariables.add(c3);
 		}
 		
-		problem.add(linear, op, limit - limitCorrection);
+		constraints.add(new LPConstraint(linear, op, limit - limitCorrection,
+				constraintVariables));
 		
 	}
 	
@@ -341,23 +399,52 @@ public class LPEleConstraintEnforcer implements EleConstraintEnforcer {
 	@Override
 	public void enforceConstraints() {
 		
-		SolverFactory factory = new SolverFactoryLpSolve();
-		factory.setParameter(Solver.VERBOSE, 0);
+		List<Component> components = findComponents();
+		
+		/* skip components that don't require any changes */
+		
+		List<Component> componentsToSolve = new ArrayList<Component>();
+		
+		for (Component component : components) {
+			if (!component.isSatisfiedWithoutChanges()) {
+				componentsToSolve.add(component);
+			}
+		}
+		
+		/* solve the remaining components */
 		
-		problem.setObjective(constructObjective(), OptType.MIN);
+		long startTime = System.currentTimeMillis();
 		
-		//TODO Relaxations relax = new Relaxations();
+		ParallelIterationUtil.iterate(componentsToSolve, new Operation<Component>() {
+			@Override public void perform(Component component) {
+				try {
+					component.solve();
+				} catch (Exception e) {
+					System.err.println("ignored exception:");
+					e.printStackTrace();
+					System.err.println("this exception occurred for the"
+							+ " following component:\n" + component);
+				}
+			}
+		}, threadCount);
+		
+		long solveTime = System.currentTimeMillis() - startTime;
+		
+		/* apply elevation values */
 		
-		final Solver solver = factory.get();
-		final Result result = solver.solve(problem);
+		int failedCount = 0;
 		
-		if (result == null) {
-			System.out.println("[ERROR]: cannot enforce constraints, no result for LP");
-		} else {
+		for (Component component : componentsToSolve) {
 			
-			/* apply elevation values */
+			final Result result = component.result;
 			
-			FaultTolerantIterationUtil.iterate(variables, new Operation<LPVariablePair>() {
+			if (result == null) {
+				failedCount += 1;
+				continue;
+			}
+			
+			FaultTolerantIterationUtil.iterate(component.variables,
+					new Operation<LPVariablePair>() {
 				@Override public void perform(LPVariablePair v) {
 					
 					VectorXYZ posXYZ = v.getPosXYZ().addY(
@@ -368,12 +455,222 @@ public class LPEleConstraintEnforcer implements EleConstraintEnforcer {
 					
 				}
 			});
-						
+			
+		}
+		
+		if (failedCount > 0) {
+			System.out.println("[ERROR]: cannot enforce constraints, no result for LP"
+					+ " in " + failedCount + " components");
+		}
+		
+		printStatistics(components.size(), componentsToSolve, solveTime);
+		
+	}
+	
+	/**
+	 * splits the variables and constraints into independent components.
+	 * Variables that are not part of any constraint are not included.
+	 * If {@link #splitComponents} is false, a single component
+	 * with all constraints is returned instead.
+	 */
+	private List<Component> findComponents() {
+		
+		/* union-find over the variables' indices */
+		
+		Map<LPVariablePair, Integer> indexMap = new HashMap<LPVariablePair, Integer>();
+		
+		for (LPVariablePair v : variables) {
+			indexMap.put(v, indexMap.size());
+		}
+		
+		int[] parent = new int[variables.size()];
+		
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		
+		for (LPConstraint constraint : constraints) {
+			
+			int root = findRoot(parent, indexMap.get(constraint.variables.get(0)));
+			
+			for (int i = 1; i < constraint.variables.size(); i++) {
+				int otherRoot = findRoot(parent, indexMap.get(constraint.variables.get(i)));
+				if (otherRoot != root) {
+					parent[otherRoot] = root;
+				}
+			}
+			
+		}
+		
+		/* group constraints and variables by root.
+		 * Components are ordered by their first constraint. */
+		
+		Map<Integer, Component> componentMap = new LinkedHashMap<Integer, Component>();
+		
+		for (LPConstraint constraint : constraints) {
+			
+			int root = findRoot(parent, indexMap.get(constraint.variables.get(0)));
+			
+			Component component = componentMap.get(root);
+			
+			if (component == null) {
+				component = new Component();
+				componentMap.put(root, component);
+			}
+			
+			component.constraints.add(constraint);
+			
+		}
+		
+		for (int i = 0; i < variables.size(); i++) {
+			Component component = componentMap.get(findRoot(parent, i));
+			if (component != null) {
+				component.variables.add(variables.get(i));
+			}
+		}
+		
+		if (!splitComponents && componentMap.size() > 1) {
+			
+			Component component = new Component();
+			
+			for (Component c : componentMap.values()) {
+				component.variables.addAll(c.variables);
+				component.constraints.addAll(c.constraints);
+			}
+			
+			return Collections.singletonList(component);
+			
+		}
+		
+		return new ArrayList<Component>(componentMap.values());
+		
+	}
+	
+	private static int findRoot(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+	
+	private static void printStatistics(int componentCount,
+			List<Component> solvedComponents, long solveTime) {
+		
+		System.out.println("LP components: " + componentCount + ", solved: "
+				+ solvedComponents.size() + ", skipped: "
+				+ (componentCount - solvedComponents.size())
+				+ ", time: " + solveTime + " ms");
+		
+		List<Component> slowestComponents = new ArrayList<Component>(solvedComponents);
+		
+		Collections.sort(slowestComponents, new Comparator<Component>() {
+			@Override public int compare(Component c1, Component c2) {
+				return Long.valueOf(c2.solveTime).compareTo(c1.solveTime);
+			}
+		});
+		
+		for (Component c : slowestComponents.subList(0,
+				Math.min(REPORTED_COMPONENT_COUNT, slowestComponents.size()))) {
+			System.out.println("  " + c.variables.size() + " variables, "
+					+ c.constraints.size() + " constraints: "
+					+ c.solveTime + " ms");
+		}
+		
+	}
+	
+	/**
+	 * a constraint, along with the variables it affects
+	 */
+	private static class LPConstraint {
+		
+		final Linear linear;
+		final String op;
+		final double limit;
+		
+		final List<LPVariablePair> variables;
+		
+		LPConstraint(Linear linear, String op, double limit,
+				List<LPVariablePair> variables) {
+			this.linear = linear;
+			this.op = op;
+			this.limit = limit;
+			this.variables = variables;
+		}
+		
+		/**
+		 * checks whether the constraint is satisfied
+		 * if all variables are 0, i.e. with the initial elevations
+		 */
+		boolean isSatisfiedWithoutChanges() {
+			if ("=".equals(op)) {
+				return Math.abs(limit) <= SATISFIED_EPSILON;
+			} else if ("<=".equals(op)) {
+				return 0 <= limit + SATISFIED_EPSILON;
+			} else {
+				return 0 >= limit - SATISFIED_EPSILON;
+			}
+		}
+		
+	}
+	
+	/**
+	 * a set of variables and constraints that can be solved independently
+	 * of all other variables and constraints
+	 */
+	private static class Component {
+		
+		final List<LPVariablePair> variables = new ArrayList<LPVariablePair>();
+		final List<LPConstraint> constraints = new ArrayList<LPConstraint>();
+		
+		Result result = null;
+		long solveTime = 0;
+		
+		boolean isSatisfiedWithoutChanges() {
+			for (LPConstraint constraint : constraints) {
+				if (!constraint.isSatisfiedWithoutChanges()) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		/**
+		 * solves the linear program for this component
+		 * and stores the result
+		 */
+		void solve() {
+			
+			long startTime = System.currentTimeMillis();
+			
+			Problem problem = new Problem();
+			
+			for (LPConstraint constraint : constraints) {
+				problem.add(constraint.linear, constraint.op, constraint.limit);
+			}
+			
+			problem.setObjective(constructObjective(variables), OptType.MIN);
+			
+			//TODO Relaxations relax = new Relaxations();
+			
+			SolverFactory factory = new SolverFactoryLpSolve();
+			factory.setParameter(Solver.VERBOSE, 0);
+			
+			Solver solver = factory.get();
+			result = solver.solve(problem);
+			
+			solveTime = System.currentTimeMillis() - startTime;
+			
+		}
+		
+		@Override
+		public String toString() {
+			return variables.toString();
 		}
 		
 	}
 	
-	private Linear constructObjective() {
+	private static Linear constructObjective(List<LPVariablePair> variables) {
 	
 		Linear objectiveLinear = new Linear();
 		
@@ -3,14 +3,10 @@ package org.osm2world.core.map_elevation.creation;
 import static java.lang.Math.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.PriorityQueue;
 
 import org.apache.commons.lang.time.StopWatch;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
@@ -21,117 +17,173 @@ import org.apache.commons.math3.linear.RealVector;
 import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
-import org.osm2world.core.math.datastructures.IntersectionGrid;
 import org.osm2world.core.math.datastructures.IntersectionTestObject;
+import org.osm2world.core.math.datastructures.KdTreeXZ;
+import org.osm2world.core.util.FaultTolerantIterationUtil.Operation;
+import org.osm2world.core.util.ParallelIterationUtil;
 
 /**
  * uses least squares method to approximate a polynomial at each site,
  * and calculates elevations based on the polynomials at the nearest sites.
  */
-public class LeastSquaresInterpolator implements TerrainInterpolator {
+public class LeastSquaresInterpolator implements ConcurrentTerrainInterpolator,
+		SiteBasedTerrainInterpolator {
 	
-	private static final double CELL_SIZE = 50; //should only affect performance
 	private static final int SITES_FOR_APPROX = 9;
 	private static final int SITES_FOR_INTERPOL = 29;
 	
-	private Collection<SiteWithPolynomial> sites;
-	private IntersectionGrid<SiteWithPolynomial> siteGrid; //TODO: rename IntersectionGrid to something more generic
+	/** number of sites processed together by one parallel task */
+	private static final int BLOCK_SIZE = 1024;
+	
+	private int threadCount;
+	
+	private TerrainSites sites;
+	
+	/** coefficients of each site's polynomial, NUM_COEFFS per site */
+	private double[] coeffs;
+	
+	/** sites with a polynomial, and an index for them */
+	private int[] polynomialSiteIndices;
+	private KdTreeXZ polynomialSiteTree;
+	
+	/**
+	 * @param threadCount  number of threads used to approximate polynomials,
+	 *                     see {@link ParallelIterationUtil#getThreadCount(int)}
+	 */
+	public LeastSquaresInterpolator(int threadCount) {
+		this.threadCount = ParallelIterationUtil.getThreadCount(threadCount);
+	}
+	
+	/**
+	 * creates an interpolator using a single thread
+	 */
+	public LeastSquaresInterpolator() {
+		this(1);
+	}
+	
+	/**
+	 * sets the number of threads used to approximate polynomials
+	 * 
+	 * @param threadCount  see {@link ParallelIterationUtil#getThreadCount(int)}
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = ParallelIterationUtil.getThreadCount(threadCount);
+	}
 	
 	@Override
-	public void setKnownSites(Collection<VectorXYZ> siteVectors) {
+	public void setKnownSites(final TerrainSites sites) {
 		
 		StopWatch stopWatch = new StopWatch();
 		stopWatch.start();
 		
-		sites = new ArrayList<SiteWithPolynomial>(siteVectors.size());
-		
-		siteGrid = new IntersectionGrid<SiteWithPolynomial>(
-				new AxisAlignedBoundingBoxXZ(siteVectors).pad(CELL_SIZE/2),
-				CELL_SIZE, CELL_SIZE);
+		this.sites = sites;
 		
-		for (VectorXYZ siteVector : siteVectors) {
-			SiteWithPolynomial s = new SiteWithPolynomial(siteVector);
-			sites.add(s);
-			siteGrid.insert(s);
-		}
+		final KdTreeXZ siteTree = new KdTreeXZ(
+				sites.getXArray(), sites.getZArray(), sites.size());
 		
-		System.out.println("  time grid: " + stopWatch);
+		System.out.println("  time index: " + stopWatch);
 		stopWatch.reset();
 		stopWatch.start();
 		
-		/* approximate a polynomial at each site */
-
-		Map<SiteWithPolynomial, List<SiteWithPolynomial>> nearestSiteMap
-			= new HashMap<SiteWithPolynomial, List<SiteWithPolynomial>>();
-
-		for (SiteWithPolynomial site : sites) {
-			
-			List<SiteWithPolynomial> nearestSites =
-					findNearestSites(site.pos.xz(), SITES_FOR_APPROX, false);
-
-			nearestSiteMap.put(site, nearestSites);
-			
+		/* approximate a polynomial at each site.
+		 * Sites are processed in blocks to avoid an object per site. */
+		
+		coeffs = new double[sites.size() * DefaultPolynomial.NUM_COEFFS];
+		
+		final boolean[] hasPolynomial = new boolean[sites.size()];
+		
+		List<Integer> blockStarts = new ArrayList<Integer>();
+		
+		for (int i = 0; i < sites.size(); i += BLOCK_SIZE) {
+			blockStarts.add(i);
 		}
 		
-		System.out.println("  time nearest sites: " + stopWatch);
-		stopWatch.reset();
-		stopWatch.start();
-
-		calculatePolynomials:
-		for (SiteWithPolynomial site : sites) {
-			
-			List<SiteWithPolynomial> nearestSites =
-					nearestSiteMap.get(site);
-			
-			RealVector vector = new ArrayRealVector(SITES_FOR_APPROX);
-			RealMatrix matrix = new Array2DRowRealMatrix(
-					SITES_FOR_APPROX, DefaultPolynomial.NUM_COEFFS);
-			
-			for (int row = 0; row < SITES_FOR_APPROX; row++) {
-				SiteWithPolynomial nearSite = nearestSites.get(row);
-				DefaultPolynomial.populateMatrix(matrix, row, nearSite.pos.x, nearSite.pos.z);
-				vector.setEntry(row, nearSite.pos.y);
-			}
+		ParallelIterationUtil.iterate(blockStarts, new Operation<Integer>() {
 			
-			QRDecomposition qr = new QRDecomposition(matrix);
-			RealVector solution = qr.getSolver().solve(vector);
+			@Override public void perform(Integer blockStart) {
 				
-			double[] coeffs = solution.toArray();
-			
-			for (double coeff : coeffs) {
-				if (coeff > 10e3) {
-					continue calculatePolynomials;
+				int[] nearestSites = new int[SITES_FOR_APPROX];
+				
+				int blockEnd = min(blockStart + BLOCK_SIZE, sites.size());
+				
+				for (int site = blockStart; site < blockEnd; site++) {
+					
+					int count = siteTree.findNearest(
+							sites.getX(site), sites.getZ(site),
+							SITES_FOR_APPROX, nearestSites);
+					
+					/* sites without enough neighbors get no polynomial */
+					
+					hasPolynomial[site] = count == SITES_FOR_APPROX
+							&& approximatePolynomial(
+									sites, nearestSites, coeffs, site);
+					
 				}
+				
 			}
 			
-			site.setPolynomial(new DefaultPolynomial(coeffs));
-			
-		}
-
+		}, threadCount);
+		
 		System.out.println("  time polyonmials: " + stopWatch);
 		stopWatch.reset();
 		stopWatch.start();
 		
+		/* index the sites where a polynomial could be approximated */
+		
+		int polynomialSiteCount = 0;
+		
+		for (boolean b : hasPolynomial) {
+			if (b) polynomialSiteCount ++;
+		}
+		
+		polynomialSiteIndices = new int[polynomialSiteCount];
+		double[] polynomialSiteXs = new double[polynomialSiteCount];
+		double[] polynomialSiteZs = new double[polynomialSiteCount];
+		
+		int i = 0;
+		
+		for (int site = 0; site < sites.size(); site++) {
+			if (hasPolynomial[site]) {
+				polynomialSiteIndices[i] = site;
+				polynomialSiteXs[i] = sites.getX(site);
+				polynomialSiteZs[i] = sites.getZ(site);
+				i++;
+			}
+		}
+		
+		polynomialSiteTree = new KdTreeXZ(polynomialSiteXs, polynomialSiteZs);
+		
+		System.out.println("  time polynomial index: " + stopWatch);
+		
 	}
 	
 	@Override
 	public VectorXYZ interpolateEle(VectorXZ pos) {
 		
-		List<SiteWithPolynomial> nearestSites =
-				findNearestSites(pos, SITES_FOR_INTERPOL, true);
+		int[] nearestSites = new int[SITES_FOR_INTERPOL];
+		
+		int count = polynomialSiteTree.findNearest(pos.x, pos.z,
+				SITES_FOR_INTERPOL, nearestSites);
+		
+		//TODO error handling (not enough sites)
 		
 		double eleSum = 0;
 		double weightSum = 0;
 		
-		for (SiteWithPolynomial site : nearestSites) {
+		for (int i = 0; i < count; i++) {
 			
-			double distance = site.pos.distanceToXZ(pos);
+			int site = polynomialSiteIndices[nearestSites[i]];
+			
+			double dx = sites.getX(site) - pos.x;
+			double dz = sites.getZ(site) - pos.z;
+			double distance = sqrt(dx * dx + dz * dz);
 			
 			double weight = max(1 - distance / 120, 0);
 			
 			weightSum += weight;
-						
-			eleSum += weight * site.getPolynomial().evaluateAt(pos.x, pos.z);
+			
+			eleSum += weight * DefaultPolynomial.evaluate(coeffs,
+					site * DefaultPolynomial.NUM_COEFFS, pos.x, pos.z);
 			
 		}
 		
@@ -144,80 +196,64 @@ public class LeastSquaresInterpolator implements TerrainInterpolator {
 	/**
 	 * provides access to the polynomials approximated internally.
 	 * This is usually only interesting for debugging or similar tasks.
+	 * The result is created for each call.
 	 */
 	public Collection<SiteWithPolynomial> getSitesWithPolynomials() {
-		return sites;
+		
+		List<SiteWithPolynomial> result =
+				new ArrayList<SiteWithPolynomial>(sites.size());
+		
+		for (int site = 0; site < sites.size(); site++) {
+			result.add(new SiteWithPolynomial(sites.get(site)));
+		}
+		
+		for (int site : polynomialSiteIndices) {
+			int offset = site * DefaultPolynomial.NUM_COEFFS;
+			result.get(site).setPolynomial(new DefaultPolynomial(
+					Arrays.copyOfRange(coeffs, offset,
+							offset + DefaultPolynomial.NUM_COEFFS)));
+		}
+		
+		return result;
+		
 	}
 	
-	private List<SiteWithPolynomial> findNearestSites(
-			final VectorXZ pos, int numberSites, boolean requirePolynomial) {
-
-		PriorityQueue<SiteWithPolynomial> result =
-				new PriorityQueue<SiteWithPolynomial>(numberSites,
-						new Comparator<SiteWithPolynomial>() {
-					@Override
-					public int compare(SiteWithPolynomial s1, SiteWithPolynomial s2) {
-						return - Double.compare(s1.pos.distanceToXZ(pos),
-								s2.pos.distanceToXZ(pos));
-					}
-				});
-		
-		Collection<SiteWithPolynomial>[][] cellArray = siteGrid.getCellArray();
-		int cellX = siteGrid.cellXForCoord(pos.x, pos.z);
-		int cellZ = siteGrid.cellZForCoord(pos.x, pos.z);
+	/**
+	 * approximates a polynomial based on the given sites
+	 * and writes its coefficients to the coeffs array
+	 * 
+	 * @return  false if the approximation is unusable
+	 */
+	private static boolean approximatePolynomial(TerrainSites sites,
+			int[] nearestSites, double[] coeffs, int site) {
+		
+		RealVector vector = new ArrayRealVector(SITES_FOR_APPROX);
+		RealMatrix matrix = new Array2DRowRealMatrix(
+				SITES_FOR_APPROX, DefaultPolynomial.NUM_COEFFS);
+		
+		for (int row = 0; row < SITES_FOR_APPROX; row++) {
+			int nearSite = nearestSites[row];
+			DefaultPolynomial.populateMatrix(matrix, row,
+					sites.getX(nearSite), sites.getZ(nearSite));
+			vector.setEntry(row, sites.getY(nearSite));
+		}
+		
+		QRDecomposition qr = new QRDecomposition(matrix);
+		RealVector solution = qr.getSolver().solve(vector);
+		
+		for (int i = 0; i < DefaultPolynomial.NUM_COEFFS; i++) {
 			
-		int cellRange = 0;
-				
-		do {
+			double coeff = solution.getEntry(i);
 			
-			for (int i = max(cellX-cellRange, 0); i < min(cellX+cellRange+1, cellArray.length); i++) {
-				for (int j = max(cellZ-cellRange, 0); j < min(cellZ+cellRange+1, cellArray[i].length); j++) {
-					
-					//needs to be on the outer ring of cells (others have been checked before)
-					if (i == cellX-cellRange || i == cellX+cellRange
-							|| j == cellZ-cellRange || j == cellZ+cellRange) {
-					
-						Collection<SiteWithPolynomial> sitesInCell = cellArray[i][j];
-
-						if (sitesInCell != null) {
-							for (SiteWithPolynomial site : sitesInCell) {
-								
-								if (requirePolynomial && site.polynomial == null) continue;
-								
-								if (result.size() < numberSites) {
-									
-									result.add(site);
-									
-								} else if (site.pos.distanceToXZ(pos) <
-										result.peek().pos.distanceToXZ(pos)) {
-									
-									result.remove();
-									result.add(site);
-									
-								}
-							}
-						}
-						
-					}
-					
-				}
+			if (coeff > 10e3) {
+				return false;
 			}
 			
-			cellRange ++;
+			coeffs[site * DefaultPolynomial.NUM_COEFFS + i] = coeff;
 			
-		} while (result.size() < numberSites
-				|| cellRange * CELL_SIZE < result.peek().pos.distanceToXZ(pos));
-
-		//TODO error handling (not enough sites)
-		
-		/* get the result as a list with ascending distance */
-		
-		List<SiteWithPolynomial> resultList =
-				new ArrayList<SiteWithPolynomial>(result);
-		
-		Collections.reverse(resultList);
+		}
 		
-		return resultList;
+		return true;
 		
 	}
 	
@@ -240,12 +276,21 @@ public class LeastSquaresInterpolator implements TerrainInterpolator {
 		
 		@Override
 		public double evaluateAt(double x, double z) {
-			return coeffs[0]
-					+ coeffs[1] * x
-					+ coeffs[2] * z
-					+ coeffs[3] * x*x
-					+ coeffs[4] * x*z
-					+ coeffs[5] * z*z;
+			return evaluate(coeffs, 0, x, z);
+		}
+		
+		/**
+		 * evaluates a polynomial with coefficients stored
+		 * at the given offset in an array
+		 */
+		static double evaluate(double[] coeffs, int offset,
+				double x, double z) {
+			return coeffs[offset]
+					+ coeffs[offset + 1] * x
+					+ coeffs[offset + 2] * z
+					+ coeffs[offset + 3] * x*x
+					+ coeffs[offset + 4] * x*z
+					+ coeffs[offset + 5] * z*z;
 		}
 		
 		public static void populateMatrix(RealMatrix matrix, int row,
@@ -1,7 +1,5 @@
 package org.osm2world.core.map_elevation.creation;
 
-import java.util.Collection;
-
 import org.osm2world.core.map_elevation.creation.DelaunayTriangulation.DelaunayTriangle;
 import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.VectorXYZ;
@@ -12,21 +10,19 @@ import org.osm2world.core.math.VectorXZ;
  * then interpolates linearly within each triangle
  * (i.e. treats the triangles as flat)
  */
-public class LinearInterpolator implements TerrainInterpolator {
+public class LinearInterpolator implements SiteBasedTerrainInterpolator {
 	
 	private DelaunayTriangulation triangulation;
 	
 	@Override
-	public void setKnownSites(Collection<VectorXYZ> sites) {
+	public void setKnownSites(TerrainSites sites) {
 		
 		AxisAlignedBoundingBoxXZ boundingBox = new AxisAlignedBoundingBoxXZ(sites);
 		boundingBox = boundingBox.pad(100);
 		
 		triangulation = new DelaunayTriangulation(boundingBox);
 		
-		for (VectorXYZ site : sites) {
-			triangulation.insert(site);
-		}
+		triangulation.insertAll(sites);
 		
 	}
 	
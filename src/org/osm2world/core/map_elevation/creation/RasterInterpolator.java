@@ -0,0 +1,122 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static java.lang.Math.floor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.osm2world.core.map_data.creation.MapProjection;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+
+/**
+ * interpolates elevations directly from the raster of {@link SRTMData},
+ * instead of treating the raster's samples as scattered sites.
+ * There is no setup work, and each position only requires
+ * a fixed number of samples around it.
+ *
+ * The raster is provided with {@link #setElevationData(SRTMData)}
+ * instead of a set of sites.
+ * Positions without any elevation data get an elevation of 0.
+ */
+public abstract class RasterInterpolator implements ConcurrentTerrainInterpolator {
+	
+	private SRTMData eleData;
+	private MapProjection projection;
+	
+	public void setElevationData(SRTMData eleData) {
+		this.eleData = eleData;
+		this.projection = eleData.getProjection();
+	}
+	
+	@Override
+	public VectorXYZ interpolateEle(VectorXZ pos) {
+		
+		if (eleData == null) {
+			throw new IllegalStateException("no elevation data has been set");
+		}
+		
+		double x = projection.calcLon(pos) * SRTMData.SAMPLES_PER_DEGREE;
+		double y = projection.calcLat(pos) * SRTMData.SAMPLES_PER_DEGREE;
+		
+		double ele = interpolate(x, y);
+		
+		return pos.xyz(Double.isNaN(ele) ? 0 : ele);
+		
+	}
+	
+	/**
+	 * interpolates the elevations for a number of positions.
+	 * The result is the same as that of calling
+	 * {@link #interpolateEle(VectorXZ)} for each position.
+	 */
+	public List<VectorXYZ> interpolateEles(List<VectorXZ> positions) {
+		
+		List<VectorXYZ> result = new ArrayList<VectorXYZ>(positions.size());
+		
+		for (VectorXZ pos : positions) {
+			result.add(interpolateEle(pos));
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * interpolates the elevation at a position within the raster
+	 *
+	 * @param x  longitude, in multiples of the distance between samples
+	 * @param y  latitude, in multiples of the distance between samples
+	 * @return  the elevation; NaN if no data is available
+	 */
+	protected abstract double interpolate(double x, double y);
+	
+	/**
+	 * returns the elevation of a raster sample; NaN if no data is available
+	 */
+	protected final double getSample(int x, int y) {
+		return eleData.getSample(x, y);
+	}
+	
+	/**
+	 * bilinear interpolation between the four samples around a position.
+	 * Samples without data are left out, and the weights of the others
+	 * are adjusted accordingly.
+	 */
+	protected final double interpolateBilinear(double x, double y) {
+		
+		int x0 = (int)floor(x);
+		int y0 = (int)floor(y);
+		
+		double tx = x - x0;
+		double ty = y - y0;
+		
+		double eleSum = 0;
+		double weightSum = 0;
+		
+		for (int i = 0; i <= 1; i++) {
+			for (int j = 0; j <= 1; j++) {
+				
+				double sample = getSample(x0 + i, y0 + j);
+				
+				if (!Double.isNaN(sample)) {
+					
+					double weight = (i == 0 ? 1 - tx : tx) * (j == 0 ? 1 - ty : ty);
+					
+					eleSum += weight * sample;
+					weightSum += weight;
+					
+				}
+				
+			}
+		}
+		
+		if (weightSum > 0) {
+			return eleSum / weightSum;
+		} else {
+			return Double.NaN;
+		}
+		
+	}
+	
+}
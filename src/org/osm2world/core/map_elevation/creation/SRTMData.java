@@ -5,13 +5,10 @@ import static java.lang.Math.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
 
 import org.osm2world.core.map_data.creation.MapProjection;
 import org.osm2world.core.map_data.data.MapData;
 import org.osm2world.core.map_data.data.MapNode;
-import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 
 /**
@@ -19,21 +16,45 @@ import org.osm2world.core.math.VectorXZ;
  */
 public class SRTMData implements TerrainElevationData {
 	
+	/**
+	 * number of raster samples per degree of latitude or longitude.
+	 * The last row and column of a tile are the first ones of the next tile.
+	 */
+	public static final int SAMPLES_PER_DEGREE = SRTMTile.PIXELS - 1;
+	
 	private final File tileDirectory;
 	private final MapProjection projection;
+	private final SRTMTileCache tileCache;
+	
+	/** tiles used by this instance, kept here even if they leave the cache */
 	private final SRTMTile[][] tiles;
+	private final boolean[][] missingTiles;
 	
-	public SRTMData(File tileDirectory, MapProjection projection) {
+	/**
+	 * @param tileCache  cache used to load tiles, usually the shared instance
+	 */
+	public SRTMData(File tileDirectory, MapProjection projection,
+			SRTMTileCache tileCache) {
 		this.tileDirectory = tileDirectory;
 		this.projection = projection;
+		this.tileCache = tileCache;
 		this.tiles = new SRTMTile[360][180];
+		this.missingTiles = new boolean[360][180];
+	}
+	
+	public SRTMData(File tileDirectory, MapProjection projection) {
+		this(tileDirectory, projection, SRTMTileCache.getSharedInstance());
+	}
+	
+	public MapProjection getProjection() {
+		return projection;
 	}
 		
 	@Override
-	public Collection<VectorXYZ> getSites(double minLon, double minLat,
+	public TerrainSites getSites(double minLon, double minLat,
 			double maxLon, double maxLat) throws IOException {
 		
-		Collection<VectorXYZ> result = new ArrayList<VectorXYZ>();
+		TerrainSites result = new TerrainSites();
 		
 		int minLonInt = (int)floor(minLon);
 		int minLatInt = (int)floor(minLat);
@@ -63,7 +84,7 @@ public class SRTMData implements TerrainElevationData {
 	 *       with a single getSite(AxisAlignedBoundingBox dataBounds) method
 	 */
 	@Override
-	public Collection<VectorXYZ> getSites(MapData mapData) throws IOException {
+	public TerrainSites getSites(MapData mapData) throws IOException {
 		
 		double minLon = Double.POSITIVE_INFINITY;
 		double minLat = Double.POSITIVE_INFINITY;
@@ -102,39 +123,76 @@ public class SRTMData implements TerrainElevationData {
 		
 	}
 
-	private void loadTileIfNecessary(int lon, int lat) throws IOException {
+	/**
+	 * returns the elevation of a single sample of the SRTM raster.
+	 * Tiles are loaded when they are needed for the first time.
+	 * This method can be called by multiple threads at the same time.
+	 * 
+	 * @param x  column of the sample, x / {@link #SAMPLES_PER_DEGREE}
+	 *           is the sample's longitude
+	 * @param y  row of the sample, y / {@link #SAMPLES_PER_DEGREE}
+	 *           is the sample's latitude
+	 * @return  the elevation; NaN if there is no data for the sample
+	 */
+	public double getSample(int x, int y) {
+		
+		int tileLon = (int)floor((double)x / SAMPLES_PER_DEGREE);
+		int tileLat = (int)floor((double)y / SAMPLES_PER_DEGREE);
+		
+		if (tileLon < -180 || tileLon >= 180 || tileLat < -90 || tileLat >= 90) {
+			return Double.NaN;
+		}
+		
+		/* tiles are only set once, so reading the arrays without
+		 * synchronization only risks an unnecessary synchronized call */
+		
+		SRTMTile tile = getTile(tileLon, tileLat);
 		
-		if (getTile(lon, lat) == null) {
+		if (tile == null) {
 			
-			String fileName = tileDirectory.getPath() + File.separator;
+			if (isTileMissing(tileLon, tileLat)) return Double.NaN;
 			
-			if (lat >= 0) {
-				fileName += String.format("N%02d", lat);
-			} else {
-				fileName += String.format("S%02d", -lat);
-			}
-
-			if (lon >= 0) {
-				fileName += String.format("E%03d", lon);
-			} else {
-				fileName += String.format("W%03d", -lon);
+			try {
+				loadTileIfNecessary(tileLon, tileLat);
+			} catch (IOException e) {
+				e.printStackTrace();
+				setTileMissing(tileLon, tileLat);
 			}
 			
-			fileName += ".hgt";
+			tile = getTile(tileLon, tileLat);
 			
-			File file = new File(fileName);
+			if (tile == null) return Double.NaN;
 			
-			if (file.exists()) {
-				setTile(lon, lat, new SRTMTile(file));
+		}
+		
+		short value = tile.getData(
+				x - tileLon * SAMPLES_PER_DEGREE,
+				y - tileLat * SAMPLES_PER_DEGREE);
+		
+		return value == SRTMTile.BLANK_VALUE ? Double.NaN : value;
+		
+	}
+	
+	private synchronized void loadTileIfNecessary(int lon, int lat)
+			throws IOException {
+		
+		if (getTile(lon, lat) == null && !isTileMissing(lon, lat)) {
+			
+			SRTMTile tile = tileCache.getTile(tileDirectory, lon, lat);
+			
+			if (tile != null) {
+				setTile(lon, lat, tile);
 			} else {
-				System.err.println("warning: missing SRTM tile " + file.getName());
+				setTileMissing(lon, lat);
+				System.err.println("warning: missing SRTM tile "
+						+ SRTMTileCache.getTileFileName(lon, lat));
 			}
 			
 		}
 		
 	}
 	
-	private void addTileSites(Collection<VectorXYZ> result,
+	private void addTileSites(TerrainSites result,
 			int tileLon, int tileLat,
 			double minLon, double minLat, double maxLon, double maxLat) {
 		
@@ -156,21 +214,25 @@ public class SRTMData implements TerrainElevationData {
 				(int)floor(SRTMTile.PIXELS * (maxLat - tileLat)));
 		
 		for (int x = minX; x < maxX; x++) {
+			
+			double lon = tileLon + 1.0 / SRTMTile.PIXELS * (x + 0.5);
+			
 			for (int y = minY; y < maxY; y++) {
 				
 				short value = tile.getData(x, y);
 				
+				if (value == SRTMTile.BLANK_VALUE) continue;
+				
 				double lat = tileLat + 1.0 / SRTMTile.PIXELS * (y + 0.5);
-				double lon = tileLon + 1.0 / SRTMTile.PIXELS * (x + 0.5);
 				
 				VectorXZ pos = projection.calcPos(lat, lon);
 				
-				if (value != SRTMTile.BLANK_VALUE &&
-						!Double.isNaN(pos.x) && !Double.isNaN(pos.z)) {
-					result.add(pos.xyz(value));
+				if (!Double.isNaN(pos.x) && !Double.isNaN(pos.z)) {
+					result.add(pos.x, value, pos.z);
 				}
 				
 			}
+			
 		}
 				
 	}
@@ -183,4 +245,12 @@ public class SRTMData implements TerrainElevationData {
 		tiles[tileLon+180][tileLat+90] = tile;
 	}
 	
+	private boolean isTileMissing(int tileLon, int tileLat) {
+		return missingTiles[tileLon+180][tileLat+90];
+	}
+	
+	private void setTileMissing(int tileLon, int tileLat) {
+		missingTiles[tileLon+180][tileLat+90] = true;
+	}
+	
 }
@@ -3,10 +3,11 @@ package org.osm2world.core.map_elevation.creation;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.ShortBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 
 /**
  * a single SRTM data tile.
@@ -33,22 +34,37 @@ class SRTMTile {
 				
 	}
 
+	/**
+	 * maps the file into memory. The operating system will only read the
+	 * parts of the file that are actually accessed, and can share the pages
+	 * between processes working with the same tiles.
+	 */
 	private static ShortBuffer loadDataFromFile(File file) throws IOException {
-
-		FileInputStream fis = new FileInputStream(file);
-		FileChannel fc = fis.getChannel();
-		ByteBuffer bb = ByteBuffer.allocateDirect((int) fc.size());
-		while (bb.remaining() > 0) fc.read(bb);
-		fc.close();
-		fis.close();
 		
-		bb.flip();
+		FileInputStream fis = new FileInputStream(file);
 		
-		// choose the right endianness
-		return bb.order(ByteOrder.BIG_ENDIAN).asShortBuffer();
+		try {
+			
+			FileChannel fc = fis.getChannel();
+			MappedByteBuffer bb = fc.map(MapMode.READ_ONLY, 0, fc.size());
+			
+			// choose the right endianness
+			return bb.order(ByteOrder.BIG_ENDIAN).asShortBuffer();
+			
+		} finally {
+			//the mapping remains valid after the channel has been closed
+			fis.close();
+		}
 		
 	}
 	
+	/**
+	 * returns the size of the tile's data
+	 */
+	public long getSizeInBytes() {
+		return data.capacity() * 2L;
+	}
+	
 	public final short getData(int x, int y) {
 		assert 0 <= x && x < PIXELS && 0 <= y && y < PIXELS;
 		return data.get((1200 - y) * 1201 + x);
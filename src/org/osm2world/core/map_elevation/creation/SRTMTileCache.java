@@ -0,0 +1,273 @@
+package org.osm2world.core.map_elevation.creation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * process-wide cache for {@link SRTMTile}s, shared by {@link SRTMData}
+ * instances. This avoids loading the same tiles again for each conversion
+ * when running many conversions in the same process.
+ * There is one shared instance for each combination of settings,
+ * so conversions with different settings don't affect each other.
+ *
+ * The cache is limited by the total size of the tiles' data. When the limit
+ * is exceeded, the least recently used tiles are dropped from the cache.
+ *
+ * Tiles can be stored as plain .hgt files or as compressed .hgt.zip files.
+ * Compressed tiles are decompressed once into the unzip directory,
+ * and the decompressed files are re-used afterwards.
+ */
+public class SRTMTileCache {
+	
+	/** default value for the maximum size of cached tile data, in bytes */
+	public static final long DEFAULT_MAX_BYTES = 512L * 1024 * 1024;
+	
+	/** default directory for decompressed .hgt.zip tiles */
+	public static final File DEFAULT_UNZIP_DIRECTORY = new File(
+			System.getProperty("java.io.tmpdir"), "osm2world-srtm");
+	
+	/** shared instances, with a list of their settings as keys */
+	private static final Map<List<Object>, SRTMTileCache> sharedInstances =
+			new HashMap<List<Object>, SRTMTileCache>();
+	
+	/**
+	 * returns the shared instance with default settings,
+	 * which is used by {@link SRTMData} by default
+	 */
+	public static SRTMTileCache getSharedInstance() {
+		return getSharedInstance(DEFAULT_MAX_BYTES, DEFAULT_UNZIP_DIRECTORY);
+	}
+	
+	/**
+	 * returns the shared instance for a combination of settings,
+	 * creating it if necessary
+	 * 
+	 * @see #SRTMTileCache(long, File)
+	 */
+	public static synchronized SRTMTileCache getSharedInstance(
+			long maxBytes, File unzipDirectory) {
+		
+		List<Object> settings = Arrays.<Object>asList(
+				maxBytes, unzipDirectory.getAbsoluteFile());
+		
+		SRTMTileCache instance = sharedInstances.get(settings);
+		
+		if (instance == null) {
+			instance = new SRTMTileCache(maxBytes, unzipDirectory);
+			sharedInstances.put(settings, instance);
+		}
+		
+		return instance;
+		
+	}
+	
+	private final long maxBytes;
+	private final File unzipDirectory;
+	
+	/** cached tiles, in order of access (least recently used first) */
+	private final LinkedHashMap<File, SRTMTile> tiles =
+			new LinkedHashMap<File, SRTMTile>(16, 0.75f, true);
+	
+	private long cachedBytes = 0;
+	
+	/**
+	 * @param maxBytes        maximum size of all cached tiles' data
+	 * @param unzipDirectory  directory for decompressed .hgt.zip tiles
+	 */
+	public SRTMTileCache(long maxBytes, File unzipDirectory) {
+		this.maxBytes = maxBytes;
+		this.unzipDirectory = unzipDirectory;
+	}
+	
+	/**
+	 * returns the tile for a given position,
+	 * loading it from the tile directory if necessary.
+	 *
+	 * @param tileDirectory  directory containing .hgt or .hgt.zip files
+	 * @param lon            longitude of the tile's south-west corner
+	 * @param lat            latitude of the tile's south-west corner
+	 * @return  the tile; null if no file exists for the tile
+	 */
+	synchronized SRTMTile getTile(File tileDirectory, int lon, int lat)
+			throws IOException {
+		
+		String fileName = getTileFileName(lon, lat);
+		
+		File file = new File(tileDirectory, fileName);
+		
+		if (!file.exists()) {
+			
+			File zipFile = new File(tileDirectory, fileName + ".zip");
+			
+			if (!zipFile.exists()) {
+				return null;
+			}
+			
+			file = unzipTile(zipFile, fileName);
+			
+		}
+		
+		SRTMTile tile = tiles.get(file);
+		
+		if (tile == null) {
+			
+			tile = new SRTMTile(file);
+			
+			tiles.put(file, tile);
+			cachedBytes += tile.getSizeInBytes();
+			
+			evictTiles(tile);
+			
+		}
+		
+		return tile;
+		
+	}
+	
+	/**
+	 * removes all tiles from the cache
+	 */
+	public synchronized void clear() {
+		tiles.clear();
+		cachedBytes = 0;
+	}
+	
+	/**
+	 * removes least recently used tiles until the size limit is met
+	 *
+	 * @param protectedTile  tile that must not be removed; can be null
+	 */
+	private void evictTiles(SRTMTile protectedTile) {
+		
+		Iterator<Map.Entry<File, SRTMTile>> iterator =
+				tiles.entrySet().iterator();
+		
+		while (cachedBytes > maxBytes && iterator.hasNext()) {
+			
+			SRTMTile tile = iterator.next().getValue();
+			
+			if (tile != protectedTile) {
+				iterator.remove();
+				cachedBytes -= tile.getSizeInBytes();
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * returns the decompressed version of a .hgt.zip file,
+	 * decompressing it first if that has not yet happened.
+	 */
+	private File unzipTile(File zipFile, String fileName) throws IOException {
+		
+		File unzippedFile = new File(unzipDirectory, fileName);
+		
+		if (unzippedFile.exists()
+				&& unzippedFile.lastModified() >= zipFile.lastModified()) {
+			return unzippedFile;
+		}
+		
+		if (!unzipDirectory.isDirectory() && !unzipDirectory.mkdirs()) {
+			throw new IOException("cannot create directory " + unzipDirectory);
+		}
+		
+		ZipFile zip = new ZipFile(zipFile);
+		
+		try {
+			
+			ZipEntry entry = findEntry(zip, fileName);
+			
+			if (entry == null) {
+				throw new IOException(zipFile + " does not contain " + fileName);
+			}
+			
+			/* write to a temporary file first, so other processes
+			 * never see an incomplete tile */
+			
+			File tempFile = File.createTempFile(fileName, ".tmp", unzipDirectory);
+			
+			InputStream in = zip.getInputStream(entry);
+			OutputStream out = new FileOutputStream(tempFile);
+			
+			try {
+				byte[] buffer = new byte[64 * 1024];
+				int length;
+				while ((length = in.read(buffer)) > 0) {
+					out.write(buffer, 0, length);
+				}
+			} finally {
+				out.close();
+				in.close();
+			}
+			
+			unzippedFile.delete();
+			
+			if (!tempFile.renameTo(unzippedFile)) {
+				tempFile.delete();
+				throw new IOException("cannot create " + unzippedFile);
+			}
+			
+		} finally {
+			zip.close();
+		}
+		
+		return unzippedFile;
+		
+	}
+	
+	/**
+	 * finds the entry for a file name, ignoring case and directories
+	 */
+	private static ZipEntry findEntry(ZipFile zip, String fileName) {
+		
+		Enumeration<? extends ZipEntry> entries = zip.entries();
+		
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			String name = new File(entry.getName()).getName();
+			if (!entry.isDirectory() && name.equalsIgnoreCase(fileName)) {
+				return entry;
+			}
+		}
+		
+		return null;
+		
+	}
+	
+	/**
+	 * returns the name of a tile's .hgt file, e.g. N47E011.hgt
+	 */
+	static String getTileFileName(int lon, int lat) {
+		
+		String fileName = "";
+		
+		if (lat >= 0) {
+			fileName += String.format("N%02d", lat);
+		} else {
+			fileName += String.format("S%02d", -lat);
+		}
+		
+		if (lon >= 0) {
+			fileName += String.format("E%03d", lon);
+		} else {
+			fileName += String.format("W%03d", -lon);
+		}
+		
+		return fileName + ".hgt";
+		
+	}
+	
+}
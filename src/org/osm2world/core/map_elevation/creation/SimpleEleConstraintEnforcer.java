@@ -1,17 +1,13 @@
 package org.osm2world.core.map_elevation.creation;
 
-import static java.util.Arrays.asList;
-
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.math.VectorXZ;
 
 /**
  * enforcer implementation that ignores many of the constraints,
@@ -26,23 +22,43 @@ public final class SimpleEleConstraintEnforcer implements EleConstraintEnforcer
 	private Collection<EleConnector> connectors = new ArrayList<EleConnector>();
 	
 	/**
-	 * associates each EleConnector with the {@link StiffConnectorSet}
-	 * it is part of (if any)
+	 * all connectors known to this enforcer, grouped by their position.
+	 * Used to find connectors which are joined, see
+	 * {@link EleConnector#connectsTo(EleConnector)}.
+	 */
+	private Map<VectorXZ, List<EleConnector>> connectorsByPos =
+			new HashMap<VectorXZ, List<EleConnector>>();
+	
+	/**
+	 * associates each EleConnector with its {@link StiffSetNode} (if any).
+	 * Connectors that are required to have the same elevation
+	 * have nodes with the same root.
 	 */
-	private Map<EleConnector, StiffConnectorSet> stiffSetMap =
-			new HashMap<EleConnector, StiffConnectorSet>();
+	private Map<EleConnector, StiffSetNode> stiffSetMap =
+			new HashMap<EleConnector, StiffSetNode>();
 	
 	@Override
 	public void addConnectors(Iterable<EleConnector> newConnectors) {
 		
 		for (EleConnector c : newConnectors) {
+			
 			connectors.add(c);
+			
+			List<EleConnector> connectorsAtPos = connectorsByPos.get(c.pos);
+			
+			if (connectorsAtPos == null) {
+				connectorsAtPos = new ArrayList<EleConnector>(2);
+				connectorsByPos.put(c.pos, connectorsAtPos);
+			}
+			
+			connectorsAtPos.add(c);
+			
 		}
 		
 		/* connect connectors */
 		
 		for (EleConnector c1 : newConnectors) {
-			for (EleConnector c2 : connectors) {
+			for (EleConnector c2 : connectorsByPos.get(c1.pos)) {
 				
 				if (c1 != c2 && c1.connectsTo(c2)) {
 					requireSameEle(c1, c2);
@@ -56,71 +72,53 @@ public final class SimpleEleConstraintEnforcer implements EleConstraintEnforcer
 	@Override
 	public void requireSameEle(EleConnector c1, EleConnector c2) {
 		
-		//SUGGEST (performance): a special case implementation would be faster
+		StiffSetNode root1 = getStiffSetNode(c1).findRoot();
+		StiffSetNode root2 = getStiffSetNode(c2).findRoot();
 		
-		requireSameEle(asList(c1, c2));
+		if (root1 == root2) return;
+		
+		/* union by size */
+		
+		if (root1.size < root2.size) {
+			root1.parent = root2;
+			root2.size += root1.size;
+		} else {
+			root2.parent = root1;
+			root1.size += root2.size;
+		}
 		
 	}
 	
 	@Override
 	public void requireSameEle(Iterable<EleConnector> cs) {
 		
-		/* find stiff sets containing any of the affected connectors */
-		
-		Set<EleConnector> looseConnectors = new HashSet<EleConnector>();
-		Set<StiffConnectorSet> existingStiffSets = new HashSet<StiffConnectorSet>();
+		EleConnector first = null;
 		
 		for (EleConnector c : cs) {
-			
-			StiffConnectorSet stiffSet = stiffSetMap.get(c);
-			
-			if (stiffSet != null) {
-				existingStiffSets.add(stiffSet);
+			if (first == null) {
+				first = c;
+				getStiffSetNode(c);
 			} else {
-				looseConnectors.add(c);
+				requireSameEle(first, c);
 			}
-			
 		}
 		
-		/* return if the connectors are already in a set together */
-		
-		if (existingStiffSets.size() == 1 && looseConnectors.isEmpty()) return;
-		
-		/* merge existing sets (if any) into a single set */
+	}
+	
+	/**
+	 * returns the {@link StiffSetNode} for a connector,
+	 * creates it if necessary
+	 */
+	private StiffSetNode getStiffSetNode(EleConnector c) {
 		
-		StiffConnectorSet commonStiffSet = null;
+		StiffSetNode node = stiffSetMap.get(c);
 		
-		if (existingStiffSets.isEmpty()) {
-			commonStiffSet = new StiffConnectorSet();
-		} else {
-			
-			for (StiffConnectorSet stiffSet : existingStiffSets) {
-				
-				if (commonStiffSet == null) {
-					commonStiffSet = stiffSet;
-				} else {
-					
-					for (EleConnector c : stiffSet) {
-						stiffSetMap.put(c, commonStiffSet);
-					}
-					
-					commonStiffSet.mergeFrom(stiffSet);
-					
-				}
-				
-			}
-			
+		if (node == null) {
+			node = new StiffSetNode();
+			stiffSetMap.put(c, node);
 		}
 		
-		/* add remaining (loose) connectors into the common set */
-		
-		for (EleConnector c : looseConnectors) {
-			
-			commonStiffSet.add(c);
-			
-			stiffSetMap.put(c, commonStiffSet);
-			
-		}
+		return node;
 		
 	}
 	
@@ -156,19 +154,25 @@ public final class SimpleEleConstraintEnforcer implements EleConstraintEnforcer
 		/* assign elevation to stiff sets by averaging terrain elevation */
 		//TODO what for stiff sets above the ground?
 		
-		for (StiffConnectorSet stiffSet : stiffSetMap.values()) {
+		Map<StiffSetNode, Double> eleSums = new HashMap<StiffSetNode, Double>();
+		
+		for (Map.Entry<EleConnector, StiffSetNode> entry : stiffSetMap.entrySet()) {
 			
-			double averageEle = 0;
+			StiffSetNode root = entry.getValue().findRoot();
+			double ele = entry.getKey().getPosXYZ().y;
 			
-			for (EleConnector connector : stiffSet) {
-				averageEle += connector.getPosXYZ().y;
-			}
+			Double eleSum = eleSums.get(root);
+			eleSums.put(root, eleSum == null ? ele : eleSum + ele);
 			
-			averageEle /= stiffSet.size();
+		}
+		
+		for (Map.Entry<EleConnector, StiffSetNode> entry : stiffSetMap.entrySet()) {
 			
-			for (EleConnector connector : stiffSet) {
-				connector.setPosXYZ(connector.pos.xyz(averageEle));
-			}
+			StiffSetNode root = entry.getValue().findRoot();
+			double averageEle = eleSums.get(root) / root.size;
+			
+			EleConnector connector = entry.getKey();
+			connector.setPosXYZ(connector.pos.xyz(averageEle));
 			
 		}
 		
@@ -192,43 +196,33 @@ public final class SimpleEleConstraintEnforcer implements EleConstraintEnforcer
 	}
 	
 	/**
-	 * a set of connectors that are required to have the same elevation
+	 * node of a union-find structure representing sets of connectors
+	 * that are required to have the same elevation
 	 * TODO or a precise vertical offset
 	 */
-	private static class StiffConnectorSet implements Iterable<EleConnector> {
+	private static class StiffSetNode {
 		
-		//TODO maybe look for a more efficient set implementation
-		private Set<EleConnector> connectors = new HashSet<EleConnector>();
+		/** parent node, or the node itself for the root of a set */
+		private StiffSetNode parent = this;
 		
-		/**
-		 * adds a connector to this set, requiring it to be at the set's
-		 * reference elevation
-		 */
-		public void add(EleConnector connector) {
-			connectors.add(connector);
-		}
+		/** number of nodes in the set (only maintained for the root) */
+		private int size = 1;
 		
 		/**
-		 * combines this set with another, and makes the other set unusable.
-		 * This set will contain all {@link EleConnector}s from the other set
-		 * afterwards.
+		 * returns the root of the set this node is part of.
+		 * Shortens the paths to the root along the way (path halving).
 		 */
-		public void mergeFrom(StiffConnectorSet otherSet) {
+		public StiffSetNode findRoot() {
 			
-			connectors.addAll(otherSet.connectors);
+			StiffSetNode node = this;
 			
-			// make sure that the other set cannot be used anymore
-			otherSet.connectors = null;
+			while (node.parent != node) {
+				node.parent = node.parent.parent;
+				node = node.parent;
+			}
+			
+			return node;
 			
-		}
-		
-		public double size() {
-			return connectors.size();
-		}
-		
-		@Override
-		public Iterator<EleConnector> iterator() {
-			return connectors.iterator();
 		}
 		
 	}
@@ -0,0 +1,11 @@
+package org.osm2world.core.map_elevation.creation;
+
+/**
+ * a {@link TerrainInterpolator} which calculates elevations
+ * from a set of sites with known elevation
+ */
+public interface SiteBasedTerrainInterpolator extends TerrainInterpolator {
+	
+	void setKnownSites(TerrainSites sites);
+	
+}
@@ -1,10 +1,8 @@
 package org.osm2world.core.map_elevation.creation;
 
 import java.io.IOException;
-import java.util.Collection;
 
 import org.osm2world.core.map_data.data.MapData;
-import org.osm2world.core.math.VectorXYZ;
 
 /**
  * a source of terrain elevation data. Implementations may range from raster
@@ -12,9 +10,9 @@ import org.osm2world.core.math.VectorXYZ;
  */
 public interface TerrainElevationData {
 
-	Collection<VectorXYZ> getSites(double minLon, double minLat,
+	TerrainSites getSites(double minLon, double minLat,
 			double maxLon, double maxLat) throws IOException;
 
-	Collection<VectorXYZ> getSites(MapData mapData) throws IOException;
+	TerrainSites getSites(MapData mapData) throws IOException;
 	
 }
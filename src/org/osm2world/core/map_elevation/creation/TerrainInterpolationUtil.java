@@ -0,0 +1,171 @@
+package org.osm2world.core.map_elevation.creation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.util.FaultTolerantIterationUtil.Operation;
+import org.osm2world.core.util.ParallelIterationUtil;
+
+/**
+ * utility class for assigning interpolated terrain elevations
+ * to {@link EleConnector}s
+ */
+public final class TerrainInterpolationUtil {
+	
+	private TerrainInterpolationUtil() { }
+	
+	/**
+	 * number of bits per axis for the z-order keys.
+	 * Must be less than 16 to keep the keys positive.
+	 */
+	private static final int ORDER_BITS = 15;
+	
+	/**
+	 * interpolates the elevations of connectors and assigns them
+	 * using {@link EleConnector#setPosXYZ(VectorXYZ)}.
+	 *
+	 * If the interpolator is a {@link ConcurrentTerrainInterpolator},
+	 * the connectors are sorted by their position and split into
+	 * spatially coherent partitions, which are processed by multiple threads.
+	 * Otherwise, all connectors are processed by the calling thread
+	 * in their original order.
+	 *
+	 * Results are assigned by the calling thread in the original order
+	 * after all interpolations are finished, so they don't depend on
+	 * the number of threads. An exception for one connector is reported
+	 * and only causes that connector to be left out of the result.
+	 *
+	 * @param threadCount  number of threads; > 0
+	 * @return  all connectors with successfully interpolated elevations,
+	 *          in their original order
+	 */
+	public static final List<EleConnector> interpolateEles(
+			final List<EleConnector> connectors,
+			final TerrainInterpolator interpolator, int threadCount) {
+		
+		final VectorXYZ[] results = new VectorXYZ[connectors.size()];
+		final Exception[] exceptions = new Exception[connectors.size()];
+		
+		Operation<Integer> operation = new Operation<Integer>() {
+			@Override public void perform(Integer index) {
+				try {
+					results[index] = interpolator.interpolateEle(
+							connectors.get(index).pos);
+				} catch (Exception e) {
+					exceptions[index] = e;
+				}
+			}
+		};
+		
+		if (threadCount > 1
+				&& interpolator instanceof ConcurrentTerrainInterpolator) {
+			
+			ParallelIterationUtil.iterate(getSpatialOrder(connectors),
+					operation, threadCount);
+			
+		} else {
+			
+			for (int i = 0; i < connectors.size(); i++) {
+				operation.perform(i);
+			}
+			
+		}
+		
+		/* assign the results */
+		
+		List<EleConnector> interpolatedConnectors =
+				new ArrayList<EleConnector>(connectors.size());
+		
+		for (int i = 0; i < connectors.size(); i++) {
+			
+			EleConnector connector = connectors.get(i);
+			
+			if (exceptions[i] == null) {
+				
+				connector.setPosXYZ(results[i]);
+				interpolatedConnectors.add(connector);
+				
+			} else {
+				
+				System.err.println("ignored exception:");
+				//TODO proper logging
+				exceptions[i].printStackTrace();
+				System.err.println("this exception occurred for the following input:\n"
+						+ connector);
+				
+			}
+			
+		}
+		
+		return interpolatedConnectors;
+		
+	}
+	
+	/**
+	 * returns the indices of the connectors sorted along a z-order curve,
+	 * so contiguous ranges of the result are close to each other
+	 */
+	static final List<Integer> getSpatialOrder(List<EleConnector> connectors) {
+		
+		double minX = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+		
+		for (EleConnector connector : connectors) {
+			minX = Math.min(minX, connector.pos.x);
+			minZ = Math.min(minZ, connector.pos.z);
+			maxX = Math.max(maxX, connector.pos.x);
+			maxZ = Math.max(maxZ, connector.pos.z);
+		}
+		
+		double maxCell = (1 << ORDER_BITS) - 1;
+		double scaleX = maxX > minX ? maxCell / (maxX - minX) : 0;
+		double scaleZ = maxZ > minZ ? maxCell / (maxZ - minZ) : 0;
+		
+		/* sort keys containing the z-order value in the upper
+		 * and the index in the lower 32 bits */
+		
+		long[] keys = new long[connectors.size()];
+		
+		for (int i = 0; i < keys.length; i++) {
+			
+			EleConnector connector = connectors.get(i);
+			
+			int cellX = (int) ((connector.pos.x - minX) * scaleX);
+			int cellZ = (int) ((connector.pos.z - minZ) * scaleZ);
+			
+			keys[i] = ((interleaveBits(cellX, cellZ) & 0xFFFFFFFFL) << 32) | i;
+			
+		}
+		
+		Arrays.sort(keys);
+		
+		List<Integer> order = new ArrayList<Integer>(keys.length);
+		
+		for (long key : keys) {
+			order.add((int) key);
+		}
+		
+		return order;
+		
+	}
+	
+	/**
+	 * interleaves the lower {@value #ORDER_BITS} bits of two values
+	 */
+	private static final int interleaveBits(int x, int z) {
+		
+		int result = 0;
+		
+		for (int bit = 0; bit < ORDER_BITS; bit++) {
+			result |= ((x >> bit) & 1) << (2 * bit);
+			result |= ((z >> bit) & 1) << (2 * bit + 1);
+		}
+		
+		return result;
+		
+	}
+	
+}
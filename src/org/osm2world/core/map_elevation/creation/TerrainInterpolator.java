@@ -1,16 +1,14 @@
 package org.osm2world.core.map_elevation.creation;
 
-import java.util.Collection;
-
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 
 /**
- * strategy for elevation interpolation from a set of known points
+ * strategy for elevation interpolation from known elevation data.
+ * How the data is provided depends on the implementation,
+ * see {@link SiteBasedTerrainInterpolator} and {@link RasterInterpolator}.
  */
 public interface TerrainInterpolator {
-
-	void setKnownSites(Collection<VectorXYZ> sites);
 	
 	VectorXYZ interpolateEle(VectorXZ pos);
 	
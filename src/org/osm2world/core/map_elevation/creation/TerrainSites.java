@@ -0,0 +1,142 @@
+package org.osm2world.core.map_elevation.creation;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.osm2world.core.math.VectorXYZ;
+
+/**
+ * a set of sites with known elevation, such as the pixels of SRTM tiles.
+ *
+ * Coordinates are stored in primitive arrays, so no object is needed
+ * per site. This matters because terrain data often contains millions of
+ * sites. Interpolators which need the sites as {@link VectorXYZ}s can
+ * still use this as a collection; vectors are then created during iteration.
+ */
+public class TerrainSites extends AbstractCollection<VectorXYZ> {
+	
+	private double[] xs;
+	private double[] ys;
+	private double[] zs;
+	
+	private int size = 0;
+	
+	public TerrainSites(int initialCapacity) {
+		xs = new double[initialCapacity];
+		ys = new double[initialCapacity];
+		zs = new double[initialCapacity];
+	}
+	
+	public TerrainSites() {
+		this(16);
+	}
+	
+	public TerrainSites(Collection<VectorXYZ> sites) {
+		this(sites.size());
+		addAll(sites);
+	}
+	
+	public void add(double x, double y, double z) {
+		
+		if (size == xs.length) {
+			int newCapacity = Math.max(16, xs.length * 2);
+			xs = Arrays.copyOf(xs, newCapacity);
+			ys = Arrays.copyOf(ys, newCapacity);
+			zs = Arrays.copyOf(zs, newCapacity);
+		}
+		
+		xs[size] = x;
+		ys[size] = y;
+		zs[size] = z;
+		
+		size ++;
+		
+	}
+	
+	@Override
+	public boolean add(VectorXYZ site) {
+		add(site.x, site.y, site.z);
+		return true;
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	public double getX(int index) {
+		checkIndex(index);
+		return xs[index];
+	}
+	
+	public double getY(int index) {
+		checkIndex(index);
+		return ys[index];
+	}
+	
+	public double getZ(int index) {
+		checkIndex(index);
+		return zs[index];
+	}
+	
+	/**
+	 * returns a site as a vector. A new vector is created for each call.
+	 */
+	public VectorXYZ get(int index) {
+		checkIndex(index);
+		return new VectorXYZ(xs[index], ys[index], zs[index]);
+	}
+	
+	/**
+	 * returns the internal array of x coordinates. It must not be modified
+	 * and may be longer than {@link #size()}.
+	 */
+	double[] getXArray() {
+		return xs;
+	}
+	
+	/**
+	 * returns the internal array of z coordinates, see {@link #getXArray()}
+	 */
+	double[] getZArray() {
+		return zs;
+	}
+	
+	@Override
+	public Iterator<VectorXYZ> iterator() {
+		
+		return new Iterator<VectorXYZ>() {
+			
+			private int index = 0;
+			
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+			
+			@Override
+			public VectorXYZ next() {
+				if (index >= size) throw new NoSuchElementException();
+				return get(index++);
+			}
+			
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+			
+		};
+		
+	}
+	
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index " + index
+					+ ", size " + size);
+		}
+	}
+	
+}
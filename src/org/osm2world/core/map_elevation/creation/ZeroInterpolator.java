@@ -1,19 +1,12 @@
 package org.osm2world.core.map_elevation.creation;
 
-import java.util.Collection;
-
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 
 /**
  * sets every point's elevation to 0
  */
-public class ZeroInterpolator implements TerrainInterpolator {
-	
-	@Override
-	public void setKnownSites(Collection<VectorXYZ> sites) {
-		// do nothing
-	}
+public class ZeroInterpolator implements ConcurrentTerrainInterpolator {
 	
 	@Override
 	public VectorXYZ interpolateEle(VectorXZ pos) {
@@ -9,6 +9,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
+import org.osm2world.core.math.datastructures.PolygonCoverageGrid;
+import org.osm2world.core.math.datastructures.PolygonCoverageGrid.Coverage;
+
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.LineSegment;
 
@@ -511,12 +514,37 @@ public final class GeometryUtil {
 			AxisAlignedBoundingBoxXZ boundary,
 			double density,	double minimumDistance) {
 		
+		return distributePointsOn(seed, polygonWithHolesXZ, boundary,
+				density, minimumDistance, null);
+		
+	}
+	
+	/**
+	 * variant of {@link #distributePointsOn(long, PolygonWithHolesXZ,
+	 * AxisAlignedBoundingBoxXZ, double, double)} that does not place points
+	 * on an area covered by obstacles.
+	 * 
+	 * The result is the same as removing the points covered by obstacles
+	 * afterwards, but boxes which are completely covered or not covered
+	 * by obstacles don't require individual tests for their points.
+	 * 
+	 * @param obstacles  area where no points will be placed; can be null
+	 */
+	public static List<VectorXZ> distributePointsOn(
+			long seed, PolygonWithHolesXZ polygonWithHolesXZ,
+			AxisAlignedBoundingBoxXZ boundary,
+			double density,	double minimumDistance,
+			PolygonCoverageGrid obstacles) {
+		
 		List<VectorXZ> result = new ArrayList<VectorXZ>();
 
 		Random rand = new Random(seed);
 		
-		AxisAlignedBoundingBoxXZ outerBox = new AxisAlignedBoundingBoxXZ(
-				polygonWithHolesXZ.getOuter().getVertices());
+		AxisAlignedBoundingBoxXZ outerBox =
+				polygonWithHolesXZ.getOuter().getAxisAlignedBoundingBoxXZ();
+		
+		PolygonCoverageGrid polygonGrid = new PolygonCoverageGrid(
+				Collections.singletonList(polygonWithHolesXZ));
 		
 		double boxSize = sqrt(100 / density);
 		
@@ -533,23 +561,36 @@ public final class GeometryUtil {
 					continue;
 				}
 				
-				if (!polygonWithHolesXZ.contains(box.polygonXZ())
-						&& !polygonWithHolesXZ.intersects(box.polygonXZ())) {
+				Coverage polygonCoverage = polygonGrid.getCoverage(box);
+				
+				if (polygonCoverage == Coverage.UNCOVERED) {
 					continue;
 				}
 				
+				Coverage obstacleCoverage = (obstacles == null)
+						? Coverage.UNCOVERED : obstacles.getCoverage(box);
+				
+				/* random numbers are also calculated for points which are
+				 * certainly rejected, so the following boxes' points
+				 * don't depend on the obstacles */
+				
 				for (int i = 0; i < POINTS_PER_BOX; ++i) {
 					
 					double x = box.minX + boxSize * rand.nextDouble();
 					double z = box.minZ + boxSize * rand.nextDouble();
 					
-					VectorXZ v = new VectorXZ(x, z);
+					if (obstacleCoverage == Coverage.COVERED) {
+						continue;
+					}
 					
-					if (polygonWithHolesXZ.contains(v)) {
+					if ((polygonCoverage == Coverage.COVERED
+								|| polygonGrid.covers(x, z))
+							&& (obstacleCoverage == Coverage.UNCOVERED
+								|| !obstacles.covers(x, z))) {
 						
 						//TODO: check minimumDistance
 						
-						result.add(v);
+						result.add(new VectorXZ(x, z));
 						
 					}
 					
@@ -0,0 +1,215 @@
+package org.osm2world.core.math;
+
+import static java.lang.Math.*;
+
+import java.util.List;
+
+/**
+ * the vertex loop of a {@link PolygonXZ}, with coordinates stored
+ * in a single array. Offers queries that don't create any
+ * {@link VectorXZ} or {@link LineSegmentXZ} objects.
+ *
+ * The results are identical to those of the equivalent methods
+ * working with vectors, such as
+ * {@link GeometryUtil#getTrueLineSegmentIntersection(VectorXZ, VectorXZ, VectorXZ, VectorXZ)}.
+ */
+final class PackedVertexLoop {
+	
+	/** see the EPSILON in {@link GeometryUtil} */
+	private static final double EPSILON = 0.0001f;
+	
+	/**
+	 * x and z coordinates of the vertex loop, alternating.
+	 * First and last vertex are equal.
+	 */
+	private final double[] coords;
+	
+	/** number of vertices in the loop, including the duplicated vertex */
+	private final int loopSize;
+	
+	final double minX, minZ, maxX, maxZ;
+	
+	PackedVertexLoop(List<VectorXZ> vertexLoop) {
+		
+		loopSize = vertexLoop.size();
+		coords = new double[2 * loopSize];
+		
+		double minX = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+		
+		for (int i = 0; i < loopSize; i++) {
+			
+			VectorXZ v = vertexLoop.get(i);
+			
+			coords[2*i] = v.x;
+			coords[2*i+1] = v.z;
+			
+			minX = min(minX, v.x); minZ = min(minZ, v.z);
+			maxX = max(maxX, v.x); maxZ = max(maxZ, v.z);
+			
+		}
+		
+		this.minX = minX; this.minZ = minZ;
+		this.maxX = maxX; this.maxZ = maxZ;
+		
+	}
+	
+	/**
+	 * checks whether the polygon's bounding box overlaps another box
+	 */
+	boolean overlapsBox(double minX, double minZ, double maxX, double maxZ) {
+		return minX <= this.maxX && maxX >= this.minX
+				&& minZ <= this.maxZ && maxZ >= this.minZ;
+	}
+	
+	/**
+	 * checks whether the polygon contains a position,
+	 * see {@link SimplePolygonXZ#contains(List, VectorXZ)}
+	 */
+	boolean contains(double x, double z) {
+		
+		if (x < minX || x > maxX || z < minZ || z > maxZ) {
+			return false;
+		}
+		
+		boolean c = false;
+		
+		for (int i = 0, j = loopSize - 1; i < loopSize; j = i++) {
+			
+			double xi = coords[2*i], zi = coords[2*i+1];
+			double xj = coords[2*j], zj = coords[2*j+1];
+			
+			if (((zi > z) != (zj > z))
+					&& (x < (xj - xi) * (z - zi) / (zj - zi) + xi)) {
+				c = !c;
+			}
+			
+		}
+		
+		return c;
+		
+	}
+	
+	/**
+	 * checks whether a line segment intersects any of the polygon's
+	 * segments, ignoring intersections at shared end points.
+	 * See {@link GeometryUtil#getTrueLineSegmentIntersection(VectorXZ, VectorXZ, VectorXZ, VectorXZ)}
+	 */
+	boolean intersects(double ax1, double az1, double ax2, double az2) {
+		
+		if (!overlapsBox(min(ax1, ax2), min(az1, az2),
+				max(ax1, ax2), max(az1, az2))) {
+			return false;
+		}
+		
+		for (int i = 0; i + 1 < loopSize; i++) {
+			if (segmentIntersects(ax1, az1, ax2, az2, i)) {
+				return true;
+			}
+		}
+		
+		return false;
+		
+	}
+	
+	/**
+	 * checks whether any of the polygon's segments intersect
+	 * any of another polygon's segments
+	 */
+	boolean intersects(PackedVertexLoop other) {
+		
+		if (!overlapsBox(other.minX, other.minZ, other.maxX, other.maxZ)) {
+			return false;
+		}
+		
+		for (int i = 0; i + 1 < loopSize; i++) {
+			if (other.intersects(coords[2*i], coords[2*i+1],
+					coords[2*i+2], coords[2*i+3])) {
+				return true;
+			}
+		}
+		
+		return false;
+		
+	}
+	
+	/**
+	 * checks whether a line segment intersects the polygon segment
+	 * starting at a vertex index
+	 */
+	boolean segmentIntersects(double ax1, double az1, double ax2, double az2,
+			int index) {
+		return getIntersectionParameter(ax1, az1, ax2, az2, index) >= 0;
+	}
+	
+	/**
+	 * returns the position of the intersection with the polygon segment
+	 * starting at a vertex index as a parameter t, so the intersection
+	 * is at a1 + t * (a2 - a1). Returns a negative value if there is
+	 * no intersection or if the segments share an end point.
+	 */
+	double getIntersectionParameter(double ax1, double az1, double ax2, double az2,
+			int index) {
+		
+		double bx1 = coords[2*index], bz1 = coords[2*index+1];
+		double bx2 = coords[2*index+2], bz2 = coords[2*index+3];
+		
+		if ((ax1 == bx1 && az1 == bz1) || (ax1 == bx2 && az1 == bz2)
+				|| (ax2 == bx1 && az2 == bz1) || (ax2 == bx2 && az2 == bz2)) {
+			return -1;
+		}
+		
+		double vx = ax2 - ax1;
+		double vz = az2 - az1;
+		double qx = bx2 - bx1;
+		double qz = bz2 - bz1;
+		
+		double denom = vz*qx - vx*qz;
+		if (denom <= EPSILON && denom >= -EPSILON) { return -1; }
+		
+		denom = 1/denom;
+		
+		double amcx = bx1 - ax1;
+		double amcz = bz1 - az1;
+		
+		double t = (amcz*qx - amcx*qz)*denom;
+		if (t < 0 || t > 1) { return -1; }
+		
+		double s = (amcz*vx - amcx*vz)*denom;
+		if (s < 0 || s > 1) { return -1; }
+		
+		return t;
+		
+	}
+	
+	/**
+	 * returns the distance of a point to the polygon segment
+	 * starting at a vertex index,
+	 * see {@link GeometryUtil#distanceFromLineSegment(VectorXZ, LineSegmentXZ)}
+	 */
+	double distanceFromSegment(double x, double z, int index) {
+		
+		double x1 = coords[2*index], z1 = coords[2*index+1];
+		double x2 = coords[2*index+2], z2 = coords[2*index+3];
+		
+		if (x1 == x2 && z1 == z2) {
+			return sqrt((x - x1) * (x - x1) + (z - z1) * (z - z1));
+		}
+		
+		double lengthSquared = (x2 - x1) * (x2 - x1) + (z2 - z1) * (z2 - z1);
+		
+		double r = ((x - x1) * (x2 - x1) + (z - z1) * (z2 - z1)) / lengthSquared;
+		
+		if (r <= 0.0) {
+			return sqrt((x - x1) * (x - x1) + (z - z1) * (z - z1));
+		} else if (r >= 1.0) {
+			return sqrt((x - x2) * (x - x2) + (z - z2) * (z - z2));
+		}
+		
+		double s = ((z1 - z) * (x2 - x1) - (x1 - x) * (z2 - z1)) / lengthSquared;
+		
+		return abs(s) * sqrt(lengthSquared);
+		
+	}
+	
+}
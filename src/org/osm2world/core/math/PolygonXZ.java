@@ -1,6 +1,6 @@
 package org.osm2world.core.math;
 
-import static org.osm2world.core.math.GeometryUtil.distanceFromLineSegment;
+import static java.lang.Math.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -14,6 +14,12 @@ public class PolygonXZ {
 
 	/** polygon vertices; first and last vertex are equal */
 	protected final List<VectorXZ> vertexLoop;
+	
+	/** stores the result for {@link #isSelfIntersecting()} */
+	private Boolean selfIntersecting;
+	
+	/** stores the result for {@link #getPackedVertexLoop()} */
+	private PackedVertexLoop packedVertexLoop;
 		
 	/**
 	 * @param vertexLoop  vertices defining the polygon;
@@ -91,6 +97,26 @@ public class PolygonXZ {
 		return getVertex((index + size() - 1) % size());
 	}
 	
+	/**
+	 * returns the vertex loop with packed coordinates,
+	 * used for queries that shouldn't create temporary objects
+	 */
+	PackedVertexLoop getPackedVertexLoop() {
+		if (packedVertexLoop == null) {
+			packedVertexLoop = new PackedVertexLoop(vertexLoop);
+		}
+		return packedVertexLoop;
+	}
+	
+	/**
+	 * returns the smallest bounding box containing all vertices
+	 */
+	public AxisAlignedBoundingBoxXZ getAxisAlignedBoundingBoxXZ() {
+		PackedVertexLoop packed = getPackedVertexLoop();
+		return new AxisAlignedBoundingBoxXZ(
+				packed.minX, packed.minZ, packed.maxX, packed.maxZ);
+	}
+	
 	public List<LineSegmentXZ> getSegments() {
 		List<LineSegmentXZ> segments = new ArrayList<LineSegmentXZ>(vertexLoop.size());
 		for (int i=0; i+1 < vertexLoop.size(); i++) {
@@ -104,18 +130,25 @@ public class PolygonXZ {
 	 */
 	public LineSegmentXZ getClosestSegment(VectorXZ point) {
 		
-		LineSegmentXZ closestSegment = null;
+		PackedVertexLoop packed = getPackedVertexLoop();
+		
+		int closestSegmentIndex = -1;
 		double closestDistance = Double.MAX_VALUE;
 		
-		for (LineSegmentXZ segment : getSegments()) {
-			double distance = distanceFromLineSegment(point, segment);
+		for (int i=0; i+1<vertexLoop.size(); i++) {
+			double distance = packed.distanceFromSegment(point.x, point.z, i);
 			if (distance < closestDistance) {
-				closestSegment = segment;
+				closestSegmentIndex = i;
 				closestDistance = distance;
 			}
 		}
 		
-		return closestSegment;
+		if (closestSegmentIndex < 0) {
+			return null;
+		} else {
+			return new LineSegmentXZ(vertexLoop.get(closestSegmentIndex),
+					vertexLoop.get(closestSegmentIndex + 1));
+		}
 		
 	}
 	
@@ -124,22 +157,8 @@ public class PolygonXZ {
 	 * and the line segment defined by the parameter
 	 */
 	public boolean intersects(VectorXZ segmentP1, VectorXZ segmentP2) {
-		//TODO: (performance): passing "vector TO second point", rather than point2, would avoid having to calc it here - and that information could be reused for all comparisons involving the segment
-
-		for (int i=0; i+1<vertexLoop.size(); i++) {
-			
-			VectorXZ intersection = GeometryUtil.getTrueLineSegmentIntersection(
-					segmentP1, segmentP2,
-					vertexLoop.get(i), vertexLoop.get(i+1)
-					);
-			
-			if (intersection != null) {
-				return true;
-			}
-			
-		}
-		
-		return false;
+		return getPackedVertexLoop().intersects(
+				segmentP1.x, segmentP1.z, segmentP2.x, segmentP2.z);
 	}
 
 	public boolean intersects(LineSegmentXZ lineSegment) {
@@ -154,29 +173,28 @@ public class PolygonXZ {
 
 		//TODO (performance): currently performs pairwise intersection checks for sides of this and other - this might not be the fastest method
 		
-		for (int i=0; i+1<vertexLoop.size(); i++) {
-			if (outlinePolygonXZ.intersects(vertexLoop.get(i), vertexLoop.get(i+1))) {
-				return true;
-			}
-		}
-		
-		return false;
+		return getPackedVertexLoop().intersects(
+				outlinePolygonXZ.getPackedVertexLoop());
 	}
 
 	public Collection<LineSegmentXZ> intersectionSegments(
 			LineSegmentXZ lineSegment) {
 
 		List<LineSegmentXZ> intersectionSegments = new ArrayList<LineSegmentXZ>();
-
-		for (LineSegmentXZ polygonSegment : getSegments()) {
-			
-			VectorXZ intersection = GeometryUtil.getTrueLineSegmentIntersection(
-					lineSegment.p1, lineSegment.p2,
-					polygonSegment.p1, polygonSegment.p2
-					);
+		
+		VectorXZ p1 = lineSegment.p1;
+		VectorXZ p2 = lineSegment.p2;
+		
+		PackedVertexLoop packed = getPackedVertexLoop();
+		
+		if (packed.overlapsBox(min(p1.x, p2.x), min(p1.z, p2.z),
+				max(p1.x, p2.x), max(p1.z, p2.z))) {
 			
-			if (intersection != null) {
-				intersectionSegments.add(polygonSegment);
+			for (int i=0; i+1<vertexLoop.size(); i++) {
+				if (packed.segmentIntersects(p1.x, p1.z, p2.x, p2.z, i)) {
+					intersectionSegments.add(new LineSegmentXZ(
+							vertexLoop.get(i), vertexLoop.get(i+1)));
+				}
 			}
 			
 		}
@@ -189,16 +207,28 @@ public class PolygonXZ {
 			LineSegmentXZ lineSegment) {
 		
 		List<VectorXZ> intersectionPositions = new ArrayList<VectorXZ>();
-
-		for (int i=0; i+1<vertexLoop.size(); i++) {
+		
+		VectorXZ p1 = lineSegment.p1;
+		VectorXZ p2 = lineSegment.p2;
+		
+		PackedVertexLoop packed = getPackedVertexLoop();
+		
+		if (packed.overlapsBox(min(p1.x, p2.x), min(p1.z, p2.z),
+				max(p1.x, p2.x), max(p1.z, p2.z))) {
 			
-			VectorXZ intersection = GeometryUtil.getTrueLineSegmentIntersection(
-					lineSegment.p1, lineSegment.p2,
-					vertexLoop.get(i), vertexLoop.get(i+1)
-					);
+			double vx = p2.x - p1.x;
+			double vz = p2.z - p1.z;
 			
-			if (intersection != null) {
-				intersectionPositions.add(intersection);
+			for (int i=0; i+1<vertexLoop.size(); i++) {
+				
+				double t = packed.getIntersectionParameter(
+						p1.x, p1.z, p2.x, p2.z, i);
+				
+				if (t >= 0) {
+					intersectionPositions.add(new VectorXZ(
+							p1.x + t * vx, p1.z + t * vz));
+				}
+				
 			}
 			
 		}
@@ -211,7 +241,10 @@ public class PolygonXZ {
 	 * returns whether this polygon is self-intersecting
 	 */
 	public boolean isSelfIntersecting() {
-		return isSelfIntersecting(vertexLoop);
+		if (selfIntersecting == null) {
+			selfIntersecting = isSelfIntersecting(vertexLoop);
+		}
+		return selfIntersecting;
 	}
 	
 	/**
@@ -353,7 +386,18 @@ public class PolygonXZ {
 	 * Only works if it actually {@link #isSimple()}!
 	 */
 	public SimplePolygonXZ asSimplePolygon() {
-		return new SimplePolygonXZ(vertexLoop);
+		
+		/* uses the cached result of the self-intersection test,
+		 * so calling isSimple() first doesn't cause a second test */
+		
+		if (isSelfIntersecting()) {
+			throw new InvalidGeometryException(
+					"polygon must not be self-intersecting\n"
+					+ "Polygon vertices: " + vertexLoop);
+		}
+		
+		return new SimplePolygonXZ(vertexLoop, false);
+		
 	}
 
 	/**
@@ -1,7 +1,6 @@
 package org.osm2world.core.math;
 
 import static java.lang.Math.min;
-import static org.osm2world.core.math.GeometryUtil.distanceFromLineSegment;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -28,12 +27,25 @@ public class SimplePolygonXZ extends PolygonXZ {
 	 *                                   or produces invalid area calculation results
 	 */
 	public SimplePolygonXZ(List<VectorXZ> vertexLoop) {
+		this(vertexLoop, true);
+	}
+	
+	/**
+	 * @param checkSelfIntersection  false to skip the test for
+	 *        self-intersections. Only allowed for vertex loops that are
+	 *        known to be simple, e.g. because they are derived from
+	 *        another {@link SimplePolygonXZ} by reversing or shifting it.
+	 */
+	SimplePolygonXZ(List<VectorXZ> vertexLoop, boolean checkSelfIntersection) {
 		
 		super(vertexLoop);
 		
 		assertLoopLength(vertexLoop);
-		assertNotSelfIntersecting(vertexLoop);
-				
+		
+		if (checkSelfIntersection) {
+			assertNotSelfIntersecting(vertexLoop);
+		}
+		
 	}
 
 	private void calculateArea() {
@@ -157,9 +169,20 @@ public class SimplePolygonXZ extends PolygonXZ {
 	
 	@Override
 	public SimplePolygonXZ reverse() {
+		
 		List<VectorXZ> newVertexLoop = new ArrayList<VectorXZ>(vertexLoop);
 		Collections.reverse(newVertexLoop);
-		return new SimplePolygonXZ(newVertexLoop);
+		
+		SimplePolygonXZ result = new SimplePolygonXZ(newVertexLoop, false);
+		
+		if (signedArea != null) {
+			result.signedArea = -signedArea;
+			result.area = area;
+			result.clockwise = !clockwise;
+		}
+		
+		return result;
+		
 	}
 
 	/**
@@ -174,7 +197,7 @@ public class SimplePolygonXZ extends PolygonXZ {
 			}
 		}
 		newVertexLoop.add(newVertexLoop.get(0));
-		return new SimplePolygonXZ(newVertexLoop);
+		return new SimplePolygonXZ(newVertexLoop, false);
 	}
 	
 	/**
@@ -204,7 +227,7 @@ public class SimplePolygonXZ extends PolygonXZ {
 	 * returns true if the polygon contains a given position
 	 */
 	public boolean contains(VectorXZ test) {
-		return SimplePolygonXZ.contains(vertexLoop, test);
+		return getPackedVertexLoop().contains(test.x, test.z);
 	}
 
 	/**
@@ -225,9 +248,10 @@ public class SimplePolygonXZ extends PolygonXZ {
 	 * Note that the distance can be > 0 even if the polygon contains the point
 	 */
 	public double distanceToSegments(VectorXZ p) {
+		PackedVertexLoop packed = getPackedVertexLoop();
 		double minDistance = Double.MAX_VALUE;
-		for (LineSegmentXZ s : getSegments()) {
-			minDistance = min(minDistance, distanceFromLineSegment(p, s));
+		for (int i=0; i+1 < vertexLoop.size(); i++) {
+			minDistance = min(minDistance, packed.distanceFromSegment(p.x, p.z, i));
 		}
 		return minDistance;
 	}
@@ -14,6 +14,10 @@ import org.osm2world.core.math.SimplePolygonXZ;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryCollection;
 import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.TopologyException;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.operation.union.CascadedPolygonUnion;
 
 /**
  * utility class for Constructive Area Geometry (CAG),
@@ -31,6 +35,10 @@ public final class CAGUtil {
 	 * within the original polygon (excluding its holes),
 	 * but not within a subtracted polygon.
 	 * 
+	 * The subtracted polygons which intersect the original polygon are
+	 * combined into a single geometry first (using a cascaded union),
+	 * so only a single difference operation is necessary.
+	 * 
 	 * @return
 	 * 	 polygons without self-intersections, but maybe with holes
 	 */
@@ -38,6 +46,57 @@ public final class CAGUtil {
 			SimplePolygonXZ basePolygon,
 			List<? extends SimplePolygonXZ> subtractPolygons) {
 		
+		Polygon jtsBasePolygon = polygonXZToJTSPolygon(basePolygon);
+		
+		/* ignore subtracted polygons which don't intersect the base polygon,
+		 * preparing it makes these tests fast for large polygons */
+		
+		PreparedGeometry preparedBasePolygon =
+				PreparedGeometryFactory.prepare(jtsBasePolygon);
+		
+		List<Geometry> relevantPolygons = new ArrayList<Geometry>();
+		
+		for (SimplePolygonXZ subtractPolygon : subtractPolygons) {
+			
+			Polygon jtsSubtractPolygon = polygonXZToJTSPolygon(subtractPolygon);
+			
+			if (preparedBasePolygon.intersects(jtsSubtractPolygon)) {
+				relevantPolygons.add(jtsSubtractPolygon);
+			}
+			
+		}
+		
+		if (relevantPolygons.isEmpty()) {
+			return polygonsXZFromJTSGeometry(jtsBasePolygon);
+		}
+		
+		/* subtract the union of the remaining polygons */
+		
+		try {
+			
+			Geometry subtractUnion = CascadedPolygonUnion.union(relevantPolygons);
+			
+			return polygonsXZFromJTSGeometry(
+					jtsBasePolygon.difference(subtractUnion));
+			
+		} catch (TopologyException e) {
+			
+			return subtractPolygonsSequentially(basePolygon, subtractPolygons);
+			
+		}
+		
+	}
+	
+	/**
+	 * variant of {@link #subtractPolygons(SimplePolygonXZ, List)} which
+	 * subtracts the polygons one after another. This is much slower for
+	 * many subtracted polygons, but is used as a fallback if the union
+	 * of the subtracted polygons cannot be calculated.
+	 */
+	public static final Collection<PolygonWithHolesXZ> subtractPolygonsSequentially(
+			SimplePolygonXZ basePolygon,
+			List<? extends SimplePolygonXZ> subtractPolygons) {
+		
 		List<Geometry> remainingGeometry = Collections.singletonList(
 				(Geometry)polygonXZToJTSPolygon(basePolygon));
 		
@@ -0,0 +1,898 @@
+package org.osm2world.core.math.algorithms;
+
+import static java.lang.Math.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.osm2world.core.math.SimplePolygonXZ;
+import org.osm2world.core.math.TriangleXZ;
+import org.osm2world.core.math.VectorXZ;
+
+/**
+ * ear clipping triangulation for large polygons with holes,
+ * based on the algorithm of the "earcut" JavaScript library.
+ *
+ * Unlike {@link EarClippingTriangulationUtil}, vertices are stored
+ * in a doubly linked ring, so clipping an ear takes constant time.
+ * For polygons with many vertices, the vertices are additionally linked
+ * in the order of a z-order curve, which limits the tests whether an ear
+ * contains other vertices to vertices near the ear.
+ * Holes are joined with the outline by bridges to the closest visible
+ * outline vertex, starting with the leftmost hole.
+ *
+ * Degenerate or self-intersecting input does not cause exceptions,
+ * but can result in triangles that don't cover the polygon exactly.
+ */
+public final class EarcutTriangulationUtil {
+	
+	/** polygons with more vertices than this use z-order hashing */
+	private static final int MIN_HASHED_VERTICES = 80;
+	
+	private EarcutTriangulationUtil() { }
+	
+	/**
+	 * triangulates a polygon with holes.
+	 * The result uses the polygons' {@link VectorXZ} instances as vertices
+	 * and contains counterclockwise triangles.
+	 */
+	public static final List<TriangleXZ> triangulate(
+			SimplePolygonXZ polygon,
+			Collection<SimplePolygonXZ> holes) {
+		
+		/* collect all vertices in one array */
+		
+		int vertexCount = polygon.size();
+		
+		for (SimplePolygonXZ hole : holes) {
+			vertexCount += hole.size();
+		}
+		
+		VectorXZ[] vertices = new VectorXZ[vertexCount];
+		
+		int index = 0;
+		
+		for (VectorXZ v : polygon.getVertices()) {
+			vertices[index++] = v;
+		}
+		
+		/* build the linked rings */
+		
+		Node outerNode = createRing(vertices, 0, polygon.size(), true);
+		
+		if (outerNode == null || outerNode.next == outerNode.prev) {
+			return Collections.emptyList();
+		}
+		
+		if (!holes.isEmpty()) {
+			
+			List<Node> holeNodes = new ArrayList<Node>(holes.size());
+			
+			for (SimplePolygonXZ hole : holes) {
+				
+				int start = index;
+				
+				for (VectorXZ v : hole.getVertices()) {
+					vertices[index++] = v;
+				}
+				
+				Node holeNode = createRing(vertices, start, index, false);
+				
+				if (holeNode != null) {
+					if (holeNode == holeNode.next) {
+						holeNode.steiner = true;
+					}
+					holeNodes.add(getLeftmost(holeNode));
+				}
+				
+			}
+			
+			outerNode = eliminateHoles(holeNodes, outerNode);
+			
+		}
+		
+		/* calculate the parameters for z-order hashing */
+		
+		Triangulation triangulation = new Triangulation(vertices);
+		
+		if (vertexCount > MIN_HASHED_VERTICES) {
+			
+			double minX = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+			
+			for (VectorXZ v : polygon.getVertices()) {
+				minX = min(minX, v.x);
+				minZ = min(minZ, v.z);
+				maxX = max(maxX, v.x);
+				maxZ = max(maxZ, v.z);
+			}
+			
+			double size = max(maxX - minX, maxZ - minZ);
+			
+			triangulation.minX = minX;
+			triangulation.minZ = minZ;
+			triangulation.invSize = size != 0 ? 32767 / size : 0;
+			
+		}
+		
+		triangulation.earcutLinked(outerNode, 0);
+		
+		return triangulation.result;
+		
+	}
+	
+	/**
+	 * vertex in a linked ring
+	 */
+	private static final class Node {
+		
+		/** index in the vertex array */
+		final int i;
+		
+		final double x;
+		final double z;
+		
+		Node prev;
+		Node next;
+		
+		/** position on the z-order curve */
+		int zOrder = 0;
+		
+		Node prevZ;
+		Node nextZ;
+		
+		/** true for holes consisting of a single point */
+		boolean steiner = false;
+		
+		Node(int i, double x, double z) {
+			this.i = i;
+			this.x = x;
+			this.z = z;
+		}
+		
+	}
+	
+	/**
+	 * state of a single triangulation
+	 */
+	private static final class Triangulation {
+		
+		final VectorXZ[] vertices;
+		final List<TriangleXZ> result;
+		
+		double minX = 0;
+		double minZ = 0;
+		
+		/** scale factor for z-order hashing, 0 if hashing is not used */
+		double invSize = 0;
+		
+		Triangulation(VectorXZ[] vertices) {
+			this.vertices = vertices;
+			this.result = new ArrayList<TriangleXZ>(vertices.length);
+		}
+		
+		void addTriangle(Node a, Node b, Node c) {
+			result.add(new TriangleXZ(vertices[a.i], vertices[b.i], vertices[c.i])
+					.makeCounterclockwise());
+		}
+		
+		/**
+		 * main ear slicing loop. If no ears are found, the ring is first
+		 * cleaned up, then local self-intersections are removed,
+		 * and finally the ring is split into two.
+		 */
+		void earcutLinked(Node ear, int pass) {
+			
+			if (ear == null) return;
+			
+			if (pass == 0 && invSize != 0) {
+				indexCurve(ear);
+			}
+			
+			Node stop = ear;
+			
+			while (ear.prev != ear.next) {
+				
+				Node prev = ear.prev;
+				Node next = ear.next;
+				
+				if (invSize != 0 ? isEarHashed(ear) : isEar(ear)) {
+					
+					addTriangle(prev, ear, next);
+					
+					removeNode(ear);
+					
+					/* skipping the next vertex leads to less sliver triangles */
+					ear = next.next;
+					stop = next.next;
+					
+					continue;
+					
+				}
+				
+				ear = next;
+				
+				if (ear == stop) {
+					
+					if (pass == 0) {
+						earcutLinked(filterPoints(ear, null), 1);
+					} else if (pass == 1) {
+						ear = cureLocalIntersections(filterPoints(ear, null));
+						earcutLinked(ear, 2);
+					} else if (pass == 2) {
+						splitEarcut(ear);
+					}
+					
+					break;
+					
+				}
+				
+			}
+			
+		}
+		
+		boolean isEarHashed(Node ear) {
+			
+			Node a = ear.prev;
+			Node b = ear;
+			Node c = ear.next;
+			
+			if (area(a, b, c) >= 0) return false; // reflex, can't be an ear
+			
+			double x0 = min(a.x, min(b.x, c.x));
+			double z0 = min(a.z, min(b.z, c.z));
+			double x1 = max(a.x, max(b.x, c.x));
+			double z1 = max(a.z, max(b.z, c.z));
+			
+			int minZOrder = zOrder(x0, z0);
+			int maxZOrder = zOrder(x1, z1);
+			
+			/* look for points inside the triangle in both directions */
+			
+			Node p = ear.prevZ;
+			Node n = ear.nextZ;
+			
+			while (p != null && p.zOrder >= minZOrder
+					&& n != null && n.zOrder <= maxZOrder) {
+				
+				if (isInsideEar(p, a, b, c, x0, z0, x1, z1)) return false;
+				p = p.prevZ;
+				
+				if (isInsideEar(n, a, b, c, x0, z0, x1, z1)) return false;
+				n = n.nextZ;
+				
+			}
+			
+			while (p != null && p.zOrder >= minZOrder) {
+				if (isInsideEar(p, a, b, c, x0, z0, x1, z1)) return false;
+				p = p.prevZ;
+			}
+			
+			while (n != null && n.zOrder <= maxZOrder) {
+				if (isInsideEar(n, a, b, c, x0, z0, x1, z1)) return false;
+				n = n.nextZ;
+			}
+			
+			return true;
+			
+		}
+		
+		/**
+		 * creates the z-order links between the nodes of a ring
+		 */
+		void indexCurve(Node start) {
+			
+			Node p = start;
+			
+			do {
+				if (p.zOrder == 0) {
+					p.zOrder = zOrder(p.x, p.z);
+				}
+				p.prevZ = p.prev;
+				p.nextZ = p.next;
+				p = p.next;
+			} while (p != start);
+			
+			p.prevZ.nextZ = null;
+			p.prevZ = null;
+			
+			sortLinked(p);
+			
+		}
+		
+		/**
+		 * calculates the position of a point on the z-order curve
+		 */
+		int zOrder(double px, double pz) {
+			
+			int x = (int) ((px - minX) * invSize);
+			int z = (int) ((pz - minZ) * invSize);
+			
+			x = (x | (x << 8)) & 0x00FF00FF;
+			x = (x | (x << 4)) & 0x0F0F0F0F;
+			x = (x | (x << 2)) & 0x33333333;
+			x = (x | (x << 1)) & 0x55555555;
+			
+			z = (z | (z << 8)) & 0x00FF00FF;
+			z = (z | (z << 4)) & 0x0F0F0F0F;
+			z = (z | (z << 2)) & 0x33333333;
+			z = (z | (z << 1)) & 0x55555555;
+			
+			return x | (z << 1);
+			
+		}
+		
+		/**
+		 * tries to clip ears formed by local self-intersections
+		 */
+		Node cureLocalIntersections(Node start) {
+			
+			Node p = start;
+			
+			do {
+				
+				Node a = p.prev;
+				Node b = p.next.next;
+				
+				if (!samePosition(a, b) && intersects(a, p, p.next, b)
+						&& locallyInside(a, b) && locallyInside(b, a)) {
+					
+					addTriangle(a, p, b);
+					
+					removeNode(p);
+					removeNode(p.next);
+					
+					p = start = b;
+					
+				}
+				
+				p = p.next;
+				
+			} while (p != start);
+			
+			return filterPoints(p, null);
+			
+		}
+		
+		/**
+		 * splits the ring along a valid diagonal
+		 * and triangulates the two halves separately
+		 */
+		void splitEarcut(Node start) {
+			
+			Node a = start;
+			
+			do {
+				
+				Node b = a.next.next;
+				
+				while (b != a.prev) {
+					
+					if (a.i != b.i && isValidDiagonal(a, b)) {
+						
+						Node c = splitPolygon(a, b);
+						
+						a = filterPoints(a, a.next);
+						c = filterPoints(c, c.next);
+						
+						earcutLinked(a, 0);
+						earcutLinked(c, 0);
+						
+						return;
+						
+					}
+					
+					b = b.next;
+					
+				}
+				
+				a = a.next;
+				
+			} while (a != start);
+			
+		}
+		
+	}
+	
+	/**
+	 * creates a linked ring from a range of the vertex array
+	 *
+	 * @param outer  true for the outer ring, false for holes;
+	 *               determines the orientation of the ring
+	 */
+	private static Node createRing(VectorXZ[] vertices, int start, int end,
+			boolean outer) {
+		
+		double signedArea = 0;
+		
+		for (int i = start, j = end - 1; i < end; j = i++) {
+			signedArea += (vertices[j].x - vertices[i].x)
+					* (vertices[i].z + vertices[j].z);
+		}
+		
+		Node last = null;
+		
+		if (outer == (signedArea > 0)) {
+			for (int i = start; i < end; i++) {
+				last = insertNode(i, vertices[i], last);
+			}
+		} else {
+			for (int i = end - 1; i >= start; i--) {
+				last = insertNode(i, vertices[i], last);
+			}
+		}
+		
+		if (last != null && samePosition(last, last.next)) {
+			removeNode(last);
+			last = last.next;
+		}
+		
+		return last;
+		
+	}
+	
+	/**
+	 * removes duplicate and collinear points from a ring
+	 *
+	 * @param end  node where processing stops; null to use start
+	 */
+	private static Node filterPoints(Node start, Node end) {
+		
+		if (start == null) return start;
+		if (end == null) end = start;
+		
+		Node p = start;
+		boolean again;
+		
+		do {
+			
+			again = false;
+			
+			if (!p.steiner && (samePosition(p, p.next) || area(p.prev, p, p.next) == 0)) {
+				
+				removeNode(p);
+				p = end = p.prev;
+				
+				if (p == p.next) break;
+				
+				again = true;
+				
+			} else {
+				p = p.next;
+			}
+			
+		} while (again || p != end);
+		
+		return end;
+		
+	}
+	
+	/**
+	 * checks whether an ear is valid by testing all other vertices
+	 * (used for small polygons without z-order hashing)
+	 */
+	private static boolean isEar(Node ear) {
+		
+		Node a = ear.prev;
+		Node b = ear;
+		Node c = ear.next;
+		
+		if (area(a, b, c) >= 0) return false; // reflex, can't be an ear
+		
+		double x0 = min(a.x, min(b.x, c.x));
+		double z0 = min(a.z, min(b.z, c.z));
+		double x1 = max(a.x, max(b.x, c.x));
+		double z1 = max(a.z, max(b.z, c.z));
+		
+		for (Node p = c.next; p != a; p = p.next) {
+			if (isInsideEar(p, a, b, c, x0, z0, x1, z1)) return false;
+		}
+		
+		return true;
+		
+	}
+	
+	/**
+	 * checks whether a node prevents a triangle from being an ear
+	 */
+	private static boolean isInsideEar(Node p, Node a, Node b, Node c,
+			double x0, double z0, double x1, double z1) {
+		return p != a && p != c
+				&& p.x >= x0 && p.x <= x1 && p.z >= z0 && p.z <= z1
+				&& pointInTriangle(a.x, a.z, b.x, b.z, c.x, c.z, p.x, p.z)
+				&& area(p.prev, p, p.next) >= 0;
+	}
+	
+	/**
+	 * links each hole into the outer ring, starting with the leftmost hole
+	 */
+	private static Node eliminateHoles(List<Node> holeNodes, Node outerNode) {
+		
+		Collections.sort(holeNodes, new Comparator<Node>() {
+			@Override
+			public int compare(Node a, Node b) {
+				return Double.compare(a.x, b.x);
+			}
+		});
+		
+		for (Node hole : holeNodes) {
+			outerNode = eliminateHole(hole, outerNode);
+		}
+		
+		return outerNode;
+		
+	}
+	
+	private static Node eliminateHole(Node hole, Node outerNode) {
+		
+		Node bridge = findHoleBridge(hole, outerNode);
+		
+		if (bridge == null) {
+			return outerNode;
+		}
+		
+		Node bridgeReverse = splitPolygon(bridge, hole);
+		
+		filterPoints(bridgeReverse, bridgeReverse.next);
+		return filterPoints(bridge, bridge.next);
+		
+	}
+	
+	/**
+	 * finds a vertex of the outer ring which can be connected
+	 * with the leftmost vertex of a hole without crossing other edges
+	 */
+	private static Node findHoleBridge(Node hole, Node outerNode) {
+		
+		double hx = hole.x;
+		double hz = hole.z;
+		double qx = Double.NEGATIVE_INFINITY;
+		
+		Node m = null;
+		
+		/* find a segment intersected by a ray from the hole's leftmost
+		 * point to the left, the segment's endpoint with the lower x value
+		 * is a potential connection point */
+		
+		Node p = outerNode;
+		
+		do {
+			
+			if (hz <= p.z && hz >= p.next.z && p.next.z != p.z) {
+				
+				double x = p.x + (hz - p.z) * (p.next.x - p.x) / (p.next.z - p.z);
+				
+				if (x <= hx && x > qx) {
+					
+					qx = x;
+					m = p.x < p.next.x ? p : p.next;
+					
+					if (x == hx) {
+						return m; // hole touches the outer segment
+					}
+					
+				}
+				
+			}
+			
+			p = p.next;
+			
+		} while (p != outerNode);
+		
+		if (m == null) return null;
+		
+		/* look for points inside the triangle of the hole point,
+		 * the segment intersection and the endpoint. If there are any,
+		 * use the one with the minimum angle to the ray as connection point */
+		
+		Node stop = m;
+		double mx = m.x;
+		double mz = m.z;
+		double tanMin = Double.POSITIVE_INFINITY;
+		
+		p = m;
+		
+		do {
+			
+			if (hx >= p.x && p.x >= mx && hx != p.x
+					&& pointInTriangle(hz < mz ? hx : qx, hz, mx, mz,
+							hz < mz ? qx : hx, hz, p.x, p.z)) {
+				
+				double tan = abs(hz - p.z) / (hx - p.x);
+				
+				if (locallyInside(p, hole)
+						&& (tan < tanMin || (tan == tanMin && (p.x > m.x
+								|| (p.x == m.x && sectorContainsSector(m, p)))))) {
+					m = p;
+					tanMin = tan;
+				}
+				
+			}
+			
+			p = p.next;
+			
+		} while (p != stop);
+		
+		return m;
+		
+	}
+	
+	/**
+	 * checks whether the sector at vertex m contains the sector at vertex p
+	 * (both vertices at the same position)
+	 */
+	private static boolean sectorContainsSector(Node m, Node p) {
+		return area(m.prev, m, p.prev) < 0 && area(p.next, m, m.next) < 0;
+	}
+	
+	/**
+	 * sorts the z-order links of a list by z-order value.
+	 * Uses Simon Tatham's merge sort for linked lists.
+	 */
+	private static Node sortLinked(Node list) {
+		
+		int inSize = 1;
+		int numMerges;
+		
+		do {
+			
+			Node p = list;
+			Node tail = null;
+			list = null;
+			numMerges = 0;
+			
+			while (p != null) {
+				
+				numMerges ++;
+				
+				Node q = p;
+				int pSize = 0;
+				
+				for (int i = 0; i < inSize; i++) {
+					pSize ++;
+					q = q.nextZ;
+					if (q == null) break;
+				}
+				
+				int qSize = inSize;
+				
+				while (pSize > 0 || (qSize > 0 && q != null)) {
+					
+					Node e;
+					
+					if (pSize != 0 && (qSize == 0 || q == null || p.zOrder <= q.zOrder)) {
+						e = p;
+						p = p.nextZ;
+						pSize --;
+					} else {
+						e = q;
+						q = q.nextZ;
+						qSize --;
+					}
+					
+					if (tail != null) {
+						tail.nextZ = e;
+					} else {
+						list = e;
+					}
+					
+					e.prevZ = tail;
+					tail = e;
+					
+				}
+				
+				p = q;
+				
+			}
+			
+			tail.nextZ = null;
+			inSize *= 2;
+			
+		} while (numMerges > 1);
+		
+		return list;
+		
+	}
+	
+	/**
+	 * finds the leftmost node of a ring
+	 */
+	private static Node getLeftmost(Node start) {
+		
+		Node p = start;
+		Node leftmost = start;
+		
+		do {
+			if (p.x < leftmost.x || (p.x == leftmost.x && p.z < leftmost.z)) {
+				leftmost = p;
+			}
+			p = p.next;
+		} while (p != start);
+		
+		return leftmost;
+		
+	}
+	
+	/**
+	 * checks whether a point lies within a triangle
+	 */
+	private static boolean pointInTriangle(double ax, double az,
+			double bx, double bz, double cx, double cz, double px, double pz) {
+		return (cx - px) * (az - pz) >= (ax - px) * (cz - pz)
+				&& (ax - px) * (bz - pz) >= (bx - px) * (az - pz)
+				&& (bx - px) * (cz - pz) >= (cx - px) * (bz - pz);
+	}
+	
+	/**
+	 * checks whether a diagonal between two nodes can be used to split
+	 * the polygon into two parts
+	 */
+	private static boolean isValidDiagonal(Node a, Node b) {
+		return a.next.i != b.i && a.prev.i != b.i && !intersectsPolygon(a, b)
+				&& (locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b)
+						&& (area(a.prev, a, b.prev) != 0 || area(a, b.prev, b) != 0)
+					|| samePosition(a, b) && area(a.prev, a, a.next) > 0
+						&& area(b.prev, b, b.next) > 0);
+	}
+	
+	/**
+	 * signed area of a triangle
+	 */
+	private static double area(Node p, Node q, Node r) {
+		return (q.z - p.z) * (r.x - q.x) - (q.x - p.x) * (r.z - q.z);
+	}
+	
+	private static boolean samePosition(Node p1, Node p2) {
+		return p1.x == p2.x && p1.z == p2.z;
+	}
+	
+	/**
+	 * checks whether two segments intersect
+	 */
+	private static boolean intersects(Node p1, Node q1, Node p2, Node q2) {
+		
+		int o1 = sign(area(p1, q1, p2));
+		int o2 = sign(area(p1, q1, q2));
+		int o3 = sign(area(p2, q2, p1));
+		int o4 = sign(area(p2, q2, q1));
+		
+		if (o1 != o2 && o3 != o4) return true; // general case
+		
+		if (o1 == 0 && onSegment(p1, p2, q1)) return true;
+		if (o2 == 0 && onSegment(p1, q2, q1)) return true;
+		if (o3 == 0 && onSegment(p2, p1, q2)) return true;
+		if (o4 == 0 && onSegment(p2, q1, q2)) return true;
+		
+		return false;
+		
+	}
+	
+	/**
+	 * for collinear points p, q, r, checks whether q lies on segment pr
+	 */
+	private static boolean onSegment(Node p, Node q, Node r) {
+		return q.x <= max(p.x, r.x) && q.x >= min(p.x, r.x)
+				&& q.z <= max(p.z, r.z) && q.z >= min(p.z, r.z);
+	}
+	
+	private static int sign(double value) {
+		return value > 0 ? 1 : value < 0 ? -1 : 0;
+	}
+	
+	/**
+	 * checks whether a diagonal intersects any edge of the polygon
+	 */
+	private static boolean intersectsPolygon(Node a, Node b) {
+		
+		Node p = a;
+		
+		do {
+			if (p.i != a.i && p.next.i != a.i && p.i != b.i && p.next.i != b.i
+					&& intersects(p, p.next, a, b)) {
+				return true;
+			}
+			p = p.next;
+		} while (p != a);
+		
+		return false;
+		
+	}
+	
+	/**
+	 * checks whether a diagonal is locally inside the polygon
+	 */
+	private static boolean locallyInside(Node a, Node b) {
+		if (area(a.prev, a, a.next) < 0) {
+			return area(a, b, a.next) >= 0 && area(a, a.prev, b) >= 0;
+		} else {
+			return area(a, b, a.prev) < 0 || area(a, a.next, b) < 0;
+		}
+	}
+	
+	/**
+	 * checks whether the middle point of a diagonal is inside the polygon
+	 */
+	private static boolean middleInside(Node a, Node b) {
+		
+		Node p = a;
+		boolean inside = false;
+		
+		double px = (a.x + b.x) / 2;
+		double pz = (a.z + b.z) / 2;
+		
+		do {
+			if (((p.z > pz) != (p.next.z > pz)) && p.next.z != p.z
+					&& (px < (p.next.x - p.x) * (pz - p.z) / (p.next.z - p.z) + p.x)) {
+				inside = !inside;
+			}
+			p = p.next;
+		} while (p != a);
+		
+		return inside;
+		
+	}
+	
+	/**
+	 * links two nodes with a bridge, splitting the ring into two.
+	 * If the nodes are in different rings, these are merged instead.
+	 *
+	 * @return  the copy of b in the second ring
+	 */
+	private static Node splitPolygon(Node a, Node b) {
+		
+		Node a2 = new Node(a.i, a.x, a.z);
+		Node b2 = new Node(b.i, b.x, b.z);
+		Node an = a.next;
+		Node bp = b.prev;
+		
+		a.next = b;
+		b.prev = a;
+		
+		a2.next = an;
+		an.prev = a2;
+		
+		b2.next = a2;
+		a2.prev = b2;
+		
+		bp.next = b2;
+		b2.prev = bp;
+		
+		return b2;
+		
+	}
+	
+	/**
+	 * creates a node and inserts it after the previous node
+	 */
+	private static Node insertNode(int i, VectorXZ v, Node last) {
+		
+		Node p = new Node(i, v.x, v.z);
+		
+		if (last == null) {
+			p.prev = p;
+			p.next = p;
+		} else {
+			p.next = last.next;
+			p.prev = last;
+			last.next.prev = p;
+			last.next = p;
+		}
+		
+		return p;
+		
+	}
+	
+	private static void removeNode(Node p) {
+		
+		p.next.prev = p.prev;
+		p.prev.next = p.next;
+		
+		if (p.prevZ != null) p.prevZ.nextZ = p.nextZ;
+		if (p.nextZ != null) p.nextZ.prevZ = p.prevZ;
+		
+	}
+	
+}
@@ -4,7 +4,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-import org.osm2world.core.math.InvalidGeometryException;
 import org.osm2world.core.math.LineSegmentXZ;
 import org.osm2world.core.math.PolygonWithHolesXZ;
 import org.osm2world.core.math.SimplePolygonXZ;
@@ -14,7 +13,7 @@ import org.osm2world.core.math.VectorXZ;
 import com.vividsolutions.jts.triangulate.ConstraintEnforcementException;
 
 /**
- * triangulation utility class that uses {@link EarClippingTriangulationUtil},
+ * triangulation utility class that uses {@link EarcutTriangulationUtil},
  * and, as a fallback, {@link JTSTriangulationUtil}
  */
 public class TriangulationUtil {
@@ -27,23 +26,17 @@ public class TriangulationUtil {
 			Collection<SimplePolygonXZ> holes,
 			Collection<VectorXZ> points) {
 		
-		if (points.isEmpty() && outerPolygon.size() <= 100) {
+		if (points.isEmpty()) {
 			
-			try {
-				
-				return EarClippingTriangulationUtil.triangulate(outerPolygon, holes);
-				
-			} catch (InvalidGeometryException e) {
-				
-				//TODO (error handling): log failed triangulations properly (as info)
-				
-				// e.printStackTrace();
-				// System.err.println("outer: " + outerPolygon);
-				// System.err.println("holes: " + holes);
-				// System.err.println("using JTS triangulation instead");
-				
+			List<TriangleXZ> triangles =
+					EarcutTriangulationUtil.triangulate(outerPolygon, holes);
+			
+			if (coversPolygon(triangles, outerPolygon, holes)) {
+				return triangles;
 			}
 			
+			//TODO (error handling): log failed triangulations properly (as info)
+			
 		}
 		
 		/* use JTS if there are unconnected points, or as a fallback */
@@ -98,5 +91,29 @@ public class TriangulationUtil {
 		return triangulate(polygon.getOuter(), polygon.getHoles());
 		
 	}
+	
+	/**
+	 * checks whether the triangles' total area matches the polygon's area.
+	 * Ear clipping doesn't fail for invalid input (such as intersecting
+	 * holes), but will not produce a complete triangulation in that case.
+	 */
+	private static final boolean coversPolygon(List<TriangleXZ> triangles,
+			SimplePolygonXZ outerPolygon, Collection<SimplePolygonXZ> holes) {
+		
+		double polygonArea = outerPolygon.getArea();
+		
+		for (SimplePolygonXZ hole : holes) {
+			polygonArea -= hole.getArea();
+		}
+		
+		double triangleArea = 0;
+		
+		for (TriangleXZ triangle : triangles) {
+			triangleArea += triangle.getArea();
+		}
+		
+		return Math.abs(triangleArea - polygonArea) <= 1e-6 * outerPolygon.getArea();
+		
+	}
 
 }
\ No newline at end of file
@@ -0,0 +1,327 @@
+package org.osm2world.core.math.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * static 2d tree for nearest neighbor queries on points in the XZ plane.
+ *
+ * The tree is built once from coordinate arrays and cannot be modified
+ * afterwards. It is stored in flat primitive arrays (the median of each
+ * range is the splitting point of the corresponding subtree),
+ * so no objects are allocated per point or per comparison.
+ * Queries do not modify the tree and can be performed
+ * by multiple threads at the same time.
+ *
+ * Points are identified by their index in the arrays
+ * passed to the constructor.
+ */
+public class KdTreeXZ {
+	
+	/** ranges with at most this number of points are searched linearly */
+	private static final int LEAF_SIZE = 8;
+	
+	private final double[] xs;
+	private final double[] zs;
+	private final int[] indices;
+	
+	/**
+	 * builds a tree for the points (x[i], z[i])
+	 *
+	 * @param x  x coordinates of the points; will not be modified
+	 * @param z  z coordinates of the points, same length as x
+	 */
+	public KdTreeXZ(double[] x, double[] z) {
+		this(x, z, checkSameLength(x, z));
+	}
+	
+	/**
+	 * builds a tree for the first count points (x[i], z[i])
+	 *
+	 * @param x      x coordinates of the points; will not be modified
+	 * @param z      z coordinates of the points; will not be modified
+	 * @param count  number of points; not larger than either array's length
+	 */
+	public KdTreeXZ(double[] x, double[] z, int count) {
+		
+		if (count < 0 || count > x.length || count > z.length) {
+			throw new IllegalArgumentException("invalid point count " + count
+					+ " for coordinate arrays of length "
+					+ x.length + " and " + z.length);
+		}
+		
+		xs = Arrays.copyOf(x, count);
+		zs = Arrays.copyOf(z, count);
+		
+		indices = new int[count];
+		
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i;
+		}
+		
+		build(0, indices.length, 0);
+		
+	}
+	
+	/**
+	 * returns the length of both coordinate arrays
+	 *
+	 * @throws IllegalArgumentException  if the lengths are different
+	 */
+	private static int checkSameLength(double[] x, double[] z) {
+		if (x.length != z.length) {
+			throw new IllegalArgumentException("coordinate arrays must have"
+					+ " the same length");
+		}
+		return x.length;
+	}
+	
+	/**
+	 * returns the number of points in the tree
+	 */
+	public int size() {
+		return indices.length;
+	}
+	
+	/**
+	 * finds the k points closest to a position.
+	 *
+	 * @param result  array where the indices of the nearest points will
+	 *                be stored, ordered by ascending distance; length >= k
+	 * @return  number of points found; less than k only if the tree
+	 *          contains less than k points
+	 */
+	public int findNearest(double x, double z, int k, int[] result) {
+		
+		if (result.length < k) {
+			throw new IllegalArgumentException("result array too short");
+		}
+		
+		NearestQuery query = new NearestQuery(x, z, k);
+		
+		search(0, indices.length, 0, query);
+		
+		/* remove the farthest point from the heap until it is empty */
+		
+		int count = query.size;
+		
+		for (int i = count - 1; i >= 0; i--) {
+			result[i] = query.removeFarthest();
+		}
+		
+		return count;
+		
+	}
+	
+	private void build(int start, int end, int depth) {
+		
+		if (end - start <= LEAF_SIZE) return;
+		
+		int median = (start + end) >>> 1;
+		
+		select(start, end - 1, median, depth % 2 == 0 ? xs : zs);
+		
+		build(start, median, depth + 1);
+		build(median + 1, end, depth + 1);
+		
+	}
+	
+	private void search(int start, int end, int depth, NearestQuery query) {
+		
+		if (end - start <= LEAF_SIZE) {
+			
+			for (int i = start; i < end; i++) {
+				query.offer(i);
+			}
+			
+		} else {
+			
+			int median = (start + end) >>> 1;
+			
+			query.offer(median);
+			
+			double diff = depth % 2 == 0
+					? query.x - xs[median]
+					: query.z - zs[median];
+			
+			/* search the side containing the position first,
+			 * then the other side if it could contain closer points */
+			
+			if (diff < 0) {
+				search(start, median, depth + 1, query);
+			} else {
+				search(median + 1, end, depth + 1, query);
+			}
+			
+			if (query.size < query.k || diff * diff < query.getMaxDistanceSquared()) {
+				if (diff < 0) {
+					search(median + 1, end, depth + 1, query);
+				} else {
+					search(start, median, depth + 1, query);
+				}
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * rearranges the range [left, right] so that the element at position n
+	 * is the one that would be there if the range were sorted by the values
+	 * in coords, with lower or equal values before it and higher or equal
+	 * values after it.
+	 */
+	private void select(int left, int right, int n, double[] coords) {
+		
+		while (right > left) {
+			
+			double pivot = coords[(left + right) >>> 1];
+			
+			int i = left;
+			int j = right;
+			
+			while (i <= j) {
+				while (coords[i] < pivot) i++;
+				while (coords[j] > pivot) j--;
+				if (i <= j) {
+					swap(i, j);
+					i++;
+					j--;
+				}
+			}
+			
+			if (n <= j) {
+				right = j;
+			} else if (n >= i) {
+				left = i;
+			} else {
+				return;
+			}
+			
+		}
+		
+	}
+	
+	private void swap(int i, int j) {
+		
+		double tempX = xs[i];
+		xs[i] = xs[j];
+		xs[j] = tempX;
+		
+		double tempZ = zs[i];
+		zs[i] = zs[j];
+		zs[j] = tempZ;
+		
+		int tempIndex = indices[i];
+		indices[i] = indices[j];
+		indices[j] = tempIndex;
+		
+	}
+	
+	/**
+	 * state of a single k nearest neighbor query.
+	 * Contains a max-heap of the closest points found so far.
+	 */
+	private class NearestQuery {
+		
+		final double x;
+		final double z;
+		final int k;
+		
+		/** positions in the tree arrays */
+		final int[] heapPositions;
+		final double[] heapDistances;
+		int size = 0;
+		
+		NearestQuery(double x, double z, int k) {
+			this.x = x;
+			this.z = z;
+			this.k = k;
+			heapPositions = new int[k];
+			heapDistances = new double[k];
+		}
+		
+		double getMaxDistanceSquared() {
+			return heapDistances[0];
+		}
+		
+		void offer(int position) {
+			
+			double dx = xs[position] - x;
+			double dz = zs[position] - z;
+			double distanceSquared = dx * dx + dz * dz;
+			
+			if (size < k) {
+				
+				/* add at the end and sift up */
+				
+				int i = size++;
+				
+				while (i > 0) {
+					int parent = (i - 1) / 2;
+					if (heapDistances[parent] >= distanceSquared) break;
+					heapPositions[i] = heapPositions[parent];
+					heapDistances[i] = heapDistances[parent];
+					i = parent;
+				}
+				
+				heapPositions[i] = position;
+				heapDistances[i] = distanceSquared;
+				
+			} else if (k > 0 && distanceSquared < heapDistances[0]) {
+				
+				siftDown(position, distanceSquared);
+				
+			}
+			
+		}
+		
+		/**
+		 * removes the farthest point from the heap
+		 * and returns its index in the constructor's input arrays
+		 */
+		int removeFarthest() {
+			
+			int result = indices[heapPositions[0]];
+			
+			size --;
+			
+			if (size > 0) {
+				siftDown(heapPositions[size], heapDistances[size]);
+			}
+			
+			return result;
+			
+		}
+		
+		/** replaces the root of the heap and restores the heap property */
+		private void siftDown(int position, double distanceSquared) {
+			
+			int i = 0;
+			
+			while (true) {
+				
+				int child = 2 * i + 1;
+				
+				if (child >= size) break;
+				
+				if (child + 1 < size
+						&& heapDistances[child + 1] > heapDistances[child]) {
+					child ++;
+				}
+				
+				if (heapDistances[child] <= distanceSquared) break;
+				
+				heapPositions[i] = heapPositions[child];
+				heapDistances[i] = heapDistances[child];
+				i = child;
+				
+			}
+			
+			heapPositions[i] = position;
+			heapDistances[i] = distanceSquared;
+			
+		}
+		
+	}
+
+}
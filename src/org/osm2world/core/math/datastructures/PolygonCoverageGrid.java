@@ -0,0 +1,481 @@
+package org.osm2world.core.math.datastructures;
+
+import static java.lang.Math.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
+import org.osm2world.core.math.PolygonWithHolesXZ;
+import org.osm2world.core.math.SimplePolygonXZ;
+import org.osm2world.core.math.VectorXZ;
+
+/**
+ * prepared version of a set of polygons that speeds up repeated tests
+ * whether points or boxes are covered by any of the polygons.
+ *
+ * The polygons' edges are stored in a grid. A point is tested by counting
+ * the crossings of a ray with the edges in the cells to its right only,
+ * and the result for cells that don't contain any edge is computed only once.
+ * Whole boxes without edges in them are either completely covered
+ * or not covered at all, so their points don't need to be tested.
+ *
+ * The results for points are the same as those of
+ * {@link PolygonWithHolesXZ#contains(VectorXZ)} for each of the polygons.
+ *
+ * Instances are not thread-safe.
+ */
+public class PolygonCoverageGrid {
+	
+	public static enum Coverage {
+		/** every point of the box is covered */
+		COVERED,
+		/** no point of the box is covered */
+		UNCOVERED,
+		/** the box contains polygon edges, points need to be tested */
+		PARTIAL
+	}
+	
+	/** upper limit for the number of cells in each direction */
+	private static final int MAX_CELL_COUNT = 512;
+	
+	private static final byte CELL_UNKNOWN = 0;
+	private static final byte CELL_COVERED = 1;
+	private static final byte CELL_UNCOVERED = 2;
+	private static final byte CELL_PARTIAL = 3;
+	
+	private final AxisAlignedBoundingBoxXZ bounds;
+	
+	private final int cellCountX, cellCountZ;
+	private final double cellSizeX, cellSizeZ;
+	
+	/**
+	 * edges, stored as (x1, z1, x2, z2) with the same orientation
+	 * as in {@link SimplePolygonXZ#contains(List, VectorXZ)}
+	 */
+	private final double[] edgeCoords;
+	private final int[] edgeRings;
+	
+	/** index of each ring's polygon, outer rings come before their holes */
+	private final int[] ringPolygons;
+	private final int[] polygonFirstRings;
+	
+	/** edges of cell (x, z) are cellEdges[cellStarts[i]..cellStarts[i+1]),
+	 *  with i = z * cellCountX + x */
+	private final int[] cellStarts;
+	private final int[] cellEdges;
+	
+	private final byte[] cellCoverage;
+	
+	/* temporary state of point tests */
+	private final int[] ringCrossings;
+	private final int[] touchedRings;
+	
+	public PolygonCoverageGrid(Collection<PolygonWithHolesXZ> polygons) {
+		
+		/* count rings and edges, calculate the bounds */
+		
+		int ringCount = 0;
+		int edgeCount = 0;
+		
+		double minX = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+		
+		for (PolygonWithHolesXZ polygon : polygons) {
+			for (SimplePolygonXZ ring : polygon.getPolygons()) {
+				ringCount += 1;
+				edgeCount += ring.size();
+				for (VectorXZ v : ring.getVertices()) {
+					minX = min(minX, v.x);
+					minZ = min(minZ, v.z);
+					maxX = max(maxX, v.x);
+					maxZ = max(maxZ, v.z);
+				}
+			}
+		}
+		
+		/* store the edges */
+		
+		edgeCoords = new double[edgeCount * 4];
+		edgeRings = new int[edgeCount];
+		ringPolygons = new int[ringCount];
+		polygonFirstRings = new int[polygons.size()];
+		
+		int polygonIndex = 0;
+		int ringIndex = 0;
+		int edgeIndex = 0;
+		
+		for (PolygonWithHolesXZ polygon : polygons) {
+			
+			polygonFirstRings[polygonIndex] = ringIndex;
+			
+			for (SimplePolygonXZ ring : polygon.getPolygons()) {
+				
+				List<VectorXZ> vertexLoop = ring.getVertexLoop();
+				
+				for (int i = 1; i < vertexLoop.size(); i++) {
+					VectorXZ v1 = vertexLoop.get(i);
+					VectorXZ v2 = vertexLoop.get(i - 1);
+					edgeCoords[edgeIndex * 4] = v1.x;
+					edgeCoords[edgeIndex * 4 + 1] = v1.z;
+					edgeCoords[edgeIndex * 4 + 2] = v2.x;
+					edgeCoords[edgeIndex * 4 + 3] = v2.z;
+					edgeRings[edgeIndex] = ringIndex;
+					edgeIndex += 1;
+				}
+				
+				ringPolygons[ringIndex] = polygonIndex;
+				ringIndex += 1;
+				
+			}
+			
+			polygonIndex += 1;
+			
+		}
+		
+		ringCrossings = new int[ringCount];
+		touchedRings = new int[ringCount];
+		
+		/* create the grid, aiming for about one edge per cell */
+		
+		if (edgeCount == 0) {
+			
+			bounds = null;
+			cellCountX = cellCountZ = 0;
+			cellSizeX = cellSizeZ = 0;
+			cellStarts = new int[1];
+			cellEdges = new int[0];
+			cellCoverage = new byte[0];
+			
+			return;
+			
+		}
+		
+		bounds = new AxisAlignedBoundingBoxXZ(minX, minZ, maxX, maxZ);
+		
+		double cellSize = sqrt(max(bounds.sizeX(), 1e-9)
+				* max(bounds.sizeZ(), 1e-9) / edgeCount);
+		
+		cellCountX = max(1, min(MAX_CELL_COUNT, (int) ceil(bounds.sizeX() / cellSize)));
+		cellCountZ = max(1, min(MAX_CELL_COUNT, (int) ceil(bounds.sizeZ() / cellSize)));
+		cellSizeX = bounds.sizeX() / cellCountX;
+		cellSizeZ = bounds.sizeZ() / cellCountZ;
+		
+		/* assign the edges to cells, first counting the edges per cell */
+		
+		cellStarts = new int[cellCountX * cellCountZ + 1];
+		
+		for (int e = 0; e < edgeCount; e++) {
+			addEdgeToCells(e, null);
+		}
+		
+		for (int i = 1; i < cellStarts.length; i++) {
+			cellStarts[i] += cellStarts[i - 1];
+		}
+		
+		/* each cell's start is now the end of its range,
+		 * it is moved back while adding the edges */
+		
+		cellEdges = new int[cellStarts[cellStarts.length - 1]];
+		
+		for (int e = edgeCount - 1; e >= 0; e--) {
+			addEdgeToCells(e, cellEdges);
+		}
+		
+		/* cells containing edges are always partially covered */
+		
+		cellCoverage = new byte[cellCountX * cellCountZ];
+		
+		for (int i = 0; i < cellCoverage.length; i++) {
+			if (cellStarts[i + 1] > cellStarts[i]) {
+				cellCoverage[i] = CELL_PARTIAL;
+			}
+		}
+		
+	}
+	
+	/**
+	 * creates a grid for polygons without holes
+	 */
+	public static PolygonCoverageGrid forSimplePolygons(
+			Collection<SimplePolygonXZ> polygons) {
+		
+		List<PolygonWithHolesXZ> polygonsWithHoles =
+				new ArrayList<PolygonWithHolesXZ>(polygons.size());
+		
+		for (SimplePolygonXZ polygon : polygons) {
+			polygonsWithHoles.add(new PolygonWithHolesXZ(polygon,
+					Collections.<SimplePolygonXZ>emptyList()));
+		}
+		
+		return new PolygonCoverageGrid(polygonsWithHoles);
+		
+	}
+	
+	/**
+	 * finds the cells touched by an edge.
+	 * If target is null, the edge is counted in cellStarts[cell].
+	 * Otherwise, it is added to target in front of the cell's
+	 * previously added edges.
+	 */
+	private void addEdgeToCells(int edge, int[] target) {
+		
+		double x1 = edgeCoords[edge * 4];
+		double z1 = edgeCoords[edge * 4 + 1];
+		double x2 = edgeCoords[edge * 4 + 2];
+		double z2 = edgeCoords[edge * 4 + 3];
+		
+		int minCellX = cellX(min(x1, x2));
+		int maxCellX = cellX(max(x1, x2));
+		int minCellZ = cellZ(min(z1, z2));
+		int maxCellZ = cellZ(max(z1, z2));
+		
+		/* the cells are padded slightly so rounding errors
+		 * cannot cause an edge to be missing from a cell */
+		
+		double paddingX = cellSizeX * 1e-6;
+		double paddingZ = cellSizeZ * 1e-6;
+		
+		for (int cz = minCellZ; cz <= maxCellZ; cz++) {
+			for (int cx = minCellX; cx <= maxCellX; cx++) {
+				
+				if (minCellX == maxCellX || minCellZ == maxCellZ
+						|| segmentIntersectsBox(x1, z1, x2, z2,
+						bounds.minX + cx * cellSizeX - paddingX,
+						bounds.minZ + cz * cellSizeZ - paddingZ,
+						bounds.minX + (cx + 1) * cellSizeX + paddingX,
+						bounds.minZ + (cz + 1) * cellSizeZ + paddingZ)) {
+					
+					int cell = cz * cellCountX + cx;
+					
+					if (target == null) {
+						cellStarts[cell] += 1;
+					} else {
+						cellStarts[cell] -= 1;
+						target[cellStarts[cell]] = edge;
+					}
+					
+				}
+				
+			}
+		}
+		
+	}
+	
+	/**
+	 * returns true if any of the polygons contains the point
+	 */
+	public boolean covers(VectorXZ v) {
+		return covers(v.x, v.z);
+	}
+	
+	/**
+	 * returns true if any of the polygons contains the point (x, z)
+	 */
+	public boolean covers(double x, double z) {
+		
+		if (bounds == null
+				|| x < bounds.minX || x > bounds.maxX
+				|| z < bounds.minZ || z > bounds.maxZ) {
+			return false;
+		}
+		
+		int cell = cellZ(z) * cellCountX + cellX(x);
+		
+		if (cellCoverage[cell] == CELL_UNKNOWN) {
+			cellCoverage[cell] = testPoint(
+					bounds.minX + (cellX(x) + 0.5) * cellSizeX,
+					bounds.minZ + (cellZ(z) + 0.5) * cellSizeZ)
+					? CELL_COVERED : CELL_UNCOVERED;
+		}
+		
+		switch (cellCoverage[cell]) {
+		case CELL_COVERED: return true;
+		case CELL_UNCOVERED: return false;
+		default: return testPoint(x, z);
+		}
+		
+	}
+	
+	/**
+	 * determines how much of a box is covered by the polygons
+	 */
+	public Coverage getCoverage(AxisAlignedBoundingBoxXZ box) {
+		
+		if (bounds == null || !bounds.overlaps(box)) {
+			return Coverage.UNCOVERED;
+		}
+		
+		int minCellX = cellX(max(box.minX, bounds.minX));
+		int maxCellX = cellX(min(box.maxX, bounds.maxX));
+		int minCellZ = cellZ(max(box.minZ, bounds.minZ));
+		int maxCellZ = cellZ(min(box.maxZ, bounds.maxZ));
+		
+		for (int cz = minCellZ; cz <= maxCellZ; cz++) {
+			for (int cx = minCellX; cx <= maxCellX; cx++) {
+				
+				int cell = cz * cellCountX + cx;
+				
+				for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+					
+					int e = cellEdges[i] * 4;
+					
+					if (segmentIntersectsBox(edgeCoords[e], edgeCoords[e + 1],
+							edgeCoords[e + 2], edgeCoords[e + 3],
+							box.minX, box.minZ, box.maxX, box.maxZ)) {
+						return Coverage.PARTIAL;
+					}
+					
+				}
+				
+			}
+		}
+		
+		/* no edge touches the box, so it is covered completely or not at all */
+		
+		VectorXZ center = box.center();
+		
+		if (testPoint(center.x, center.z)) {
+			return Coverage.COVERED;
+		} else {
+			return Coverage.UNCOVERED;
+		}
+		
+	}
+	
+	/**
+	 * tests a point inside the bounds by casting a ray in +x direction
+	 * and counting the crossings with each ring's edges
+	 */
+	private boolean testPoint(double x, double z) {
+		
+		if (bounds == null
+				|| x < bounds.minX || x > bounds.maxX
+				|| z < bounds.minZ || z > bounds.maxZ) {
+			return false;
+		}
+		
+		int cellZ = cellZ(z);
+		int touchedRingCount = 0;
+		
+		for (int cx = cellX(x); cx < cellCountX; cx++) {
+			
+			int cell = cellZ * cellCountX + cx;
+			
+			for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+				
+				int edge = cellEdges[i];
+				
+				double x1 = edgeCoords[edge * 4];
+				double z1 = edgeCoords[edge * 4 + 1];
+				double x2 = edgeCoords[edge * 4 + 2];
+				double z2 = edgeCoords[edge * 4 + 3];
+				
+				if ((z1 > z) != (z2 > z)) {
+					
+					double crossingX = (x2 - x1) * (z - z1) / (z2 - z1) + x1;
+					
+					/* only count the crossing in the cell containing it,
+					 * edges can be part of several cells */
+					
+					if (x < crossingX && cellX(crossingX) == cx) {
+						
+						int ring = edgeRings[edge];
+						
+						if (ringCrossings[ring] == 0) {
+							touchedRings[touchedRingCount++] = ring;
+						}
+						
+						ringCrossings[ring] += 1;
+						
+					}
+					
+				}
+				
+			}
+			
+		}
+		
+		/* check whether an outer ring contains the point,
+		 * but none of its holes */
+		
+		boolean result = false;
+		
+		for (int i = 0; i < touchedRingCount && !result; i++) {
+			
+			int ring = touchedRings[i];
+			int polygon = ringPolygons[ring];
+			
+			if (ringCrossings[ring] % 2 == 1
+					&& polygonFirstRings[polygon] == ring) {
+				
+				result = true;
+				
+				for (int hole = ring + 1; hole < ringPolygons.length
+						&& ringPolygons[hole] == polygon; hole++) {
+					if (ringCrossings[hole] % 2 == 1) {
+						result = false;
+					}
+				}
+				
+			}
+			
+		}
+		
+		for (int i = 0; i < touchedRingCount; i++) {
+			ringCrossings[touchedRings[i]] = 0;
+		}
+		
+		return result;
+		
+	}
+	
+	private int cellX(double x) {
+		int cell = (int) floor((x - bounds.minX) / cellSizeX);
+		return max(0, min(cellCountX - 1, cell));
+	}
+	
+	private int cellZ(double z) {
+		int cell = (int) floor((z - bounds.minZ) / cellSizeZ);
+		return max(0, min(cellCountZ - 1, cell));
+	}
+	
+	/**
+	 * returns true if a line segment intersects or touches a closed box.
+	 * Uses Liang-Barsky clipping of the segment against the box.
+	 */
+	static boolean segmentIntersectsBox(double x1, double z1,
+			double x2, double z2,
+			double minX, double minZ, double maxX, double maxZ) {
+		
+		double dx = x2 - x1;
+		double dz = z2 - z1;
+		
+		double[] p = {-dx, dx, -dz, dz};
+		double[] q = {x1 - minX, maxX - x1, z1 - minZ, maxZ - z1};
+		
+		double tMin = 0;
+		double tMax = 1;
+		
+		for (int i = 0; i < 4; i++) {
+			
+			if (p[i] == 0) {
+				if (q[i] < 0) return false;
+			} else {
+				double t = q[i] / p[i];
+				if (p[i] < 0) {
+					tMin = max(tMin, t);
+				} else {
+					tMax = min(tMax, t);
+				}
+			}
+			
+		}
+		
+		return tMin <= tMax;
+		
+	}
+	
+}
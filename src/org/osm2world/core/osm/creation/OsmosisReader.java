@@ -8,11 +8,15 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import org.openstreetmap.josm.plugins.graphview.core.data.MapBasedTagGroup;
+import org.openstreetmap.josm.plugins.graphview.core.data.ArrayBasedTagGroup;
 import org.openstreetmap.josm.plugins.graphview.core.data.TagGroup;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
@@ -20,6 +24,7 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
 import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
 import org.openstreetmap.osmosis.core.domain.v0_6.Node;
 import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
@@ -34,10 +39,21 @@ import org.osm2world.core.osm.data.OSMNode;
 import org.osm2world.core.osm.data.OSMRelation;
 import org.osm2world.core.osm.data.OSMWay;
 
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
 /**
  * DataSource providing information from a single .osm file. The file is read
  * during the constructor call, there will be no updates when the file is
  * changed later. This class uses osmosis to read the file.
+ * 
+ * Entities are converted to OSM2World's own representation as soon as
+ * osmosis provides them, so osmosis' objects do not need to be kept
+ * in memory. References between elements are resolved using maps with
+ * primitive long keys. References which cannot be resolved immediately
+ * (e.g. relation members which appear later in the file) are resolved
+ * after the whole file has been read, and the maps are released afterwards.
+ * If an id appears more than once, the last element with that id is used.
  */
 public class OsmosisReader implements OSMDataReader {
 	
@@ -52,13 +68,29 @@ public class OsmosisReader implements OSMDataReader {
 	}
 	
 	private List<Bound> bounds = new ArrayList<Bound>();
-	private Map<Long, Node> nodesById = new HashMap<Long, Node>();
-	private Map<Long, Way> waysById = new HashMap<Long, Way>();
-	private Map<Long, Relation> relationsById = new HashMap<Long, Relation>();
 	
-	private Collection<OSMNode> ownNodes;
-	private Collection<OSMWay> ownWays;
-	private Collection<OSMRelation> ownRelations;
+	private Collection<OSMNode> ownNodes = new ArrayList<OSMNode>();
+	private Collection<OSMWay> ownWays = new ArrayList<OSMWay>();
+	private Collection<OSMRelation> ownRelations = new ArrayList<OSMRelation>();
+	
+	private TLongObjectMap<OSMNode> nodesById = new TLongObjectHashMap<OSMNode>();
+	private TLongObjectMap<OSMWay> waysById = new TLongObjectHashMap<OSMWay>();
+	private TLongObjectMap<OSMRelation> relationsById = new TLongObjectHashMap<OSMRelation>();
+	
+	/** elements which have been replaced by a later element with the same id */
+	private Set<OSMElement> replacedElements =
+			Collections.newSetFromMap(new IdentityHashMap<OSMElement, Boolean>());
+	
+	/** node ids of ways with nodes that had not been read yet */
+	private Map<OSMWay, long[]> unresolvedWayNodes =
+			new HashMap<OSMWay, long[]>();
+	
+	/** shared instances of tag keys and values */
+	private Map<String, String> stringPool = new HashMap<String, String>();
+	
+	/** members of relations, to be resolved after all elements are known */
+	private Map<OSMRelation, List<RelationMember>> unresolvedRelationMembers =
+			new LinkedHashMap<OSMRelation, List<RelationMember>>();
 	
 	private final Sink sinkImplementation = new Sink() {
 		public void initialize(Map<String, Object> arg0) {
@@ -73,11 +105,11 @@ public class OsmosisReader implements OSMDataReader {
 		public void process(EntityContainer entityContainer) {
 			Entity entity = entityContainer.getEntity();
 			if (entity instanceof Node) {
-				nodesById.put(entity.getId(), ((Node) entity));
+				processNode((Node) entity);
 			} else if (entity instanceof Way) {
-				waysById.put(entity.getId(), ((Way) entity));
+				processWay((Way) entity);
 			} else if (entity instanceof Relation) {
-				relationsById.put(entity.getId(), ((Relation) entity));
+				processRelation((Relation) entity);
 			} else if (entity instanceof Bound) {
 				bounds.add((Bound) entity);
 			}
@@ -104,7 +136,7 @@ public class OsmosisReader implements OSMDataReader {
 			throw new IOException("couldn't read from file");
 		}
 		
-		convertToOwnRepresentation();
+		resolveReferences();
 		
 	}
 
@@ -135,77 +167,144 @@ public class OsmosisReader implements OSMDataReader {
 		
 	}
 	
-	private void convertToOwnRepresentation() {
+	private void processNode(Node node) {
+		
+		OSMNode ownNode = new OSMNode(node.getLatitude(), node
+				.getLongitude(), tagGroupForEntity(node), node.getId());
 		
-		ownNodes = new ArrayList<OSMNode>(nodesById.size());
-		ownWays = new ArrayList<OSMWay>(waysById.size());
-		ownRelations = new ArrayList<OSMRelation>(relationsById.size());
+		OSMNode previousNode = nodesById.put(node.getId(), ownNode);
+		
+		if (previousNode != null) {
+			replacedElements.add(previousNode);
+		}
+		
+		ownNodes.add(ownNode);
+		
+	}
+	
+	private void processWay(Way way) {
 		
-		Map<Node, OSMNode> nodeMap = new HashMap<Node, OSMNode>();
-		Map<Way, OSMWay> wayMap = new HashMap<Way, OSMWay>();
-		Map<Relation, OSMRelation> relationMap = new HashMap<Relation, OSMRelation>();
+		List<WayNode> origWayNodes = way.getWayNodes();
+		List<OSMNode> wayNodes = new ArrayList<OSMNode>(origWayNodes.size());
 		
-		for (Node node : nodesById.values()) {
+		boolean unresolved = false;
+		
+		for (WayNode origWayNode : origWayNodes) {
+			OSMNode node = nodesById.get(origWayNode.getNodeId());
+			if (node != null) {
+				wayNodes.add(node);
+			} else {
+				unresolved = true;
+			}
+		}
+		
+		OSMWay ownWay = new OSMWay(tagGroupForEntity(way),
+				way.getId(), wayNodes);
+		
+		OSMWay previousWay = waysById.put(way.getId(), ownWay);
+		
+		if (previousWay != null) {
+			replacedElements.add(previousWay);
+			unresolvedWayNodes.remove(previousWay);
+		}
+		
+		if (unresolved) {
+			
+			long[] nodeIds = new long[origWayNodes.size()];
 			
-			OSMNode ownNode = new OSMNode(node.getLatitude(), node
-					.getLongitude(), tagGroupForEntity(node), node.getId());
+			for (int i = 0; i < nodeIds.length; i++) {
+				nodeIds[i] = origWayNodes.get(i).getNodeId();
+			}
 			
-			ownNodes.add(ownNode);
-			nodeMap.put(node, ownNode);
+			unresolvedWayNodes.put(ownWay, nodeIds);
 			
 		}
 		
-		for (Way way : waysById.values()) {
+		ownWays.add(ownWay);
+		
+	}
+	
+	private void processRelation(Relation relation) {
+		
+		OSMRelation ownRelation = new OSMRelation(
+				tagGroupForEntity(relation), relation.getId(),
+				relation.getMembers().size());
+		
+		OSMRelation previousRelation =
+				relationsById.put(relation.getId(), ownRelation);
+		
+		if (previousRelation != null) {
+			replacedElements.add(previousRelation);
+			unresolvedRelationMembers.remove(previousRelation);
+		}
+		
+		ownRelations.add(ownRelation);
+		
+		// members are added later
+		// (relations can be members of relations appearing later in the file)
+		
+		unresolvedRelationMembers.put(ownRelation, relation.getMembers());
+		
+	}
+	
+	/**
+	 * resolves references to elements which had not yet been read
+	 * when the referencing element was processed
+	 */
+	private void resolveReferences() {
+		
+		/* ways with nodes appearing after the way (unsorted files) */
+		
+		for (Map.Entry<OSMWay, long[]> entry : unresolvedWayNodes.entrySet()) {
 			
-			List<WayNode> origWayNodes = way.getWayNodes();
-			List<OSMNode> wayNodes = new ArrayList<OSMNode>(origWayNodes.size());
-			for (WayNode origWayNode : origWayNodes) {
-				Node origNode = nodesById.get(origWayNode.getNodeId());
-				if (origNode != null) {
-					wayNodes.add(nodeMap.get(origNode));
-				}
-			}
+			List<OSMNode> wayNodes = entry.getKey().nodes;
 			
-			OSMWay ownWay = new OSMWay(tagGroupForEntity(way),
-					way.getId(), wayNodes);
+			wayNodes.clear();
 			
-			ownWays.add(ownWay);
-			wayMap.put(way, ownWay);
+			for (long nodeId : entry.getValue()) {
+				OSMNode node = nodesById.get(nodeId);
+				if (node != null) {
+					wayNodes.add(node);
+				}
+			}
 			
 		}
 		
-		for (Relation relation : relationsById.values()) {
+		/* elements which have been replaced by a later element
+		 * with the same id (e.g. in merged files) */
+		
+		if (!replacedElements.isEmpty()) {
 			
-			OSMRelation ownRelation = new OSMRelation(
-					tagGroupForEntity(relation), relation.getId(),
-					relation.getMembers().size());
+			ownNodes.removeAll(replacedElements);
+			ownWays.removeAll(replacedElements);
+			ownRelations.removeAll(replacedElements);
 			
-			ownRelations.add(ownRelation);
-			relationMap.put(relation, ownRelation);
+			for (OSMWay way : ownWays) {
+				for (int i = 0; i < way.nodes.size(); i++) {
+					if (replacedElements.contains(way.nodes.get(i))) {
+						way.nodes.set(i, nodesById.get(way.nodes.get(i).id));
+					}
+				}
+			}
 			
 		}
 		
-		// add relation members
-		// (needs to be done *after* creation because relations can be members
-		// of other relations)
+		/* relation members */
 		
-		for (Relation relation : relationMap.keySet()) {
+		for (Map.Entry<OSMRelation, List<RelationMember>> entry
+				: unresolvedRelationMembers.entrySet()) {
 			
-			OSMRelation ownRelation = relationMap.get(relation);
+			OSMRelation ownRelation = entry.getKey();
 			
-			for (org.openstreetmap.osmosis.core.domain.v0_6.RelationMember member : relation
-					.getMembers()) {
-								
+			for (RelationMember member : entry.getValue()) {
+				
 				OSMElement memberObject = null;
 				if (member.getMemberType() == EntityType.Node) {
-					memberObject = nodeMap.get(nodesById.get(member
-							.getMemberId()));
+					memberObject = nodesById.get(member.getMemberId());
 				} else if (member.getMemberType() == EntityType.Way) {
-					memberObject = wayMap.get(waysById
-							.get(member.getMemberId()));
+					memberObject = waysById.get(member.getMemberId());
 				} else if (member.getMemberType() == EntityType.Relation) {
-					memberObject = relationMap.get(relationsById.get(member
-							.getMemberId()));
+					memberObject = relationsById.get(member.getMemberId());
 				} else {
 					continue;
 				}
@@ -223,11 +322,15 @@ public class OsmosisReader implements OSMDataReader {
 			
 		}
 		
-		// give up references to original collections
+		// give up references to the maps, which are no longer needed
 		
 		nodesById = null;
 		waysById = null;
 		relationsById = null;
+		replacedElements = null;
+		unresolvedWayNodes = null;
+		unresolvedRelationMembers = null;
+		stringPool = null;
 		
 	}
 	
@@ -235,12 +338,30 @@ public class OsmosisReader implements OSMDataReader {
 		if (entity.getTags().isEmpty()) {
 			return EMPTY_TAG_GROUP;
 		} else {
-			Map<String, String> tagMap = new HashMap<String, String>(entity.getTags().size());
-			for (Tag tag : entity.getTags()) {
-				tagMap.put(tag.getKey(), tag.getValue());
+			Collection<Tag> tags = entity.getTags();
+			String[] keys = new String[tags.size()];
+			String[] values = new String[tags.size()];
+			int i = 0;
+			for (Tag tag : tags) {
+				keys[i] = intern(tag.getKey());
+				values[i] = intern(tag.getValue());
+				i++;
 			}
-			return new MapBasedTagGroup(tagMap);
+			return new ArrayBasedTagGroup(keys, values);
+		}
+	}
+	
+	/**
+	 * returns a shared instance of the string
+	 * (unlike {@link String#intern()}, the pool is released after reading)
+	 */
+	private String intern(String string) {
+		String pooledString = stringPool.get(string);
+		if (pooledString == null) {
+			stringPool.put(string, string);
+			pooledString = string;
 		}
+		return pooledString;
 	}
 	
 	@Override
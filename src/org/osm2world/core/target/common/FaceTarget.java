@@ -1,12 +1,18 @@
 package org.osm2world.core.target.common;
 
 import static java.lang.Math.abs;
+import static java.util.Arrays.asList;
 import static java.util.Collections.nCopies;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 
 import org.osm2world.core.math.TriangleXYZ;
 import org.osm2world.core.math.TriangleXYZWithNormals;
@@ -16,7 +22,7 @@ import org.osm2world.core.target.Renderable;
 import org.osm2world.core.target.common.material.Material;
 import org.osm2world.core.world.data.WorldObject;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 
 /**
@@ -70,75 +76,6 @@ public abstract class FaceTarget<R extends Renderable>
 			
 		}
 		
-		/**
-		 * @return  true if the triangle has been successfully inserted
-		 */
-		public boolean tryInsert(IsolatedTriangle t) {
-			
-			for (int i = 0; i < vs.size(); i++) {
-				int j = (i+1) % vs.size();
-				int k = (i+2) % vs.size();
-				
-				if (vs.get(i).equals(t.triangle.v3)
-						&& vs.get(j).equals(t.triangle.v2)) { /* TODO tex coords equal */
-					
-					if (vs.get(k).equals(t.triangle.v1)) {
-						
-						removeVertex(j);
-						
-					} else {
-						
-						insertVertex(j, t.triangle.v1,
-								texCoordLists, t.texCoordOffset + 0);
-						
-					}
-					
-					return true;
-					
-				}
-				
-				if (vs.get(i).equals(t.triangle.v1)
-						&& vs.get(j).equals(t.triangle.v3)) { /* TODO tex coords equal */
-					
-					if (vs.get(k).equals(t.triangle.v2)) {
-						
-						removeVertex(j);
-						
-					} else {
-						
-						insertVertex(j, t.triangle.v2,
-								texCoordLists, t.texCoordOffset + 1);
-						
-					}
-					
-					return true;
-					
-				}
-				
-				if (vs.get(i).equals(t.triangle.v2)
-						&& vs.get(j).equals(t.triangle.v1)) { /* TODO tex coords equal */
-					
-					if (vs.get(k).equals(t.triangle.v3)) {
-						
-						removeVertex(j);
-						
-					} else {
-						
-						insertVertex(j, t.triangle.v3,
-								texCoordLists, t.texCoordOffset + 2);
-						
-					}
-					
-					return true;
-					
-				}
-				
-			}
-			
-			return false;
-			
-		}
-		
 		public void removeDuplicateEdges() {
 			
 			boolean repeat = true;
@@ -230,7 +167,7 @@ public abstract class FaceTarget<R extends Renderable>
 	}
 	
 	private final Multimap<Material, IsolatedTriangle> isolatedTriangles =
-			HashMultimap.create();
+			LinkedHashMultimap.create();
 	
 	@Override
 	public void drawTriangles(Material material,
@@ -328,46 +265,126 @@ public abstract class FaceTarget<R extends Renderable>
 	}
 	
 	/**
-	 * @param isolatedTriangles  non-empty collection of triangles
+	 * vertex of a face that is being reconstructed. The vertices of a face
+	 * form a cyclic, doubly linked list, so triangles can be inserted
+	 * in constant time.
 	 */
-	protected static Collection<Face> combineTrianglesToFaces(
-			Collection<IsolatedTriangle> isolatedTriangles) {
+	private static final class FaceVertex {
 		
-		List<IsolatedTriangle> triangles =
-				new LinkedList<IsolatedTriangle>(isolatedTriangles);
+		final VectorXYZ v;
 		
-		Collection<Face> faces = new ArrayList<Face>();
+		/** one texture coordinate for each texture coordinate list */
+		final List<VectorXZ> texCoords;
 		
-		/* turn one triangle into a face */
+		FaceVertex prev;
+		FaceVertex next;
 		
-		faces.add(createFaceFromTriangle(triangles.remove(0)));
+		boolean removed = false;
 		
-		/* turn remaining triangles into faces or insert them into existing ones */
-		
-		trianglesToFacesLoop: while (!triangles.isEmpty()) {
+		FaceVertex(IsolatedTriangle t, int vertexIndex) {
 			
-			/* try to insert triangles into existing faces */
+			this.v = getVertex(t, vertexIndex);
 			
-			for (IsolatedTriangle triangle : triangles) {
-				for (Face face : faces) {
-					
-					if (normalAlmostEquals(face.normal, triangle.normal)) {
-						
-						boolean inserted = face.tryInsert(triangle);
-						
-						if (inserted) {
-							triangles.remove(triangle);
-							continue trianglesToFacesLoop;
-						}
-						
-					}
-					
+			texCoords = new ArrayList<VectorXZ>(t.texCoordLists.size());
+			
+			for (List<VectorXZ> texCoordList : t.texCoordLists) {
+				texCoords.add(texCoordList.get(t.texCoordOffset + vertexIndex));
+			}
+			
+		}
+		
+		@Override
+		public String toString() {
+			return v.toString();
+		}
+		
+	}
+	
+	/**
+	 * directed edge between two vertices, used to look up triangles
+	 */
+	private static final class Edge {
+		
+		final VectorXYZ from;
+		final VectorXYZ to;
+		
+		Edge(VectorXYZ from, VectorXYZ to) {
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Edge)) return false;
+			Edge other = (Edge) obj;
+			return from.equals(other.from) && to.equals(other.to);
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * hash(from) + hash(to);
+		}
+		
+		/**
+		 * hash function consistent with {@link VectorXYZ#equals(Object)}
+		 * (adding 0.0 turns -0.0 into 0.0, which are equal for equals)
+		 */
+		private static int hash(VectorXYZ v) {
+			long bits = Double.doubleToLongBits(v.x + 0.0);
+			bits = 31 * bits + Double.doubleToLongBits(v.y + 0.0);
+			bits = 31 * bits + Double.doubleToLongBits(v.z + 0.0);
+			return (int) (bits ^ (bits >>> 32));
+		}
+		
+	}
+	
+	/**
+	 * combines triangles into faces. Each face starts with a single triangle
+	 * and grows by adding triangles with a similar normal that share an
+	 * edge (in opposite direction) with the face's outline.
+	 * Triangles are found using a map from directed edges to triangles,
+	 * so each insertion takes expected constant time.
+	 * 
+	 * @param isolatedTriangles  non-empty collection of triangles
+	 */
+	protected static Collection<Face> combineTrianglesToFaces(
+			Collection<IsolatedTriangle> isolatedTriangles) {
+		
+		/* index the triangles by their directed edges */
+		
+		Map<Edge, List<IsolatedTriangle>> trianglesByEdge =
+				new HashMap<Edge, List<IsolatedTriangle>>();
+		
+		for (IsolatedTriangle triangle : isolatedTriangles) {
+			for (int i = 0; i < 3; i++) {
+				
+				Edge edge = new Edge(getVertex(triangle, i),
+						getVertex(triangle, (i+1) % 3));
+				
+				List<IsolatedTriangle> trianglesWithEdge = trianglesByEdge.get(edge);
+				
+				if (trianglesWithEdge == null) {
+					trianglesWithEdge = new ArrayList<IsolatedTriangle>(1);
+					trianglesByEdge.put(edge, trianglesWithEdge);
 				}
+				
+				trianglesWithEdge.add(triangle);
+				
 			}
+		}
+		
+		/* grow faces, starting a new face whenever a triangle
+		 * has not yet become part of any existing face */
+		
+		Set<IsolatedTriangle> usedTriangles = new HashSet<IsolatedTriangle>();
+		
+		Collection<Face> faces = new ArrayList<Face>();
+		
+		for (IsolatedTriangle seedTriangle : isolatedTriangles) {
 			
-			/* could not extend existing faces, start a new face instead */
+			if (!usedTriangles.add(seedTriangle)) continue;
 			
-			faces.add(createFaceFromTriangle(triangles.remove(0)));
+			faces.add(growFace(seedTriangle, trianglesByEdge, usedTriangles));
 			
 		}
 		
@@ -381,28 +398,167 @@ public abstract class FaceTarget<R extends Renderable>
 		
 	}
 	
-	protected static boolean normalAlmostEquals(VectorXYZ n1, VectorXYZ n2) {
+	/**
+	 * creates a face from a triangle and adds all triangles that
+	 * can be reached across the face's outline
+	 */
+	private static Face growFace(IsolatedTriangle seedTriangle,
+			Map<Edge, List<IsolatedTriangle>> trianglesByEdge,
+			Set<IsolatedTriangle> usedTriangles) {
 		
-		return abs(n1.x - n2.x) <= 0.01
-				&& abs(n1.y - n2.y) <= 0.01
-				&& abs(n1.z - n2.z) <= 0.01;
+		VectorXYZ normal = seedTriangle.normal;
 		
-	}
-	
-	protected static Face createFaceFromTriangle(IsolatedTriangle t) {
+		/* create the initial outline */
+		
+		FaceVertex[] initialVertices = new FaceVertex[3];
+		
+		for (int i = 0; i < 3; i++) {
+			initialVertices[i] = new FaceVertex(seedTriangle, i);
+		}
+		
+		for (int i = 0; i < 3; i++) {
+			initialVertices[i].next = initialVertices[(i+1) % 3];
+			initialVertices[(i+1) % 3].prev = initialVertices[i];
+		}
+		
+		FaceVertex anyVertex = initialVertices[0];
+		int vertexCount = 3;
+		
+		/* check each edge of the outline for an adjacent triangle.
+		 * The queue contains the first vertex of each edge to check. */
+		
+		Queue<FaceVertex> edgeQueue = new LinkedList<FaceVertex>(
+				asList(initialVertices));
+		
+		while (!edgeQueue.isEmpty()) {
+			
+			FaceVertex a = edgeQueue.poll();
+			
+			if (a.removed) continue;
+			
+			FaceVertex b = a.next;
+			
+			/* find an unused triangle containing the edge from b to a */
+			
+			IsolatedTriangle triangle = null;
+			
+			List<IsolatedTriangle> candidates =
+					trianglesByEdge.get(new Edge(b.v, a.v));
+			
+			if (candidates != null) {
+				for (IsolatedTriangle candidate : candidates) {
+					if (!usedTriangles.contains(candidate)
+							&& normalAlmostEquals(normal, candidate.normal)) {
+						triangle = candidate;
+						break;
+					}
+				}
+			}
+			
+			if (triangle == null) continue;
+			
+			usedTriangles.add(triangle);
+			
+			/* the triangle consists of b, a and a third vertex c */
+			
+			int cIndex = 0;
+			
+			while (!getVertex(triangle, cIndex).equals(b.v)) {
+				cIndex ++;
+			}
+			
+			cIndex = (cIndex + 2) % 3;
+			
+			VectorXYZ c = getVertex(triangle, cIndex);
+			
+			if (vertexCount > 3 && b.next.v.equals(c)) {
+				
+				/* the triangle fills a notch at b: a -> b -> c becomes a -> c */
+				
+				a.next = b.next;
+				b.next.prev = a;
+				b.removed = true;
+				
+				if (anyVertex == b) anyVertex = a;
+				vertexCount --;
+				
+				edgeQueue.add(a);
+				
+			} else if (vertexCount > 3 && a.prev.v.equals(c)) {
+				
+				/* the triangle fills a notch at a: c -> a -> b becomes c -> b */
+				
+				a.prev.next = b;
+				b.prev = a.prev;
+				a.removed = true;
+				
+				if (anyVertex == a) anyVertex = b;
+				vertexCount --;
+				
+				edgeQueue.add(b.prev);
+				
+			} else {
+				
+				/* insert c: a -> b becomes a -> c -> b */
+				
+				FaceVertex cVertex = new FaceVertex(triangle, cIndex);
+				
+				cVertex.prev = a;
+				cVertex.next = b;
+				a.next = cVertex;
+				b.prev = cVertex;
+				
+				vertexCount ++;
+				
+				edgeQueue.add(a);
+				edgeQueue.add(cVertex);
+				
+			}
+			
+		}
+		
+		/* create the face from the outline */
 		
-		List<VectorXYZ> newFaceVs =
-				new ArrayList<VectorXYZ>(t.triangle.getVertices());
+		List<VectorXYZ> vs = new ArrayList<VectorXYZ>(vertexCount);
+		
+		List<List<VectorXZ>> texCoordLists = new ArrayList<List<VectorXZ>>();
+		
+		for (int list = 0; list < seedTriangle.texCoordLists.size(); list++) {
+			texCoordLists.add(new ArrayList<VectorXZ>(vertexCount));
+		}
+		
+		FaceVertex vertex = anyVertex;
+		
+		do {
+			
+			vs.add(vertex.v);
+			
+			for (int list = 0; list < texCoordLists.size(); list++) {
+				texCoordLists.get(list).add(vertex.texCoords.get(list));
+			}
+			
+			vertex = vertex.next;
+			
+		} while (vertex != anyVertex);
 		
-		List<List<VectorXZ>> newFaceTCLists = new ArrayList<List<VectorXZ>>();
+		return new Face(vs, texCoordLists, normal);
 		
-		for (int list = 0; list < t.texCoordLists.size(); list++) {
-			newFaceTCLists.add(new ArrayList<VectorXZ>(
-					t.texCoordLists.get(list).subList(
-							t.texCoordOffset, t.texCoordOffset + 3)));
+	}
+	
+	private static VectorXYZ getVertex(IsolatedTriangle t, int index) {
+		switch (index) {
+		case 0: return t.triangle.v1;
+		case 1: return t.triangle.v2;
+		case 2: return t.triangle.v3;
+		default: throw new IllegalArgumentException("invalid index " + index);
 		}
+	}
+	
+	protected static boolean normalAlmostEquals(VectorXYZ n1, VectorXYZ n2) {
 		
-		return new Face(newFaceVs,	newFaceTCLists, t.normal);
+		return abs(n1.x - n2.x) <= 0.01
+				&& abs(n1.y - n2.y) <= 0.01
+				&& abs(n1.z - n2.z) <= 0.01;
 		
 	}
 	
@@ -8,6 +8,10 @@ import org.osm2world.core.target.common.TextureData;
 
 /**
  * a material whose attributes can be configured at runtime.
+ * 
+ * While a {@link MaterialRegistry} is active, materials from
+ * {@link Materials} return the attributes configured in that registry
+ * instead of their own attributes.
  */
 public class ConfMaterial extends Material {
 
@@ -27,6 +31,64 @@ public class ConfMaterial extends Material {
 		super(lighting, color);
 	}
 	
+	/**
+	 * returns the material with the attributes that are currently used
+	 * for this material, see {@link MaterialRegistry}
+	 */
+	private ConfMaterial getActiveMaterial() {
+		
+		MaterialRegistry registry = MaterialRegistry.getActive();
+		
+		if (registry != null) {
+			ConfMaterial configuredMaterial = registry.getConfiguredMaterial(this);
+			if (configuredMaterial != null) {
+				return configuredMaterial;
+			}
+		}
+		
+		return this;
+		
+	}
+	
+	/**
+	 * returns a copy with this material's own attributes,
+	 * ignoring any active {@link MaterialRegistry}
+	 */
+	ConfMaterial copy() {
+		return new ConfMaterial(lighting, color, ambientFactor, diffuseFactor,
+				transparency, textureDataList);
+	}
+	
+	@Override
+	public Lighting getLighting() {
+		return getActiveMaterial().lighting;
+	}
+	
+	@Override
+	public Color getColor() {
+		return getActiveMaterial().color;
+	}
+	
+	@Override
+	public float getAmbientFactor() {
+		return getActiveMaterial().ambientFactor;
+	}
+	
+	@Override
+	public float getDiffuseFactor() {
+		return getActiveMaterial().diffuseFactor;
+	}
+	
+	@Override
+	public Transparency getTransparency() {
+		return getActiveMaterial().transparency;
+	}
+	
+	@Override
+	public List<TextureData> getTextureDataList() {
+		return getActiveMaterial().textureDataList;
+	}
+	
 	public void setLighting(Lighting lighting) {
 		this.lighting = lighting;
 	}
@@ -77,13 +77,13 @@ public abstract class Material {
 	}
 	
 	public Material brighter() {
-		return new ImmutableMaterial(lighting, getColor().brighter(),
+		return new ImmutableMaterial(getLighting(), getColor().brighter(),
 				getAmbientFactor(), getDiffuseFactor(),
 				getTransparency(), getTextureDataList());
 	}
 	
 	public Material darker() {
-		return new ImmutableMaterial(lighting, getColor().darker(),
+		return new ImmutableMaterial(getLighting(), getColor().darker(),
 				getAmbientFactor(), getDiffuseFactor(),
 				getTransparency(), getTextureDataList());
 	}
@@ -132,18 +132,18 @@ public abstract class Material {
 	}
 	
 	public int getNumTextureLayers() {
-		if (textureDataList == null) {
+		if (getTextureDataList() == null) {
 			return 0;
 		} else {
-			return textureDataList.size();
+			return getTextureDataList().size();
 		}
 	}
 	
 	public String toString() {
 		return String.format("{%s, #%06x, a%3f, d%3f, %d tex",
-				lighting, color.getRGB() & 0x00ffffff, ambientFactor,
-				diffuseFactor, textureDataList.size())
-				+ transparency
+				getLighting(), getColor().getRGB() & 0x00ffffff, getAmbientFactor(),
+				getDiffuseFactor(), getTextureDataList().size())
+				+ getTransparency()
 				+ "}";
 	}
 	
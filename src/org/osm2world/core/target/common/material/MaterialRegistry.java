@@ -0,0 +1,88 @@
+package org.osm2world.core.target.common.material;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * the attributes of the materials from {@link Materials} for a single
+ * conversion, based on that conversion's configuration.
+ * This allows conversions with different configurations to run
+ * in the same process at the same time.
+ *
+ * The materials from {@link Materials} are shared by all conversions and
+ * are used by world modules and targets to identify materials.
+ * While a registry is active for the current thread, these materials
+ * return the attributes configured in the registry.
+ * Threads inherit the registry that is active in the thread creating them,
+ * so worker threads of a conversion use the same registry.
+ */
+public class MaterialRegistry {
+	
+	private static final InheritableThreadLocal<MaterialRegistry> activeRegistry =
+			new InheritableThreadLocal<MaterialRegistry>();
+	
+	/** copies of the shared materials, using the shared materials as keys */
+	private final Map<ConfMaterial, ConfMaterial> configuredMaterials =
+			new HashMap<ConfMaterial, ConfMaterial>();
+	
+	/**
+	 * creates a registry with the attributes of the shared materials,
+	 * modified by the material settings from a configuration
+	 */
+	public MaterialRegistry(Configuration config) {
+		
+		Map<String, ConfMaterial> materialsByName =
+				new HashMap<String, ConfMaterial>();
+		
+		for (ConfMaterial material : Materials.getMaterials()) {
+			
+			ConfMaterial configuredMaterial = material.copy();
+			
+			configuredMaterials.put(material, configuredMaterial);
+			materialsByName.put(Materials.getUniqueName(material),
+					configuredMaterial);
+			
+		}
+		
+		Materials.configureMaterials(config, materialsByName);
+		
+	}
+	
+	/**
+	 * returns the material holding this registry's attributes
+	 * for one of the materials from {@link Materials}
+	 *
+	 * @return  the configured material; null for other materials
+	 */
+	ConfMaterial getConfiguredMaterial(ConfMaterial material) {
+		return configuredMaterials.get(material);
+	}
+	
+	/**
+	 * makes this the active registry for the current thread
+	 * and for threads which are created by that thread afterwards
+	 */
+	public void activate() {
+		activeRegistry.set(this);
+	}
+	
+	/**
+	 * removes the active registry for the current thread, so the
+	 * materials' own attributes will be used again
+	 */
+	public static void deactivate() {
+		activeRegistry.remove();
+	}
+	
+	/**
+	 * returns the active registry for the current thread
+	 *
+	 * @return  the active registry; null if there is none
+	 */
+	public static MaterialRegistry getActive() {
+		return activeRegistry.get();
+	}
+	
+}
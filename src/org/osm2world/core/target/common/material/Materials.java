@@ -273,10 +273,36 @@ public final class Materials {
 	
 	/**
 	 * configures the attributes of the materials within this class
-	 * based on external configuration settings
+	 * based on external configuration settings.
+	 * 
+	 * This changes the attributes for all conversions which don't have
+	 * their own {@link MaterialRegistry}. Conversions using
+	 * {@link MaterialRegistry#MaterialRegistry(Configuration)} instead
+	 * are not affected by each other's configuration.
 	 */
 	public static final void configureMaterials(Configuration config) {
 		
+		Map<String, ConfMaterial> materialsByName =
+				new HashMap<String, ConfMaterial>();
+		
+		for (Entry<ConfMaterial, String> entry : fieldNameMap.entrySet()) {
+			materialsByName.put(entry.getValue(), entry.getKey());
+		}
+		
+		configureMaterials(config, materialsByName);
+		
+	}
+	
+	/**
+	 * configures the attributes of materials
+	 * based on external configuration settings
+	 * 
+	 * @param materialsByName  the materials to be configured,
+	 *                         with the field names used in this class as keys
+	 */
+	static final void configureMaterials(Configuration config,
+			Map<String, ConfMaterial> materialsByName) {
+		
 		// unchecked type parameter necessary due to Apache libs' old interface
 		@SuppressWarnings("unchecked")
 		Iterator<String> keyIterator = config.getKeys();
@@ -290,7 +316,7 @@ public final class Materials {
 			if (matcher.matches()) {
 				
 				String materialName = matcher.group(1);
-				ConfMaterial material = getMaterial(materialName);
+				ConfMaterial material = materialsByName.get(materialName);
 				
 				if (material != null) {
 				
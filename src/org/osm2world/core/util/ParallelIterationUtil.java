@@ -0,0 +1,138 @@
+package org.osm2world.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.osm2world.core.util.FaultTolerantIterationUtil.Operation;
+
+/**
+ * utility class that performs an {@link Operation} for all elements
+ * of a list using multiple threads.
+ *
+ * The list is split into contiguous partitions, which are processed
+ * by a pool of worker threads. The calling thread waits until all partitions
+ * have been completed, so all effects of the operation are visible
+ * to the caller afterwards.
+ */
+final public class ParallelIterationUtil {
+
+	private ParallelIterationUtil() { }
+
+	/**
+	 * number of partitions per thread. Using more than one partition
+	 * per thread evens out differences in the cost of elements.
+	 */
+	private static final int PARTITIONS_PER_THREAD = 4;
+
+	/**
+	 * returns the number of threads to be used for a configured value.
+	 *
+	 * @param configuredThreadCount  number of threads, or a value <= 0 to
+	 *                               use one thread per available processor
+	 */
+	public static final int getThreadCount(int configuredThreadCount) {
+		if (configuredThreadCount > 0) {
+			return configuredThreadCount;
+		} else {
+			return Runtime.getRuntime().availableProcessors();
+		}
+	}
+
+	/**
+	 * performs the operation for each element of the input list.
+	 * With a thread count of 1, the elements are processed sequentially
+	 * (and in order) by the calling thread.
+	 *
+	 * The first exception thrown by the operation is re-thrown
+	 * after all partitions have been finished.
+	 *
+	 * @param threadCount  number of worker threads; > 0
+	 */
+	public static final <T> void iterate(final List<? extends T> inputs,
+			final Operation<T> operation, int threadCount) {
+
+		if (threadCount <= 1 || inputs.size() <= 1) {
+			for (T input : inputs) {
+				operation.perform(input);
+			}
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(threadCount, inputs.size()));
+
+		try {
+			iterate(inputs, operation, executor, threadCount);
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+	/**
+	 * performs the operation for each element of the input list
+	 * using the threads of an existing executor.
+	 * This allows a single pool of threads to be used for multiple lists.
+	 * The executor is not shut down afterwards.
+	 *
+	 * The first exception thrown by the operation is re-thrown
+	 * after all partitions have been finished.
+	 *
+	 * @param threadCount  number of threads used by the executor; > 0
+	 */
+	public static final <T> void iterate(final List<? extends T> inputs,
+			final Operation<T> operation, ExecutorService executor,
+			int threadCount) {
+
+		if (inputs.isEmpty()) return;
+
+		int partitionCount = Math.min(inputs.size(),
+				threadCount * PARTITIONS_PER_THREAD);
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(partitionCount);
+
+		for (int p = 0; p < partitionCount; p++) {
+
+			final int start = (int)((long)inputs.size() * p / partitionCount);
+			final int end = (int)((long)inputs.size() * (p+1) / partitionCount);
+
+			tasks.add(new Callable<Void>() {
+				@Override public Void call() {
+					for (int i = start; i < end; i++) {
+						operation.perform(inputs.get(i));
+					}
+					return null;
+				}
+			});
+
+		}
+
+		try {
+
+			List<Future<Void>> futures = executor.invokeAll(tasks);
+
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			} else {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,21 @@
+package org.osm2world.core.world.data;
+
+import org.osm2world.core.map_elevation.creation.TerrainInterpolator;
+import org.osm2world.core.map_elevation.data.EleConnector;
+
+/**
+ * a {@link WorldObject} whose {@link EleConnector}s depend on
+ * the shape of the terrain, e.g. because it chooses the density
+ * of its geometry based on the terrain's unevenness.
+ */
+public interface TerrainDependentWorldObject extends WorldObject {
+	
+	/**
+	 * provides the interpolator for terrain elevations.
+	 * Called before {@link #getEleConnectors()}.
+	 *
+	 * @param interpolator  interpolator with known sites already set
+	 */
+	public void setTerrainInterpolator(TerrainInterpolator interpolator);
+	
+}
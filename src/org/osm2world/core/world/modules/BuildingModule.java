@@ -1529,6 +1529,9 @@ public class BuildingModule extends ConfigurableWorldModule {
 			/** maximum distance of any outline vertex to the ridge */
 			protected final double maxDistanceToRidge;
 			
+			/** stores the result for {@link #getPolygon()} */
+			private PolygonWithHolesXZ roofPolygon = null;
+			
 			/**
 			 * creates an instance and calculates the final fields
 			 * 
@@ -1634,6 +1637,24 @@ public class BuildingModule extends ConfigurableWorldModule {
 				
 			}
 			
+			/**
+			 * returns the roof polygon. It is cached because it is needed
+			 * for every vertex in {@link #getRoofEleAt(VectorXZ)}.
+			 */
+			@Override
+			public final PolygonWithHolesXZ getPolygon() {
+				if (roofPolygon == null) {
+					roofPolygon = createPolygon();
+				}
+				return roofPolygon;
+			}
+			
+			/**
+			 * creates the roof polygon, usually by inserting additional
+			 * vertices for the roof's edges into the outline
+			 */
+			protected abstract PolygonWithHolesXZ createPolygon();
+			
 		}
 		
 		private class GabledRoof extends RoofWithRidge {
@@ -1643,7 +1664,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 			}
 			
 			@Override
-			public PolygonWithHolesXZ getPolygon() {
+			protected PolygonWithHolesXZ createPolygon() {
 				
 				PolygonXZ newOuter = polygon.getOuter();
 				
@@ -1682,7 +1703,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 			}
 			
 			@Override
-			public PolygonWithHolesXZ getPolygon() {
+			protected PolygonWithHolesXZ createPolygon() {
 				return polygon;
 			}
 			
@@ -1737,7 +1758,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 			}
 			
 			@Override
-			public PolygonWithHolesXZ getPolygon() {
+			protected PolygonWithHolesXZ createPolygon() {
 				
 				PolygonXZ newOuter = polygon.getOuter();
 				
@@ -1806,7 +1827,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 			}
 			
 			@Override
-			public PolygonWithHolesXZ getPolygon() {
+			protected PolygonWithHolesXZ createPolygon() {
 				
 				PolygonXZ newOuter = polygon.getOuter();
 
@@ -1891,7 +1912,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 			}
 
 			@Override
-			public PolygonWithHolesXZ getPolygon() {
+			protected PolygonWithHolesXZ createPolygon() {
 
 				PolygonXZ newOuter = polygon.getOuter();
 
@@ -1968,7 +1989,7 @@ public class BuildingModule extends ConfigurableWorldModule {
 			}
 			
 			@Override
-			public PolygonWithHolesXZ getPolygon() {
+			protected PolygonWithHolesXZ createPolygon() {
 				return polygon;
 			}
 			
@@ -1,5 +1,6 @@
 package org.osm2world.core.world.modules;
 
+import static java.lang.Math.round;
 import static java.util.Collections.*;
 import static org.osm2world.core.map_data.creation.EmptyTerrainBuilder.EMPTY_SURFACE_TAG;
 import static org.osm2world.core.map_elevation.creation.EleConstraintEnforcer.ConstraintType.MIN;
@@ -14,15 +15,19 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.configuration.Configuration;
 import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
 import org.openstreetmap.josm.plugins.graphview.core.data.TagGroup;
 import org.osm2world.core.map_data.creation.EmptyTerrainBuilder;
 import org.osm2world.core.map_data.data.MapArea;
 import org.osm2world.core.map_data.data.overlaps.MapOverlap;
 import org.osm2world.core.map_data.data.overlaps.MapOverlapType;
+import org.osm2world.core.map_elevation.creation.AdaptiveTerrainSampler;
 import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer;
+import org.osm2world.core.map_elevation.creation.TerrainInterpolator;
 import org.osm2world.core.map_elevation.data.EleConnector;
 import org.osm2world.core.map_elevation.data.GroundState;
+import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.LineSegmentXZ;
 import org.osm2world.core.math.PolygonWithHolesXZ;
 import org.osm2world.core.math.PolygonXYZ;
@@ -34,12 +39,14 @@ import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.math.algorithms.CAGUtil;
 import org.osm2world.core.math.algorithms.JTSTriangulationUtil;
 import org.osm2world.core.math.algorithms.Poly2TriTriangulationUtil;
+import org.osm2world.core.math.datastructures.PolygonCoverageGrid;
 import org.osm2world.core.target.RenderableToAllTargets;
 import org.osm2world.core.target.Target;
 import org.osm2world.core.target.common.material.Material;
 import org.osm2world.core.target.common.material.Materials;
 import org.osm2world.core.world.data.AbstractAreaWorldObject;
 import org.osm2world.core.world.data.TerrainBoundaryWorldObject;
+import org.osm2world.core.world.data.TerrainDependentWorldObject;
 import org.osm2world.core.world.data.WorldObject;
 import org.osm2world.core.world.data.WorldObjectWithOutline;
 import org.osm2world.core.world.modules.common.AbstractModule;
@@ -65,6 +72,27 @@ public class SurfaceAreaModule extends AbstractModule {
 		defaultSurfaceMap.put(new Tag("landuse", "grass"), "grass");
 	}
 	
+	/** sampler for adaptive terrain density, null if disabled */
+	private AdaptiveTerrainSampler terrainSampler = null;
+	
+	@Override
+	public void setConfiguration(Configuration config) {
+		
+		super.setConfiguration(config);
+		
+		if (config.getBoolean("adaptiveTerrain", false)) {
+			terrainSampler = new AdaptiveTerrainSampler(
+					config.getDouble("terrainVerticalTolerance", 1.0),
+					config.getDouble("terrainMinPointDistance",
+							EmptyTerrainBuilder.POINT_GRID_DIST / 2),
+					config.getDouble("terrainMaxPointDistance",
+							EmptyTerrainBuilder.POINT_GRID_DIST * 8));
+		} else {
+			terrainSampler = null;
+		}
+		
+	}
+	
 	@Override
 	protected void applyToArea(MapArea area) {
 		
@@ -73,13 +101,14 @@ public class SurfaceAreaModule extends AbstractModule {
 		TagGroup tags = area.getTags();
 		
 		if (tags.containsKey("surface")) {
-			area.addRepresentation(new SurfaceArea(area, tags.getValue("surface")));
+			area.addRepresentation(new SurfaceArea(area,
+					tags.getValue("surface"), terrainSampler));
 		} else {
 		
 			for (Tag tagWithDefault : defaultSurfaceMap.keySet()) {
 				if (tags.contains(tagWithDefault)) {
-					area.addRepresentation(new SurfaceArea(
-							area, defaultSurfaceMap.get(tagWithDefault)));
+					area.addRepresentation(new SurfaceArea(area,
+							defaultSurfaceMap.get(tagWithDefault), terrainSampler));
 				}
 			}
 			
@@ -88,15 +117,30 @@ public class SurfaceAreaModule extends AbstractModule {
 	}
 	
 	private static class SurfaceArea extends AbstractAreaWorldObject
-		implements RenderableToAllTargets, TerrainBoundaryWorldObject {
+		implements RenderableToAllTargets, TerrainBoundaryWorldObject,
+		TerrainDependentWorldObject {
 		
 		private final String surface;
+		private final AdaptiveTerrainSampler terrainSampler;
+		
+		private TerrainInterpolator terrainInterpolator = null;
 		
 		private Collection<TriangleXZ> triangulationXZ;
 		
-		public SurfaceArea(MapArea area, String surface) {
+		/**
+		 * @param terrainSampler  chooses points within the area based on
+		 *                        the terrain shape; null for a regular grid
+		 */
+		public SurfaceArea(MapArea area, String surface,
+				AdaptiveTerrainSampler terrainSampler) {
 			super(area);
 			this.surface = surface;
+			this.terrainSampler = terrainSampler;
+		}
+		
+		@Override
+		public void setTerrainInterpolator(TerrainInterpolator interpolator) {
+			this.terrainInterpolator = interpolator;
 		}
 
 		@Override
@@ -134,6 +178,8 @@ public class SurfaceAreaModule extends AbstractModule {
 			
 			boolean isEmptyTerrain = surface.equals(EMPTY_SURFACE_TAG.value);
 			
+			boolean adaptive = terrainSampler != null && terrainInterpolator != null;
+			
 			/* collect the outlines of overlapping ground polygons and other polygons,
 			 * and EleConnectors within the area */
 			
@@ -212,27 +258,43 @@ public class SurfaceAreaModule extends AbstractModule {
 			}
 			}
 			
-			/* add a grid of points within the area for smoother surface shapes */
+			/* empty terrain patches without anything on them
+			 * are the most common case, triangulate them directly */
+			
+			if (isEmptyTerrain && !adaptive && allPolys.isEmpty()
+					&& eleConnectorPoints.isEmpty()) {
+				
+				triangulationXZ = triangulateGridPatch(area.getPolygon());
+				
+				if (triangulationXZ != null) {
+					return triangulationXZ;
+				}
+				
+			}
+			
+			/* add a grid of points within the area for smoother surface shapes,
+			 * its density depends on the terrain shape in adaptive mode */
+			
+			Iterable<VectorXZ> pointGrid;
 			
-			VectorGridXZ pointGrid = new VectorGridXZ(
-					area.getAxisAlignedBoundingBoxXZ(),
-					EmptyTerrainBuilder.POINT_GRID_DIST);
+			if (adaptive) {
+				pointGrid = terrainSampler.getPoints(
+						area.getAxisAlignedBoundingBoxXZ(), terrainInterpolator);
+			} else {
+				pointGrid = new VectorGridXZ(
+						area.getAxisAlignedBoundingBoxXZ(),
+						EmptyTerrainBuilder.POINT_GRID_DIST);
+			}
+			
+			PolygonCoverageGrid allPolysGrid =
+					PolygonCoverageGrid.forSimplePolygons(allPolys);
 			
 			for (VectorXZ point : pointGrid) {
 				
 				//don't insert if it is e.g. on top of a tunnel;
 				//otherwise there would be no minimum vertical distance
 				
-				boolean safe = true;
-				
-				for (SimplePolygonXZ polygon : allPolys) {
-					if (polygon.contains(point)) {
-						safe = false;
-						break;
-					}
-				}
-				
-				if (safe) {
+				if (!allPolysGrid.covers(point)) {
 					eleConnectorPoints.add(point);
 				}
 				
@@ -244,9 +306,6 @@ public class SurfaceAreaModule extends AbstractModule {
 			
 			if (subtractPolys.isEmpty()) {
 				
-				/* SUGGEST (performance) handle the common "empty terrain cell"
-				 * special case more efficiently, also regarding point raster? */
-				
 				polygons = singleton(area.getPolygon());
 				
 			} else {
@@ -264,8 +323,11 @@ public class SurfaceAreaModule extends AbstractModule {
 				
 				List<VectorXZ> points = new ArrayList<VectorXZ>();
 				
+				PolygonCoverageGrid polygonGrid =
+						new PolygonCoverageGrid(singleton(polygon));
+				
 				for (VectorXZ point : eleConnectorPoints) {
-					if (polygon.contains(point)) {
+					if (polygonGrid.covers(point)) {
 						points.add(point);
 					}
 				}
@@ -368,4 +430,87 @@ public class SurfaceAreaModule extends AbstractModule {
 		
 	}
 
+	/**
+	 * triangulates a polygon as a regular grid with the spacing of
+	 * {@link EmptyTerrainBuilder#POINT_GRID_DIST}. This is only possible
+	 * for rectangular polygons with a vertex at each grid point of their
+	 * outline, such as the patches from {@link EmptyTerrainBuilder}.
+	 * 
+	 * The result is equivalent to a triangulation of the polygon using
+	 * all grid points as additional points, but much faster.
+	 * 
+	 * @return  the triangulation; null if the polygon's shape is not suitable
+	 */
+	static List<TriangleXZ> triangulateGridPatch(PolygonWithHolesXZ polygon) {
+		
+		if (!polygon.getHoles().isEmpty()) return null;
+		
+		double gridDist = EmptyTerrainBuilder.POINT_GRID_DIST;
+		
+		AxisAlignedBoundingBoxXZ bbox =
+				polygon.getOuter().getAxisAlignedBoundingBoxXZ();
+		
+		int minX = (int) round(bbox.minX / gridDist);
+		int minZ = (int) round(bbox.minZ / gridDist);
+		int maxX = (int) round(bbox.maxX / gridDist);
+		int maxZ = (int) round(bbox.maxZ / gridDist);
+		
+		if (minX * gridDist != bbox.minX || minZ * gridDist != bbox.minZ
+				|| maxX * gridDist != bbox.maxX || maxZ * gridDist != bbox.maxZ
+				|| maxX <= minX || maxZ <= minZ) {
+			return null;
+		}
+		
+		/* the outline must consist of exactly the grid points
+		 * on the bounding box's boundary */
+		
+		List<VectorXZ> outline = polygon.getOuter().getVertices();
+		
+		if (outline.size() != 2 * (maxX - minX + maxZ - minZ)) {
+			return null;
+		}
+		
+		for (VectorXZ v : outline) {
+			
+			if (round(v.x / gridDist) * gridDist != v.x
+					|| round(v.z / gridDist) * gridDist != v.z) {
+				return null;
+			}
+			
+			if (v.x != bbox.minX && v.x != bbox.maxX
+					&& v.z != bbox.minZ && v.z != bbox.maxZ) {
+				return null;
+			}
+			
+		}
+		
+		/* create two triangles for each grid cell */
+		
+		VectorXZ[][] points = new VectorXZ[maxX - minX + 1][maxZ - minZ + 1];
+		
+		for (int x = minX; x <= maxX; x++) {
+			for (int z = minZ; z <= maxZ; z++) {
+				points[x - minX][z - minZ] = new VectorXZ(
+						x * gridDist, z * gridDist);
+			}
+		}
+		
+		List<TriangleXZ> result = new ArrayList<TriangleXZ>(
+				2 * (maxX - minX) * (maxZ - minZ));
+		
+		for (int x = 0; x < maxX - minX; x++) {
+			for (int z = 0; z < maxZ - minZ; z++) {
+				
+				result.add(new TriangleXZ(points[x][z],
+						points[x + 1][z], points[x + 1][z + 1]));
+				result.add(new TriangleXZ(points[x][z],
+						points[x + 1][z + 1], points[x][z + 1]));
+				
+			}
+		}
+		
+		return result;
+		
+	}
+	
 }
@@ -1,6 +1,6 @@
 package org.osm2world.core.world.modules;
 
-import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.filterWorldObjectCollisions;
+import static org.osm2world.core.world.modules.common.WorldModuleGeometryUtil.createOutlineCoverageGrid;
 import static org.osm2world.core.world.modules.common.WorldModuleParseUtil.parseHeight;
 
 import java.util.ArrayList;
@@ -402,9 +402,8 @@ public class TreeModule extends ConfigurableWorldModule {
 			List<VectorXZ> treePositions =
 				GeometryUtil.distributePointsOn(area.getOsmObject().id,
 						area.getPolygon(), mapData.getBoundary(),
-						density, 0.3f);
-			
-			filterWorldObjectCollisions(treePositions, avoidedObjects);
+						density, 0.3f,
+						createOutlineCoverageGrid(avoidedObjects));
 			
 			/* create a terrain connector for each tree */
 			
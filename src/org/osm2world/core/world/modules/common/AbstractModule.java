@@ -1,10 +1,16 @@
 package org.osm2world.core.world.modules.common;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import org.osm2world.core.map_data.data.MapArea;
 import org.osm2world.core.map_data.data.MapData;
 import org.osm2world.core.map_data.data.MapElement;
 import org.osm2world.core.map_data.data.MapNode;
 import org.osm2world.core.map_data.data.MapWaySegment;
+import org.osm2world.core.util.FaultTolerantIterationUtil.Operation;
+import org.osm2world.core.util.ParallelIterationUtil;
 import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.WorldObject;
 
@@ -13,26 +19,76 @@ import org.osm2world.core.world.data.WorldObject;
  * 
  * Subclasses need to be able to create {@link WorldObject}s
  * for each {@link MapElement} in isolation.
- * This can make parallel application of the module possible.
+ * This makes parallel application of the module possible:
+ * If the configuration's "worldModuleThreads" value is not 1,
+ * the nodes, way segments and areas are each partitioned and processed
+ * by multiple threads (with 0 or less meaning one thread per processor).
+ * All nodes are still finished before way segments are processed,
+ * and all way segments before areas.
+ * 
+ * Modules that need global state should not use this class,
+ * but implement {@link WorldModule} directly.
  */
 public abstract class AbstractModule extends ConfigurableWorldModule {
-		
+	
 	@Override
 	public final void applyTo(MapData grid) {
 		
-		for (MapNode node : grid.getMapNodes()) {
-			applyToNode(node);
-		}
-
-		for (MapWaySegment segment : grid.getMapWaySegments()) {
-			applyToWaySegment(segment);
+		int threadCount = 1;
+		
+		if (config != null) {
+			threadCount = ParallelIterationUtil.getThreadCount(
+					config.getInt("worldModuleThreads", 1));
 		}
-
-		for (MapArea area : grid.getMapAreas()) {
-			applyToArea(area);
+		
+		if (threadCount == 1) {
+			
+			for (MapNode node : grid.getMapNodes()) {
+				applyToNode(node);
+			}
+	
+			for (MapWaySegment segment : grid.getMapWaySegments()) {
+				applyToWaySegment(segment);
+			}
+	
+			for (MapArea area : grid.getMapAreas()) {
+				applyToArea(area);
+			}
+			
+		} else {
+			
+			ParallelIterationUtil.iterate(asList(grid.getMapNodes()),
+					new Operation<MapNode>() {
+				@Override public void perform(MapNode node) {
+					applyToNode(node);
+				}
+			}, threadCount);
+			
+			ParallelIterationUtil.iterate(asList(grid.getMapWaySegments()),
+					new Operation<MapWaySegment>() {
+				@Override public void perform(MapWaySegment segment) {
+					applyToWaySegment(segment);
+				}
+			}, threadCount);
+			
+			ParallelIterationUtil.iterate(asList(grid.getMapAreas()),
+					new Operation<MapArea>() {
+				@Override public void perform(MapArea area) {
+					applyToArea(area);
+				}
+			}, threadCount);
+			
 		}
 		
 	}
+	
+	private static final <T> List<T> asList(Collection<T> elements) {
+		if (elements instanceof List<?>) {
+			return (List<T>) elements;
+		} else {
+			return new ArrayList<T>(elements);
+		}
+	}
 
 	/**
 	 * create {@link WorldObject}s for a {@link MapElement}.
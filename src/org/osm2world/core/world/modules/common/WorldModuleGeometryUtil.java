@@ -15,6 +15,7 @@ import org.osm2world.core.math.InvalidGeometryException;
 import org.osm2world.core.math.SimplePolygonXZ;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.math.datastructures.PolygonCoverageGrid;
 import org.osm2world.core.world.creation.WorldModule;
 import org.osm2world.core.world.data.WorldObject;
 import org.osm2world.core.world.data.WorldObjectWithOutline;
@@ -254,11 +255,33 @@ public final class WorldModuleGeometryUtil {
 		//TODO: add support for avoiding a radius around the position, too.
 		//this is easily possible once "inflating"/"shrinking" polygons is supported [would also be useful for water bodies etc.]
 		
-		/*
-		 * prepare filter polygons.
-		 * It improves performance to construct the outline polygons only once
-		 * instead of doing this within the loop iterating over positions.
-		 */
+		PolygonCoverageGrid filterGrid = createOutlineCoverageGrid(worldObjects);
+		
+		/* perform filtering of positions */
+		
+		Iterator<VectorXZ> positionIterator = positions.iterator();
+		
+		while (positionIterator.hasNext()) {
+			
+			VectorXZ pos = positionIterator.next();
+			
+			if (filterGrid.covers(pos)) {
+				positionIterator.remove();
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * prepares the area covered by the {@link WorldObjectWithOutline}s
+	 * from a collection of {@link WorldObject}s for fast collision tests.
+	 * Only objects with {@link GroundState#ON} are considered.
+	 * 
+	 * @see #filterWorldObjectCollisions(Collection, Collection)
+	 */
+	public static final PolygonCoverageGrid createOutlineCoverageGrid(
+			Collection<WorldObject> worldObjects) {
 		
 		List<SimplePolygonXZ> filterPolygons = new ArrayList<SimplePolygonXZ>();
 		
@@ -284,22 +307,7 @@ public final class WorldModuleGeometryUtil {
 		
 		}
 		
-		/* perform filtering of positions */
-		
-		Iterator<VectorXZ> positionIterator = positions.iterator();
-		
-		while (positionIterator.hasNext()) {
-			
-			VectorXZ pos = positionIterator.next();
-			
-			for (SimplePolygonXZ filterPolygon : filterPolygons) {
-				if (filterPolygon.contains(pos)) {
-					positionIterator.remove();
-					break;
-				}
-			}
-			
-		}
+		return PolygonCoverageGrid.forSimplePolygons(filterPolygons);
 		
 	}
 	
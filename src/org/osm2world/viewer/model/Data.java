@@ -12,6 +12,8 @@ import org.osm2world.core.ConversionFacade.ProgressListener;
 import org.osm2world.core.ConversionFacade.Results;
 import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.TerrainInterpolator;
+import org.osm2world.core.target.common.material.MaterialRegistry;
+import org.osm2world.core.target.common.material.Materials;
 import org.osm2world.core.util.functions.Factory;
 
 public class Data extends Observable {
@@ -58,8 +60,20 @@ public class Data extends Observable {
 				config.addProperty("maxBoundingBoxDegrees", 1);
 			}
 			
-			conversionResults = converter.createRepresentations(
-					osmFile, null, config, null);
+			MaterialRegistry materialRegistry = new MaterialRegistry(config);
+			materialRegistry.activate();
+			
+			try {
+				conversionResults = converter.createRepresentations(
+						osmFile, null, config, null);
+			} finally {
+				MaterialRegistry.deactivate();
+			}
+			
+			/* the viewer renders in other threads, which don't use
+			 * the conversion's material registry */
+			
+			Materials.configureMaterials(config);
 			
 		} catch (IOException e) {
 			
@@ -17,6 +17,8 @@ import javax.swing.JMenuBar;
 import javax.swing.JRadioButtonMenuItem;
 
 import org.apache.commons.configuration.Configuration;
+import org.osm2world.core.map_elevation.creation.BicubicRasterInterpolator;
+import org.osm2world.core.map_elevation.creation.BilinearRasterInterpolator;
 import org.osm2world.core.map_elevation.creation.EleConstraintEnforcer;
 import org.osm2world.core.map_elevation.creation.InverseDistanceWeightingInterpolator;
 import org.osm2world.core.map_elevation.creation.LPEleConstraintEnforcer;
@@ -264,7 +266,9 @@ public class ViewerFrame extends JFrame{
 					LinearInterpolator.class,
 					InverseDistanceWeightingInterpolator.class,
 					LeastSquaresInterpolator.class,
-					NaturalNeighborInterpolator.class);
+					NaturalNeighborInterpolator.class,
+					BilinearRasterInterpolator.class,
+					BicubicRasterInterpolator.class);
 			
 			for (Class<? extends TerrainInterpolator> c : interpolatorClasses) {
 				
@@ -4,11 +4,11 @@ import static java.util.Arrays.asList;
 
 import java.awt.Color;
 import java.io.IOException;
-import java.util.Collection;
 
 import org.osm2world.core.ConversionFacade.Results;
 import org.osm2world.core.map_data.creation.MapProjection;
-import org.osm2world.core.map_elevation.creation.TerrainInterpolator;
+import org.osm2world.core.map_elevation.creation.SiteBasedTerrainInterpolator;
+import org.osm2world.core.map_elevation.creation.TerrainSites;
 import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.VectorGridXZ;
 import org.osm2world.core.math.VectorXYZ;
@@ -22,7 +22,7 @@ import org.osm2world.viewer.model.RenderOptions;
 
 public abstract class TerrainInterpolatorDebugView extends DebugView {
 
-	protected abstract TerrainInterpolator buildInterpolator();
+	protected abstract SiteBasedTerrainInterpolator buildInterpolator();
 	
 	private static final double SAMPLE_DIST = 3;
 	
@@ -64,9 +64,9 @@ public abstract class TerrainInterpolatorDebugView extends DebugView {
 		
 		try {
 			
-			Collection<VectorXYZ> sites = eleData.getSites(map);
+			TerrainSites sites = eleData.getSites(map);
 			
-			TerrainInterpolator strategy = buildInterpolator();
+			SiteBasedTerrainInterpolator strategy = buildInterpolator();
 			strategy.setKnownSites(sites);
 			
 			AxisAlignedBoundingBoxXZ bound = map.getDataBoundary();
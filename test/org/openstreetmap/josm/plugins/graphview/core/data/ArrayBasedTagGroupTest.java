@@ -0,0 +1,95 @@
+package org.openstreetmap.josm.plugins.graphview.core.data;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class ArrayBasedTagGroupTest {
+	
+	@Test
+	public void testSmallGroup() {
+		
+		TagGroup tags = new ArrayBasedTagGroup(
+				new String[] {"highway", "name", "lanes"},
+				new String[] {"residential", "Main Street", "2"});
+		
+		assertEquals(3, tags.size());
+		assertFalse(tags.isEmpty());
+		
+		assertEquals("residential", tags.getValue("highway"));
+		assertEquals("2", tags.getValue("lanes"));
+		assertNull(tags.getValue("building"));
+		
+		assertTrue(tags.containsKey("name"));
+		assertFalse(tags.containsKey("Name"));
+		assertTrue(tags.containsValue("Main Street"));
+		assertTrue(tags.contains("highway", "residential"));
+		assertFalse(tags.contains("highway", "primary"));
+		assertTrue(tags.contains(new Tag("lanes", "2")));
+		assertTrue(tags.containsAny("highway", asList("primary", "residential")));
+		assertTrue(tags.containsAny(asList("building", "highway"), "residential"));
+		assertTrue(tags.containsAnyKey(asList("building", "lanes")));
+		
+		/* iteration is ordered by key */
+		
+		Iterator<Tag> iterator = tags.iterator();
+		assertEquals(new Tag("highway", "residential"), iterator.next());
+		assertEquals(new Tag("lanes", "2"), iterator.next());
+		assertEquals(new Tag("name", "Main Street"), iterator.next());
+		assertFalse(iterator.hasNext());
+		
+	}
+	
+	@Test
+	public void testLargeGroup() {
+		
+		String[] keys = new String[20];
+		String[] values = new String[20];
+		
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = "key" + (19 - i);
+			values[i] = "value" + (19 - i);
+		}
+		
+		TagGroup tags = new ArrayBasedTagGroup(keys, values);
+		
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals("value" + i, tags.getValue("key" + i));
+		}
+		
+		assertNull(tags.getValue("key20"));
+		assertNull(tags.getValue("a"));
+		
+	}
+	
+	@Test
+	public void testDuplicateKeys() {
+		
+		TagGroup tags = new ArrayBasedTagGroup(
+				new String[] {"name", "highway", "name", "lanes", "name"},
+				new String[] {"A", "residential", "B", "2", "C"});
+		
+		/* the last value of a key is used */
+		
+		assertEquals(3, tags.size());
+		assertEquals("C", tags.getValue("name"));
+		assertFalse(tags.containsValue("A"));
+		assertFalse(tags.containsValue("B"));
+		
+		Iterator<Tag> iterator = tags.iterator();
+		assertEquals(new Tag("highway", "residential"), iterator.next());
+		assertEquals(new Tag("lanes", "2"), iterator.next());
+		assertEquals(new Tag("name", "C"), iterator.next());
+		assertFalse(iterator.hasNext());
+		
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDifferentLengths() {
+		new ArrayBasedTagGroup(new String[] {"a", "b"}, new String[] {"c"});
+	}
+	
+}
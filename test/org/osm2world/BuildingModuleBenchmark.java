@@ -0,0 +1,169 @@
+package org.osm2world;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.osm2world.core.ConversionFacade;
+import org.osm2world.core.ConversionFacade.Results;
+import org.osm2world.core.target.Target;
+import org.osm2world.core.target.TargetUtil;
+import org.osm2world.core.target.statistics.StatisticsTarget;
+import org.osm2world.core.world.creation.WorldModule;
+import org.osm2world.core.world.modules.BuildingModule;
+
+/**
+ * measures the time needed to render buildings with various roof shapes.
+ * A grid of synthetic buildings is written to a temporary OSM file
+ * and converted using only the {@link BuildingModule}.
+ * Each run renders the resulting world objects to a {@link StatisticsTarget}.
+ *
+ * Usage: BuildingModuleBenchmark [runs] [buildingsPerSide]
+ */
+public class BuildingModuleBenchmark {
+	
+	private static final String[] ROOF_SHAPES = {
+		"gabled", "hipped", "half-hipped", "gambrel",
+		"mansard", "pyramidal", "flat", "skillion"
+	};
+	
+	public static void main(String[] args) throws IOException {
+		
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int buildingsPerSide = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+		
+		File osmFile = File.createTempFile("buildings", ".osm");
+		osmFile.deleteOnExit();
+		
+		writeBuildings(osmFile, buildingsPerSide);
+		
+		double[] times = new double[runs];
+		
+		for (int run = 0; run < runs; run++) {
+			
+			List<WorldModule> modules = new ArrayList<WorldModule>();
+			modules.add(new BuildingModule());
+			
+			Results results = new ConversionFacade().createRepresentations(
+					osmFile, modules, new BaseConfiguration(),
+					Collections.<Target<?>>emptyList());
+			
+			long start = System.nanoTime();
+			
+			TargetUtil.renderWorldObjects(new StatisticsTarget(),
+					results.getMapData(), true);
+			
+			times[run] = (System.nanoTime() - start) / 1e6;
+			
+		}
+		
+		Arrays.sort(times);
+		
+		System.out.println(buildingsPerSide * buildingsPerSide + " buildings, "
+				+ runs + " runs");
+		System.out.println("median: " + times[runs / 2] + " ms, "
+				+ "min: " + times[0] + " ms");
+		
+	}
+	
+	/**
+	 * writes a grid of rectangular buildings with slightly irregular outlines.
+	 * Each side has additional vertices, and the roof shapes alternate.
+	 */
+	private static void writeBuildings(File file, int buildingsPerSide)
+			throws IOException {
+		
+		Random random = new Random(1);
+		
+		PrintWriter out = new PrintWriter(new FileWriter(file));
+		
+		try {
+			
+			out.println("<?xml version='1.0' encoding='UTF-8'?>");
+			out.println("<osm version='0.6' generator='BuildingModuleBenchmark'>");
+			
+			List<long[]> ways = new ArrayList<long[]>();
+			long nodeId = 1;
+			
+			for (int i = 0; i < buildingsPerSide; i++) {
+				for (int j = 0; j < buildingsPerSide; j++) {
+					
+					double lat0 = 48.0 + i * 0.0006;
+					double lon0 = 13.0 + j * 0.0009;
+					double width = 0.0002 + random.nextDouble() * 0.0002;
+					double height = 0.0001 + random.nextDouble() * 0.0001;
+					
+					double[][] corners = {
+						{lat0, lon0},
+						{lat0, lon0 + width},
+						{lat0 + height, lon0 + width},
+						{lat0 + height, lon0}
+					};
+					
+					long[] nodeIds = new long[12];
+					
+					for (int k = 0; k < 4; k++) {
+						
+						double[] a = corners[k];
+						double[] b = corners[(k + 1) % 4];
+						
+						for (int t = 0; t < 3; t++) {
+							
+							double lat = a[0] + (b[0] - a[0]) * t / 3 + jitter(random);
+							double lon = a[1] + (b[1] - a[1]) * t / 3 + jitter(random);
+							
+							out.println(String.format(Locale.US,
+									"  <node id='%d' version='1' lat='%.9f' lon='%.9f' />",
+									nodeId, lat, lon));
+							
+							nodeIds[3 * k + t] = nodeId;
+							nodeId++;
+							
+						}
+						
+					}
+					
+					ways.add(nodeIds);
+					
+				}
+			}
+			
+			for (int w = 0; w < ways.size(); w++) {
+				
+				out.println("  <way id='" + (w + 1) + "' version='1'>");
+				
+				for (long id : ways.get(w)) {
+					out.println("    <nd ref='" + id + "' />");
+				}
+				out.println("    <nd ref='" + ways.get(w)[0] + "' />");
+				
+				out.println("    <tag k='building' v='yes' />");
+				out.println("    <tag k='building:levels' v='3' />");
+				out.println("    <tag k='roof:shape' v='"
+						+ ROOF_SHAPES[w % ROOF_SHAPES.length] + "' />");
+				out.println("    <tag k='roof:height' v='4' />");
+				out.println("  </way>");
+				
+			}
+			
+			out.println("</osm>");
+			
+		} finally {
+			out.close();
+		}
+		
+	}
+	
+	private static double jitter(Random random) {
+		return (random.nextDouble() * 2 - 1) * 1e-6;
+	}
+	
+}
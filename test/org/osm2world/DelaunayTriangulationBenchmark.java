@@ -0,0 +1,81 @@
+package org.osm2world;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.osm2world.core.map_elevation.creation.DelaunayTriangulation;
+import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
+import org.osm2world.core.math.VectorXYZ;
+
+/**
+ * measures the time needed to build a {@link DelaunayTriangulation}
+ * for a grid of sites with the layout of an SRTM3 tile
+ * (1201x1201 samples, about 90m apart).
+ *
+ * Usage: DelaunayTriangulationBenchmark [samplesPerSide] [--sequential]
+ *
+ * With --sequential, points are inserted one by one in row order
+ * instead of using {@link DelaunayTriangulation#insertAll}.
+ * This is very slow for full tiles, so a smaller sample count
+ * should be used for comparisons.
+ */
+public class DelaunayTriangulationBenchmark {
+	
+	private static final double SAMPLE_DISTANCE = 90;
+	
+	public static void main(String[] args) {
+		
+		int samplesPerSide = 1201;
+		boolean sequential = false;
+		
+		for (String arg : args) {
+			if ("--sequential".equals(arg)) {
+				sequential = true;
+			} else {
+				samplesPerSide = Integer.parseInt(arg);
+			}
+		}
+		
+		/* create the sites with random elevations */
+		
+		Random random = new Random(0);
+		
+		List<VectorXYZ> sites = new ArrayList<VectorXYZ>(
+				samplesPerSide * samplesPerSide);
+		
+		for (int row = 0; row < samplesPerSide; row++) {
+			for (int col = 0; col < samplesPerSide; col++) {
+				sites.add(new VectorXYZ(
+						col * SAMPLE_DISTANCE,
+						random.nextDouble() * 1000,
+						row * SAMPLE_DISTANCE));
+			}
+		}
+		
+		AxisAlignedBoundingBoxXZ bounds =
+				new AxisAlignedBoundingBoxXZ(sites).pad(100);
+		
+		/* build the triangulation */
+		
+		long startTime = System.currentTimeMillis();
+		
+		DelaunayTriangulation triangulation = new DelaunayTriangulation(bounds);
+		
+		if (sequential) {
+			for (VectorXYZ site : sites) {
+				triangulation.insert(site);
+			}
+		} else {
+			triangulation.insertAll(sites);
+		}
+		
+		long time = System.currentTimeMillis() - startTime;
+		
+		System.out.println(sites.size() + " sites inserted "
+				+ (sequential ? "sequentially" : "with insertAll")
+				+ " in " + time + " ms");
+		
+	}
+
+}
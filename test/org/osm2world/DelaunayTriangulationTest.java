@@ -5,12 +5,15 @@ import static org.junit.Assert.*;
 import static org.osm2world.core.test.TestUtil.assertAlmostEquals;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import org.junit.Test;
 import org.osm2world.core.map_elevation.creation.DelaunayTriangulation;
 import org.osm2world.core.map_elevation.creation.DelaunayTriangulation.DelaunayTriangle;
+import org.osm2world.core.map_elevation.creation.DelaunayTriangulation.NaturalNeighbors;
 import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
@@ -69,6 +72,171 @@ public class DelaunayTriangulationTest {
 		
 	}
 	
+	@Test
+	public void testInsertAll() {
+		
+		Random random = new Random(42);
+		
+		AxisAlignedBoundingBoxXZ bounds = new AxisAlignedBoundingBoxXZ(
+				-SIZE, -SIZE, +SIZE, +SIZE);
+		
+		List<VectorXYZ> points = new ArrayList<VectorXYZ>();
+		
+		for (int i = 0; i < 300; i++) {
+			double x = (random.nextDouble() * 2 * SIZE) - SIZE;
+			double z = (random.nextDouble() * 2 * SIZE) - SIZE;
+			points.add(new VectorXYZ(x, 0, z));
+		}
+		
+		DelaunayTriangulation triangulation = new DelaunayTriangulation(bounds);
+		triangulation.insertAll(points);
+		
+		assertTriangulationProperties(triangulation, points);
+		
+		/* compare with one-by-one insertion
+		 * (vertex order of the triangles may differ) */
+		
+		DelaunayTriangulation triangulation2 = new DelaunayTriangulation(bounds);
+		
+		for (VectorXYZ point : points) {
+			triangulation2.insert(point);
+		}
+		
+		assertEquals(countTriangles(triangulation2),
+				countTriangles(triangulation));
+		
+		/* check that walks find all inserted points */
+		
+		for (VectorXYZ point : points) {
+			DelaunayTriangle triangle =
+					triangulation.getEnlosingTriangle(point.xz());
+			assertTrue(triangle.p0 == point
+					|| triangle.p1 == point || triangle.p2 == point);
+		}
+		
+	}
+	
+	@Test
+	public void testNaturalNeighborsSameAsProbe() {
+		
+		Random random = new Random(1);
+		
+		int comparisonCount = 0;
+		
+		for (int siteCount : new int[] {1, 5, 30, 200, 1000}) {
+			
+			List<VectorXYZ> sites = createSites(random, siteCount);
+			
+			DelaunayTriangulation triangulation = createTriangulation(sites);
+			
+			for (int i = 0; i < 200; i++) {
+				
+				VectorXZ point = new VectorXZ(
+						random.nextDouble() * 1000 - 500,
+						random.nextDouble() * 1000 - 500);
+				
+				NaturalNeighbors expected = triangulation.probe(point);
+				NaturalNeighbors actual = triangulation.getNaturalNeighbors(point);
+				
+				assertValidWeights(actual);
+				
+				/* probe's weights are only valid if no corner
+				 * of the bounding box is a natural neighbor */
+				
+				if (!sites.containsAll(asList(expected.neighbors))) continue;
+				
+				assertSameWeights(expected, actual);
+				comparisonCount ++;
+				
+			}
+			
+		}
+		
+		assertTrue(comparisonCount > 400);
+		
+	}
+	
+	@Test
+	public void testNaturalNeighborsDoNotModify() {
+		
+		List<VectorXYZ> sites = createSites(new Random(2), 100);
+		
+		DelaunayTriangulation triangulation = createTriangulation(sites);
+		
+		List<DelaunayTriangle> trianglesBefore = new ArrayList<DelaunayTriangle>();
+		for (DelaunayTriangle triangle : triangulation.getTriangles()) {
+			trianglesBefore.add(triangle);
+		}
+		
+		triangulation.getNaturalNeighbors(new VectorXZ(10, 20));
+		
+		List<DelaunayTriangle> trianglesAfter = new ArrayList<DelaunayTriangle>();
+		for (DelaunayTriangle triangle : triangulation.getTriangles()) {
+			trianglesAfter.add(triangle);
+		}
+		
+		assertEquals(trianglesBefore, trianglesAfter);
+		
+	}
+	
+	@Test
+	public void testNaturalNeighborsAtSitesOfPlane() {
+		
+		/* the interpolation reproduces the sites' elevations */
+		
+		Random random = new Random(3);
+		
+		List<VectorXYZ> sites = new ArrayList<VectorXYZ>();
+		
+		for (int i = 0; i < 100; i++) {
+			double x = random.nextDouble() * 1000 - 500;
+			double z = random.nextDouble() * 1000 - 500;
+			sites.add(new VectorXYZ(x, 0.2 * x + 0.1 * z, z));
+		}
+		
+		DelaunayTriangulation triangulation = createTriangulation(sites);
+		
+		for (int i = 0; i < 100; i++) {
+			
+			/* stay away from the bounding box corners, which have elevation 0 */
+			
+			VectorXZ point = new VectorXZ(
+					random.nextDouble() * 200 - 100,
+					random.nextDouble() * 200 - 100);
+			
+			NaturalNeighbors nn = triangulation.getNaturalNeighbors(point);
+			
+			assertValidWeights(nn);
+			
+			double ele = 0;
+			
+			for (int n = 0; n < nn.neighbors.length; n++) {
+				ele += nn.neighbors[n].y * nn.relativeWeights[n];
+			}
+			
+			boolean onlySites = true;
+			
+			for (VectorXYZ neighbor : nn.neighbors) {
+				onlySites &= sites.contains(neighbor);
+			}
+			
+			if (onlySites) {
+				assertEquals(0.2 * point.x + 0.1 * point.z, ele, 1e-6);
+			}
+			
+		}
+		
+	}
+	
+	private static int countTriangles(DelaunayTriangulation triangulation) {
+		int count = 0;
+		for (@SuppressWarnings("unused") DelaunayTriangle t
+				: triangulation.getTriangles()) {
+			count ++;
+		}
+		return count;
+	}
+	
 	/**
 	 * asserts that two triangulations are equal
 	 */
@@ -155,4 +323,62 @@ public class DelaunayTriangulationTest {
 		
 	}
 	
+	private static void assertValidWeights(NaturalNeighbors nn) {
+		
+		double weightSum = 0;
+		
+		for (double weight : nn.relativeWeights) {
+			assertTrue(weight >= 0 && weight <= 1);
+			weightSum += weight;
+		}
+		
+		assertEquals(1, weightSum, 1e-9);
+		
+	}
+	
+	private static void assertSameWeights(NaturalNeighbors expected,
+			NaturalNeighbors actual) {
+		
+		assertEquals(expected.neighbors.length, actual.neighbors.length);
+		
+		Map<VectorXYZ, Double> expectedWeights = new HashMap<VectorXYZ, Double>();
+		
+		for (int i = 0; i < expected.neighbors.length; i++) {
+			expectedWeights.put(expected.neighbors[i], expected.relativeWeights[i]);
+		}
+		
+		for (int i = 0; i < actual.neighbors.length; i++) {
+			assertTrue(expectedWeights.containsKey(actual.neighbors[i]));
+			assertEquals(expectedWeights.get(actual.neighbors[i]),
+					actual.relativeWeights[i], 1e-6);
+		}
+		
+	}
+	
+	private static List<VectorXYZ> createSites(Random random, int count) {
+		
+		List<VectorXYZ> sites = new ArrayList<VectorXYZ>();
+		
+		for (int i = 0; i < count; i++) {
+			sites.add(new VectorXYZ(
+					random.nextDouble() * 1000 - 500,
+					random.nextDouble() * 100,
+					random.nextDouble() * 1000 - 500));
+		}
+		
+		return sites;
+		
+	}
+	
+	private static DelaunayTriangulation createTriangulation(List<VectorXYZ> sites) {
+		
+		DelaunayTriangulation triangulation = new DelaunayTriangulation(
+				new AxisAlignedBoundingBoxXZ(-600, -600, 600, 600));
+		
+		triangulation.insertAll(sites);
+		
+		return triangulation;
+		
+	}
+	
 }
@@ -0,0 +1,137 @@
+package org.osm2world;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.josm.plugins.graphview.core.data.ArrayBasedTagGroup;
+import org.openstreetmap.josm.plugins.graphview.core.data.MapBasedTagGroup;
+import org.openstreetmap.josm.plugins.graphview.core.data.Tag;
+import org.openstreetmap.josm.plugins.graphview.core.data.TagGroup;
+import org.osm2world.core.osm.creation.OsmosisReader;
+import org.osm2world.core.osm.data.OSMData;
+import org.osm2world.core.osm.data.OSMElement;
+
+/**
+ * compares the heap used by the tags of an OSM file
+ * when they are stored as {@link MapBasedTagGroup}s (each with their own
+ * string instances, as produced by the XML and PBF parsers)
+ * and as {@link ArrayBasedTagGroup}s with shared strings.
+ *
+ * Usage: TagGroupMemoryBenchmark file.osm|file.osm.pbf
+ */
+public class TagGroupMemoryBenchmark {
+	
+	/** keeps the data reachable during the measurements */
+	private static OSMData osmData;
+	
+	public static void main(String[] args) throws IOException {
+		
+		osmData = new OsmosisReader(new File(args[0])).getData();
+		
+		/* elements without tags use a shared empty tag group, ignore them */
+		
+		List<OSMElement> elements = new ArrayList<OSMElement>();
+		
+		for (OSMElement element : osmData.getNodes()) {
+			if (!element.tags.isEmpty()) elements.add(element);
+		}
+		for (OSMElement element : osmData.getWays()) {
+			if (!element.tags.isEmpty()) elements.add(element);
+		}
+		for (OSMElement element : osmData.getRelations()) {
+			if (!element.tags.isEmpty()) elements.add(element);
+		}
+		
+		System.out.println(elements.size() + " tagged elements");
+		
+		System.out.println("MapBasedTagGroup:   "
+				+ measureMapBased(elements) / 1024 + " KiB");
+		
+		System.out.println("ArrayBasedTagGroup: "
+				+ measureArrayBased(elements) / 1024 + " KiB");
+		
+	}
+	
+	/**
+	 * returns the heap used by map-based tag groups with separate strings
+	 */
+	private static long measureMapBased(List<OSMElement> elements) {
+		
+		long heapBefore = usedHeap();
+		
+		List<TagGroup> groups = new ArrayList<TagGroup>(elements.size());
+		
+		for (OSMElement element : elements) {
+			Map<String, String> tagMap = new HashMap<String, String>();
+			for (Tag tag : element.tags) {
+				tagMap.put(new String(tag.key), new String(tag.value));
+			}
+			groups.add(new MapBasedTagGroup(tagMap));
+		}
+		
+		long result = usedHeap() - heapBefore;
+		
+		groups.clear();
+		
+		return result;
+		
+	}
+	
+	/**
+	 * returns the heap used by array-based tag groups with shared strings
+	 */
+	private static long measureArrayBased(List<OSMElement> elements) {
+		
+		long heapBefore = usedHeap();
+		
+		List<TagGroup> groups = new ArrayList<TagGroup>(elements.size());
+		Map<String, String> stringPool = new HashMap<String, String>();
+		
+		for (OSMElement element : elements) {
+			String[] keys = new String[element.tags.size()];
+			String[] values = new String[element.tags.size()];
+			int i = 0;
+			for (Tag tag : element.tags) {
+				keys[i] = pooled(stringPool, new String(tag.key));
+				values[i] = pooled(stringPool, new String(tag.value));
+				i++;
+			}
+			groups.add(new ArrayBasedTagGroup(keys, values));
+		}
+		
+		stringPool.clear();
+		
+		long result = usedHeap() - heapBefore;
+		
+		groups.clear();
+		
+		return result;
+		
+	}
+	
+	private static String pooled(Map<String, String> stringPool, String s) {
+		String pooled = stringPool.get(s);
+		if (pooled == null) {
+			stringPool.put(s, s);
+			pooled = s;
+		}
+		return pooled;
+	}
+	
+	private static long usedHeap() {
+		
+		Runtime runtime = Runtime.getRuntime();
+		
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+		}
+		
+		return runtime.totalMemory() - runtime.freeMemory();
+		
+	}
+	
+}
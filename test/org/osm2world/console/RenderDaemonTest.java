@@ -0,0 +1,133 @@
+package org.osm2world.console;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RenderDaemonTest {
+	
+	private File spoolDirectory;
+	
+	@Before
+	public void setUp() throws IOException {
+		spoolDirectory = File.createTempFile("spool", "");
+		spoolDirectory.delete();
+		spoolDirectory.mkdir();
+	}
+	
+	@After
+	public void tearDown() {
+		for (File file : spoolDirectory.listFiles()) {
+			file.delete();
+		}
+		spoolDirectory.delete();
+	}
+	
+	@Test
+	public void testJobs() throws Exception {
+		
+		File outputFile = new File(spoolDirectory, "building.obj");
+		
+		writeJob("a", "-i test/files/building.osm -o " + outputFile);
+		writeJob("b", "-i test/files/missing.osm -o "
+				+ new File(spoolDirectory, "missing.obj"));
+		writeJob("c", "--gui");
+		
+		RenderDaemon daemon = new RenderDaemon(spoolDirectory, 2);
+		Thread daemonThread = new Thread(daemon);
+		daemonThread.start();
+		
+		try {
+			waitForFile(new File(spoolDirectory, "a" + RenderDaemon.STATUS_SUFFIX));
+			waitForFile(new File(spoolDirectory, "b" + RenderDaemon.STATUS_SUFFIX));
+			waitForFile(new File(spoolDirectory, "c" + RenderDaemon.STATUS_SUFFIX));
+		} finally {
+			daemon.stop();
+			daemonThread.join();
+		}
+		
+		/* successful conversion */
+		
+		List<String> status = readStatus("a");
+		
+		assertEquals("status=success", status.get(0));
+		assertTrue(status.get(1).startsWith("time="));
+		assertEquals("output=" + outputFile.getAbsolutePath(), status.get(2));
+		assertEquals(3, status.size());
+		
+		assertTrue(outputFile.length() > 0);
+		
+		/* failures */
+		
+		assertEquals("status=failure", readStatus("b").get(0));
+		assertTrue(readStatus("b").get(2).startsWith("error="));
+		
+		assertEquals("status=failure", readStatus("c").get(0));
+		assertTrue(readStatus("c").get(2).startsWith("error="));
+		
+		/* the parameter files have been removed */
+		
+		for (String name : new String[] {"a", "b", "c"}) {
+			assertFalse(new File(spoolDirectory, name + RenderDaemon.JOB_SUFFIX).exists());
+			assertFalse(new File(spoolDirectory, name + RenderDaemon.RUNNING_SUFFIX).exists());
+		}
+		
+	}
+	
+	private void writeJob(String name, String parameters) throws IOException {
+		
+		/* write with another suffix first, so the job is complete when found */
+		
+		File tempFile = new File(spoolDirectory, name + ".tmp");
+		
+		PrintWriter writer = new PrintWriter(new FileWriter(tempFile));
+		writer.println(parameters);
+		writer.close();
+		
+		assertTrue(tempFile.renameTo(
+				new File(spoolDirectory, name + RenderDaemon.JOB_SUFFIX)));
+		
+	}
+	
+	private List<String> readStatus(String name) throws IOException {
+		
+		List<String> lines = new ArrayList<String>();
+		
+		BufferedReader reader = new BufferedReader(new FileReader(
+				new File(spoolDirectory, name + RenderDaemon.STATUS_SUFFIX)));
+		
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		
+		return lines;
+		
+	}
+	
+	private static void waitForFile(File file) throws InterruptedException {
+		
+		for (int i = 0; i < 600 && !file.exists(); i++) {
+			Thread.sleep(100);
+		}
+		
+		assertTrue("missing " + file, file.exists());
+		
+	}
+	
+}
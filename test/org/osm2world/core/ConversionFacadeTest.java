@@ -0,0 +1,163 @@
+package org.osm2world.core;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.junit.Test;
+import org.osm2world.core.ConversionFacade.Results;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.target.Target;
+import org.osm2world.core.target.common.Primitive.Type;
+import org.osm2world.core.target.common.material.Material;
+import org.osm2world.core.target.common.material.MaterialRegistry;
+import org.osm2world.core.target.common.material.Materials;
+import org.osm2world.core.target.statistics.StatisticsTarget;
+
+public class ConversionFacadeTest {
+	
+	private static final File BUILDING_FILE = new File("test/files/building.osm");
+	
+	@Test
+	public void testConcurrentMaterialConfigurations() throws Exception {
+		
+		Color defaultColor = Materials.BUILDING_DEFAULT.getColor();
+		
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		
+		ConversionThread redThread = new ConversionThread(barrier, "#FF0000");
+		ConversionThread blueThread = new ConversionThread(barrier, "#0000FF");
+		
+		redThread.start();
+		blueThread.start();
+		
+		redThread.join();
+		blueThread.join();
+		
+		if (redThread.exception != null) throw redThread.exception;
+		if (blueThread.exception != null) throw blueThread.exception;
+		
+		assertTrue(redThread.colors.contains(Color.RED));
+		assertFalse(redThread.colors.contains(Color.BLUE));
+		
+		assertTrue(blueThread.colors.contains(Color.BLUE));
+		assertFalse(blueThread.colors.contains(Color.RED));
+		
+		/* the shared materials are not modified */
+		
+		assertNull(MaterialRegistry.getActive());
+		assertEquals(defaultColor, Materials.BUILDING_DEFAULT.getColor());
+		
+	}
+	
+	@Test
+	public void testRegistryOnlyActiveDuringConversion() throws Exception {
+		
+		Results results = new ConversionFacade().createRepresentations(
+				BUILDING_FILE, null, null, null);
+		
+		assertNotNull(results.getMaterialRegistry());
+		assertNull(MaterialRegistry.getActive());
+		
+	}
+	
+	@Test
+	public void testCallerRegistryRemainsActive() throws Exception {
+		
+		Configuration config = new BaseConfiguration();
+		config.addProperty("material_BUILDING_DEFAULT_color", "#FF0000");
+		
+		MaterialRegistry registry = new MaterialRegistry(config);
+		registry.activate();
+		
+		try {
+			
+			Results results = new ConversionFacade().createRepresentations(
+					BUILDING_FILE, null, config, null);
+			
+			assertSame(registry, results.getMaterialRegistry());
+			assertSame(registry, MaterialRegistry.getActive());
+			assertEquals(Color.RED, Materials.BUILDING_DEFAULT.getColor());
+			
+		} finally {
+			MaterialRegistry.deactivate();
+		}
+		
+	}
+	
+	/**
+	 * runs a conversion with a building color
+	 * and collects the colors of the materials while they are rendered
+	 */
+	private static class ConversionThread extends Thread {
+		
+		private final CyclicBarrier barrier;
+		private final String buildingColor;
+		
+		final Set<Color> colors = new HashSet<Color>();
+		Exception exception = null;
+		
+		public ConversionThread(CyclicBarrier barrier, String buildingColor) {
+			this.barrier = barrier;
+			this.buildingColor = buildingColor;
+		}
+		
+		@Override
+		public void run() {
+			
+			try {
+				
+				Configuration config = new BaseConfiguration();
+				config.addProperty("material_BUILDING_DEFAULT_color", buildingColor);
+				
+				ColorRecordingTarget target = new ColorRecordingTarget(colors);
+				
+				barrier.await();
+				
+				new ConversionFacade().createRepresentations(
+						BUILDING_FILE, null, config,
+						Collections.<Target<?>>singletonList(target));
+				
+			} catch (Exception e) {
+				exception = e;
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * target that records the color of each material
+	 * at the time a primitive is drawn with it
+	 */
+	private static class ColorRecordingTarget extends StatisticsTarget {
+		
+		private final Set<Color> colors;
+		
+		public ColorRecordingTarget(Set<Color> colors) {
+			this.colors = colors;
+		}
+		
+		@Override
+		protected void drawPrimitive(Type type, Material material,
+				List<VectorXYZ> vs, List<VectorXYZ> normals,
+				List<List<VectorXZ>> texCoordLists) {
+			
+			colors.add(material.getColor());
+			
+			super.drawPrimitive(type, material, vs, normals, texCoordLists);
+			
+		}
+		
+	}
+	
+}
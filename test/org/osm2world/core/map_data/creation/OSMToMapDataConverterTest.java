@@ -8,11 +8,15 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.osm2world.core.map_data.data.MapArea;
 import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapElement;
 import org.osm2world.core.map_data.data.MapNode;
+import org.osm2world.core.map_data.data.overlaps.MapOverlap;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.osm.creation.OsmosisReader;
 import org.osm2world.core.osm.data.OSMData;
@@ -23,6 +27,11 @@ public class OSMToMapDataConverterTest {
 	 * loads {@link MapData} from a file in the test files directory
 	 */
 	private static MapData loadMapData(String filename) throws IOException {
+		return loadMapData(filename, new BaseConfiguration());
+	}
+	
+	private static MapData loadMapData(String filename, Configuration config)
+			throws IOException {
 		
 		File testFile = new File("test"+File.separator+"files"
 				+File.separator+filename);
@@ -31,7 +40,8 @@ public class OSMToMapDataConverterTest {
 		OriginMapProjection mapProjection = new MetricMapProjection();
 		mapProjection.setOrigin(osmData);
 		
-		return new OSMToMapDataConverter(mapProjection).createMapData(osmData);
+		return new OSMToMapDataConverter(mapProjection, config)
+				.createMapData(osmData);
 		
 	}
 	
@@ -81,6 +91,31 @@ public class OSMToMapDataConverterTest {
 		genericMultipolygonTest("mp_two_holes_touching_inners.osm");
 	}
 	
+	@Test
+	public void testMultipolygonNestedRings() throws IOException {
+		
+		/* an island with a pond within a lake, all within the outer ring */
+		
+		MapData mapData = loadMapData("mp_nested_rings.osm");
+		
+		assertSame(2, mapData.getMapAreas().size());
+		
+		for (MapArea area : mapData.getMapAreas()) {
+			
+			assertSame(4, area.getOuterPolygon().size());
+			
+			if (area.getOuterPolygon().getArea() < 1000) {
+				// the island
+				assertSame(1, area.getHoles().size());
+			} else {
+				// the outer ring with the two lakes
+				assertSame(2, area.getHoles().size());
+			}
+			
+		}
+		
+	}
+	
 	private void genericCoastlineTest(String filename, List<LatLon> landSites,
 			List<LatLon> waterSites) throws IOException {
 
@@ -208,4 +243,50 @@ public class OSMToMapDataConverterTest {
 		
 	}
 	
+	/**
+	 * checks that overlaps calculated with multiple threads are identical
+	 * (including their order) to those calculated with a single thread
+	 */
+	@Test
+	public void testParallelOverlaps() throws IOException {
+		
+		Configuration parallelConfig = new BaseConfiguration();
+		parallelConfig.setProperty("overlapThreads", 4);
+		
+		MapData sequentialData = loadMapData("coastline_islands_and_coast.osm");
+		MapData parallelData = loadMapData("coastline_islands_and_coast.osm",
+				parallelConfig);
+		
+		List<String> sequentialOverlaps = describeOverlaps(sequentialData);
+		
+		assertFalse(sequentialOverlaps.isEmpty());
+		assertEquals(sequentialOverlaps, describeOverlaps(parallelData));
+		
+	}
+	
+	/**
+	 * describes all overlaps in a {@link MapData} using the positions of
+	 * the participating elements, so different instances can be compared
+	 */
+	private static List<String> describeOverlaps(MapData mapData) {
+		
+		List<MapElement> elements = new ArrayList<MapElement>();
+		for (MapElement e : mapData.getMapElements()) {
+			elements.add(e);
+		}
+		
+		List<String> result = new ArrayList<String>();
+		
+		for (MapElement e : elements) {
+			for (MapOverlap<?, ?> overlap : e.getOverlaps()) {
+				result.add(elements.indexOf(e) + ": " + overlap.type + " "
+						+ elements.indexOf(overlap.e1) + " "
+						+ elements.indexOf(overlap.e2));
+			}
+		}
+		
+		return result;
+		
+	}
+	
 }
@@ -0,0 +1,105 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static java.lang.Math.*;
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+
+public class AdaptiveTerrainSamplerTest {
+	
+	private static final AxisAlignedBoundingBoxXZ BOX =
+			new AxisAlignedBoundingBoxXZ(-1000, -1000, 1000, 1000);
+	
+	/** a tilted plane */
+	private static final TerrainInterpolator PLANE = new TerrainInterpolator() {
+		@Override public VectorXYZ interpolateEle(VectorXZ pos) {
+			return pos.xyz(0.3 * pos.x - 0.1 * pos.z + 100);
+		}
+	};
+	
+	/** a hill with a radius of about 100 meters at (500, 500) */
+	private static final TerrainInterpolator HILL = new TerrainInterpolator() {
+		@Override public VectorXYZ interpolateEle(VectorXZ pos) {
+			double distSquared = pos.subtract(new VectorXZ(500, 500)).lengthSquared();
+			return pos.xyz(100 * exp(-distSquared / (100 * 100)));
+		}
+	};
+	
+	@Test
+	public void testFlat() {
+		
+		AdaptiveTerrainSampler sampler = new AdaptiveTerrainSampler(1, 15, 240);
+		
+		assertEquals(240, sampler.getMaxPointDistance(), 0);
+		
+		List<VectorXZ> points = sampler.getPoints(BOX, PLANE);
+		
+		/* only corners of the largest cells */
+		
+		assertFalse(points.isEmpty());
+		
+		for (VectorXZ p : points) {
+			assertEquals(0, abs(IEEEremainder(p.x, 240)), 1e-9);
+			assertEquals(0, abs(IEEEremainder(p.z, 240)), 1e-9);
+		}
+		
+		assertEquals(new HashSet<VectorXZ>(points).size(), points.size());
+		
+	}
+	
+	@Test
+	public void testHill() {
+		
+		AdaptiveTerrainSampler sampler = new AdaptiveTerrainSampler(1, 15, 240);
+		
+		List<VectorXZ> points = sampler.getPoints(BOX, HILL);
+		
+		int pointsNearHill = 0;
+		int pointsFarFromHill = 0;
+		
+		for (VectorXZ p : points) {
+			
+			assertTrue(BOX.contains(p));
+			
+			if (p.distanceTo(new VectorXZ(500, 500)) < 150) {
+				pointsNearHill ++;
+			} else if (p.x < 0 && p.z < 0) {
+				pointsFarFromHill ++;
+			}
+			
+		}
+		
+		/* the hill uses the minimum point distance,
+		 * the flat quarter of the box far away uses the maximum */
+		
+		assertTrue(pointsNearHill > (300 / 30) * (300 / 30));
+		assertTrue(pointsFarFromHill <= (1000 / 240 + 1) * (1000 / 240 + 1));
+		
+		/* fewer points than a regular grid with the minimum distance */
+		
+		assertTrue(points.size() < (2000 / 15) * (2000 / 15) / 4);
+		
+	}
+	
+	@Test
+	public void testPointsNotOnBoundary() {
+		
+		AdaptiveTerrainSampler sampler = new AdaptiveTerrainSampler(0, 30, 30);
+		
+		AxisAlignedBoundingBoxXZ box = new AxisAlignedBoundingBoxXZ(0, 0, 300, 300);
+		
+		List<VectorXZ> points = sampler.getPoints(box, HILL);
+		
+		/* like a regular grid: 9 * 9 points within the box */
+		
+		assertEquals(81, points.size());
+		
+	}
+	
+}
@@ -0,0 +1,130 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static org.junit.Assert.*;
+import static org.osm2world.core.map_elevation.creation.EleConstraintEnforcer.ConstraintType.*;
+import static org.osm2world.core.map_elevation.data.GroundState.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.map_elevation.data.GroundState;
+import org.osm2world.core.math.VectorXZ;
+
+public class LPEleConstraintEnforcerTest {
+	
+	@Before
+	public void checkLpSolve() {
+		
+		/* the solver requires a native library */
+		
+		try {
+			System.loadLibrary("lpsolve55j");
+		} catch (UnsatisfiedLinkError e) {
+			Assume.assumeNoException(e);
+		}
+		
+	}
+	
+	@Test
+	public void testSplitSameAsSingleProblem() {
+		
+		double[] singleResult = solve(new LPEleConstraintEnforcer(1, false));
+		double[] splitResult = solve(new LPEleConstraintEnforcer(1, true));
+		double[] parallelResult = solve(new LPEleConstraintEnforcer(4, true));
+		
+		double[] expected = {
+				0, 5,      // bridge
+				0, 3, 6,   // chain
+				0, 10 };   // already satisfied
+		
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], singleResult[i], 1e-6);
+			assertEquals(expected[i], splitResult[i], 1e-6);
+			assertEquals(expected[i], parallelResult[i], 1e-6);
+		}
+		
+	}
+	
+	@Test
+	public void testSatisfiedComponentUnchanged() {
+		
+		/* the upper connector could be moved anywhere above 5
+		 * without any cost, but the component is already satisfied */
+		
+		List<EleConnector> cs = new ArrayList<EleConnector>();
+		
+		EleConnector lower = connector(cs, 0, ON, 0);
+		EleConnector upper = connector(cs, 1, ABOVE, 10);
+		
+		LPEleConstraintEnforcer enforcer = new LPEleConstraintEnforcer();
+		enforcer.addConnectors(cs);
+		enforcer.requireVerticalDistance(MIN, 5, upper, lower);
+		enforcer.enforceConstraints();
+		
+		assertEquals(0, lower.getPosXYZ().y, 0);
+		assertEquals(10, upper.getPosXYZ().y, 0);
+		
+	}
+	
+	/**
+	 * solves three independent components with unique solutions
+	 * and returns the resulting elevations
+	 */
+	private static double[] solve(LPEleConstraintEnforcer enforcer) {
+		
+		List<EleConnector> cs = new ArrayList<EleConnector>();
+		
+		/* a bridge above a road */
+		
+		EleConnector road = connector(cs, 0, ON, 0);
+		EleConnector bridge = connector(cs, 1, ABOVE, 0);
+		
+		/* a chain of connectors with fixed height differences */
+		
+		EleConnector chain0 = connector(cs, 2, ON, 0);
+		EleConnector chain1 = connector(cs, 3, ABOVE, 2);
+		EleConnector chain2 = connector(cs, 4, ABOVE, 7);
+		
+		/* a component that already satisfies its constraint */
+		
+		EleConnector satisfiedLower = connector(cs, 5, ON, 0);
+		EleConnector satisfiedUpper = connector(cs, 6, ABOVE, 10);
+		
+		enforcer.addConnectors(cs);
+		
+		enforcer.requireVerticalDistance(EXACT, 5, bridge, road);
+		enforcer.requireVerticalDistance(EXACT, 3, chain1, chain0);
+		enforcer.requireVerticalDistance(EXACT, 3, chain2, chain1);
+		enforcer.requireVerticalDistance(EXACT, 10, satisfiedUpper, satisfiedLower);
+		
+		enforcer.enforceConstraints();
+		
+		double[] result = new double[cs.size()];
+		
+		for (int i = 0; i < cs.size(); i++) {
+			result[i] = cs.get(i).getPosXYZ().y;
+		}
+		
+		return result;
+		
+	}
+	
+	private static EleConnector connector(List<EleConnector> cs,
+			int index, GroundState groundState, double ele) {
+		
+		VectorXZ pos = new VectorXZ(index * 10, 0);
+		
+		EleConnector c = new EleConnector(pos, null, groundState);
+		c.setPosXYZ(pos.xyz(ele));
+		
+		cs.add(c);
+		
+		return c;
+		
+	}
+	
+}
@@ -0,0 +1,74 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.osm2world.core.map_elevation.creation.LeastSquaresInterpolator.SiteWithPolynomial;
+import org.osm2world.core.math.VectorXZ;
+
+public class LeastSquaresInterpolatorTest {
+	
+	@Test
+	public void testPlane() {
+		
+		TerrainSites sites = createPlaneSites(new Random(1), 200);
+		
+		LeastSquaresInterpolator interpolator = new LeastSquaresInterpolator();
+		interpolator.setKnownSites(sites);
+		
+		for (SiteWithPolynomial site : interpolator.getSitesWithPolynomials()) {
+			assertNotNull(site.getPolynomial());
+		}
+		
+		Random random = new Random(2);
+		
+		for (int i = 0; i < 100; i++) {
+			
+			VectorXZ pos = new VectorXZ(
+					random.nextDouble() * 200 - 100,
+					random.nextDouble() * 200 - 100);
+			
+			assertEquals(planeEle(pos.x, pos.z),
+					interpolator.interpolateEle(pos).y, 1e-6);
+			
+		}
+		
+	}
+	
+	@Test
+	public void testTooFewSites() {
+		
+		/* no site has enough neighbors to approximate a polynomial */
+		
+		TerrainSites sites = createPlaneSites(new Random(3), 5);
+		
+		LeastSquaresInterpolator interpolator = new LeastSquaresInterpolator();
+		interpolator.setKnownSites(sites);
+		
+		for (SiteWithPolynomial site : interpolator.getSitesWithPolynomials()) {
+			assertNull(site.getPolynomial());
+		}
+		
+	}
+	
+	private static TerrainSites createPlaneSites(Random random, int count) {
+		
+		TerrainSites sites = new TerrainSites();
+		
+		for (int i = 0; i < count; i++) {
+			double x = random.nextDouble() * 300 - 150;
+			double z = random.nextDouble() * 300 - 150;
+			sites.add(x, planeEle(x, z), z);
+		}
+		
+		return sites;
+		
+	}
+	
+	private static double planeEle(double x, double z) {
+		return 0.2 * x - 0.1 * z + 50;
+	}
+	
+}
@@ -0,0 +1,190 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osm2world.core.map_data.creation.LatLon;
+import org.osm2world.core.map_data.creation.MetricMapProjection;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+
+public class RasterInterpolatorTest {
+	
+	private static final int S = SRTMData.SAMPLES_PER_DEGREE;
+	
+	/** position of the only sample without data */
+	private static final int VOID_X = 12 * S + 600;
+	private static final int VOID_Y = 47 * S + 600;
+	
+	private File tileDirectory;
+	private MetricMapProjection projection;
+	private SRTMData eleData;
+	
+	@Before
+	public void setUp() throws IOException {
+		
+		tileDirectory = File.createTempFile("srtm", "");
+		tileDirectory.delete();
+		tileDirectory.mkdir();
+		
+		writeTile(new File(tileDirectory, "N47E011.hgt"), 11, 47);
+		writeTile(new File(tileDirectory, "N47E012.hgt"), 12, 47);
+		
+		projection = new MetricMapProjection();
+		projection.setOrigin(new LatLon(47.5, 12));
+		
+		eleData = new SRTMData(tileDirectory, projection,
+				new SRTMTileCache(SRTMTileCache.DEFAULT_MAX_BYTES, tileDirectory));
+		
+	}
+	
+	@After
+	public void tearDown() {
+		for (File file : tileDirectory.listFiles()) {
+			file.delete();
+		}
+		tileDirectory.delete();
+	}
+	
+	@Test
+	public void testGetSample() {
+		
+		assertEquals(planeEle(11 * S, 47 * S), eleData.getSample(11 * S, 47 * S), 0);
+		assertEquals(planeEle(12 * S, 47 * S + 5), eleData.getSample(12 * S, 47 * S + 5), 0);
+		assertEquals(planeEle(13 * S - 1, 48 * S - 1),
+				eleData.getSample(13 * S - 1, 48 * S - 1), 0);
+		
+		assertTrue(Double.isNaN(eleData.getSample(VOID_X, VOID_Y)));
+		assertTrue(Double.isNaN(eleData.getSample(10 * S, 47 * S)));
+		assertTrue(Double.isNaN(eleData.getSample(11 * S, 48 * S)));
+		
+	}
+	
+	@Test
+	public void testPlane() {
+		
+		/* both interpolators reproduce a plane exactly */
+		
+		RasterInterpolator[] interpolators = {
+				new BilinearRasterInterpolator(),
+				new BicubicRasterInterpolator() };
+		
+		for (RasterInterpolator interpolator : interpolators) {
+			
+			interpolator.setElevationData(eleData);
+			
+			Random random = new Random(1);
+			
+			for (int i = 0; i < 1000; i++) {
+				
+				VectorXZ pos = projection.calcPos(
+						47.01 + 0.98 * random.nextDouble(),
+						11.01 + 1.98 * random.nextDouble());
+				
+				double x = projection.calcLon(pos) * S;
+				double y = projection.calcLat(pos) * S;
+				
+				if (Math.abs(x - VOID_X) < 3 && Math.abs(y - VOID_Y) < 3) continue;
+				
+				assertEquals(planeEle(x, y), interpolator.interpolateEle(pos).y, 1e-6);
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test
+	public void testVoid() {
+		
+		VectorXZ pos = projection.calcPos(
+				(VOID_Y + 0.3) / S, (VOID_X + 0.4) / S);
+		
+		BilinearRasterInterpolator bilinear = new BilinearRasterInterpolator();
+		bilinear.setElevationData(eleData);
+		
+		BicubicRasterInterpolator bicubic = new BicubicRasterInterpolator();
+		bicubic.setElevationData(eleData);
+		
+		double ele = bilinear.interpolateEle(pos).y;
+		
+		assertTrue(ele > planeEle(VOID_X, VOID_Y));
+		assertTrue(ele < planeEle(VOID_X + 1, VOID_Y + 1));
+		
+		assertEquals(ele, bicubic.interpolateEle(pos).y, 0);
+		
+		/* no data at all */
+		
+		assertEquals(0, bilinear.interpolateEle(
+				projection.calcPos(46.5, 11.5)).y, 0);
+		
+	}
+	
+	@Test
+	public void testInterpolateEles() {
+		
+		BicubicRasterInterpolator interpolator = new BicubicRasterInterpolator();
+		interpolator.setElevationData(eleData);
+		
+		List<VectorXZ> positions = new ArrayList<VectorXZ>();
+		
+		for (int i = 0; i < 10; i++) {
+			positions.add(new VectorXZ(i * 1000, -i * 500));
+		}
+		
+		List<VectorXYZ> result = interpolator.interpolateEles(positions);
+		
+		assertEquals(positions.size(), result.size());
+		
+		for (int i = 0; i < positions.size(); i++) {
+			assertEquals(interpolator.interpolateEle(positions.get(i)), result.get(i));
+		}
+		
+	}
+	
+	/** the elevation of the test data at a raster position */
+	private static double planeEle(double x, double y) {
+		return 100 + (x - 11 * S) + 2 * (y - 47 * S);
+	}
+	
+	private static void writeTile(File file, int tileLon, int tileLat)
+			throws IOException {
+		
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		
+		try {
+			
+			/* rows are stored from north to south */
+			
+			for (int row = S; row >= 0; row--) {
+				for (int column = 0; column <= S; column++) {
+					
+					int x = tileLon * S + column;
+					int y = tileLat * S + row;
+					
+					if (x == VOID_X && y == VOID_Y) {
+						out.writeShort(SRTMTile.BLANK_VALUE);
+					} else {
+						out.writeShort((short)planeEle(x, y));
+					}
+					
+				}
+			}
+			
+		} finally {
+			out.close();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,157 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SRTMTileCacheTest {
+	
+	private static final long TILE_BYTES =
+			2L * SRTMTile.PIXELS * SRTMTile.PIXELS;
+	
+	private File tileDirectory;
+	private File unzipDirectory;
+	
+	@Before
+	public void setUp() throws IOException {
+		
+		tileDirectory = createTempDirectory("srtm");
+		unzipDirectory = createTempDirectory("srtm-unzip");
+		
+		writeTile(new File(tileDirectory, "N47E011.hgt"), (short)500);
+		writeTile(new File(tileDirectory, "N47E012.hgt"), (short)600);
+		writeZippedTile(new File(tileDirectory, "S01W001.hgt.zip"),
+				"S01W001.hgt", (short)700);
+		
+	}
+	
+	@After
+	public void tearDown() {
+		delete(tileDirectory);
+		delete(unzipDirectory);
+	}
+	
+	@Test
+	public void testSharedInstances() {
+		
+		SRTMTileCache cache = SRTMTileCache.getSharedInstance(
+				10 * TILE_BYTES, unzipDirectory);
+		
+		assertSame(cache, SRTMTileCache.getSharedInstance(
+				10 * TILE_BYTES, unzipDirectory.getAbsoluteFile()));
+		
+		assertNotSame(cache, SRTMTileCache.getSharedInstance(
+				20 * TILE_BYTES, unzipDirectory));
+		assertNotSame(cache, SRTMTileCache.getSharedInstance(
+				10 * TILE_BYTES, tileDirectory));
+		assertNotSame(cache, SRTMTileCache.getSharedInstance());
+		
+		assertSame(SRTMTileCache.getSharedInstance(),
+				SRTMTileCache.getSharedInstance(SRTMTileCache.DEFAULT_MAX_BYTES,
+						SRTMTileCache.DEFAULT_UNZIP_DIRECTORY));
+		
+	}
+	
+	@Test
+	public void testGetTile() throws IOException {
+		
+		SRTMTileCache cache = new SRTMTileCache(10 * TILE_BYTES, unzipDirectory);
+		
+		SRTMTile tile = cache.getTile(tileDirectory, 11, 47);
+		
+		assertNotNull(tile);
+		assertEquals(500, tile.getData(0, 0));
+		assertEquals(500, tile.getData(1200, 1200));
+		
+		assertSame(tile, cache.getTile(tileDirectory, 11, 47));
+		
+		assertNull(cache.getTile(tileDirectory, 0, 0));
+		
+	}
+	
+	@Test
+	public void testZippedTile() throws IOException {
+		
+		SRTMTileCache cache = new SRTMTileCache(10 * TILE_BYTES, unzipDirectory);
+		
+		SRTMTile tile = cache.getTile(tileDirectory, -1, -1);
+		
+		assertNotNull(tile);
+		assertEquals(700, tile.getData(5, 5));
+		assertTrue(new File(unzipDirectory, "S01W001.hgt").exists());
+		
+	}
+	
+	@Test
+	public void testEviction() throws IOException {
+		
+		SRTMTileCache cache = new SRTMTileCache(TILE_BYTES, unzipDirectory);
+		
+		SRTMTile tile1 = cache.getTile(tileDirectory, 11, 47);
+		SRTMTile tile2 = cache.getTile(tileDirectory, 12, 47);
+		
+		assertEquals(600, tile2.getData(0, 0));
+		
+		/* only one tile fits, so the first one has been evicted */
+		
+		assertSame(tile2, cache.getTile(tileDirectory, 12, 47));
+		assertNotSame(tile1, cache.getTile(tileDirectory, 11, 47));
+		
+	}
+	
+	private static void writeTile(File file, short value) throws IOException {
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		try {
+			writeTileData(out, value);
+		} finally {
+			out.close();
+		}
+	}
+	
+	private static void writeZippedTile(File file, String entryName,
+			short value) throws IOException {
+		ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(file));
+		try {
+			zipOut.putNextEntry(new ZipEntry(entryName));
+			DataOutputStream out = new DataOutputStream(zipOut);
+			writeTileData(out, value);
+			out.flush();
+			zipOut.closeEntry();
+		} finally {
+			zipOut.close();
+		}
+	}
+	
+	private static void writeTileData(DataOutputStream out, short value)
+			throws IOException {
+		for (int i = 0; i < SRTMTile.PIXELS * SRTMTile.PIXELS; i++) {
+			out.writeShort(value);
+		}
+	}
+	
+	private static File createTempDirectory(String prefix) throws IOException {
+		File directory = File.createTempFile(prefix, "");
+		directory.delete();
+		directory.mkdir();
+		return directory;
+	}
+	
+	private static void delete(File file) {
+		if (file.isDirectory()) {
+			for (File child : file.listFiles()) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+	
+}
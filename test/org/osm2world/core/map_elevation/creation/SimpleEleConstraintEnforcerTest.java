@@ -0,0 +1,120 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static org.osm2world.core.map_elevation.data.GroundState.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.map_elevation.data.GroundState;
+import org.osm2world.core.math.VectorXZ;
+
+public class SimpleEleConstraintEnforcerTest {
+	
+	@Test
+	public void testJoinedOnConnectors() {
+		
+		List<EleConnector> cs = new ArrayList<EleConnector>();
+		
+		EleConnector c1 = connector(cs, new VectorXZ(0, 0), null, ON, 2);
+		EleConnector c2 = connector(cs, new VectorXZ(0, 0), null, ON, 4);
+		EleConnector other = connector(cs, new VectorXZ(1, 0), null, ON, 10);
+		
+		SimpleEleConstraintEnforcer enforcer = new SimpleEleConstraintEnforcer();
+		enforcer.addConnectors(cs);
+		enforcer.enforceConstraints();
+		
+		assertEquals(3, c1.getPosXYZ().y, 1e-10);
+		assertEquals(3, c2.getPosXYZ().y, 1e-10);
+		assertEquals(10, other.getPosXYZ().y, 1e-10);
+		
+		/* enforcing the constraints again does not change the result */
+		
+		enforcer.enforceConstraints();
+		
+		assertEquals(3, c1.getPosXYZ().y, 1e-10);
+		assertEquals(3, c2.getPosXYZ().y, 1e-10);
+		assertEquals(10, other.getPosXYZ().y, 1e-10);
+		
+	}
+	
+	@Test
+	public void testSharedReference() {
+		
+		Object reference = new Object();
+		
+		List<EleConnector> cs = new ArrayList<EleConnector>();
+		
+		EleConnector c1 = connector(cs, new VectorXZ(5, 5), reference, ABOVE, 10);
+		EleConnector c2 = connector(cs, new VectorXZ(5, 5), reference, ABOVE, 20);
+		
+		SimpleEleConstraintEnforcer enforcer = new SimpleEleConstraintEnforcer();
+		enforcer.addConnectors(cs);
+		enforcer.enforceConstraints();
+		
+		assertEquals(20, c1.getPosXYZ().y, 1e-10);
+		assertEquals(20, c2.getPosXYZ().y, 1e-10);
+		
+	}
+	
+	@Test
+	public void testUnrelatedConnectorsAtSamePos() {
+		
+		List<EleConnector> cs = new ArrayList<EleConnector>();
+		
+		EleConnector ground = connector(cs, new VectorXZ(0, 0), new Object(), ON, 0);
+		EleConnector bridge = connector(cs, new VectorXZ(0, 0), new Object(), ABOVE, 6);
+		EleConnector tunnel = connector(cs, new VectorXZ(0, 0), null, BELOW, 2);
+		
+		SimpleEleConstraintEnforcer enforcer = new SimpleEleConstraintEnforcer();
+		enforcer.addConnectors(cs);
+		enforcer.enforceConstraints();
+		
+		assertEquals(0, ground.getPosXYZ().y, 1e-10);
+		assertEquals(11, bridge.getPosXYZ().y, 1e-10);
+		assertEquals(-3, tunnel.getPosXYZ().y, 1e-10);
+		
+	}
+	
+	@Test
+	public void testConnectorsAddedSeparately() {
+		
+		List<EleConnector> cs1 = new ArrayList<EleConnector>();
+		List<EleConnector> cs2 = new ArrayList<EleConnector>();
+		
+		EleConnector c1 = connector(cs1, new VectorXZ(0, 0), null, ON, 1);
+		EleConnector c2 = connector(cs2, new VectorXZ(0, 0), null, ON, 3);
+		EleConnector c3 = connector(cs2, new VectorXZ(7, 0), null, ON, 8);
+		
+		SimpleEleConstraintEnforcer enforcer = new SimpleEleConstraintEnforcer();
+		enforcer.addConnectors(cs1);
+		enforcer.addConnectors(cs2);
+		
+		/* explicit constraint joining two sets */
+		
+		enforcer.requireSameEle(asList(c3, c1));
+		
+		enforcer.enforceConstraints();
+		
+		assertEquals(4, c1.getPosXYZ().y, 1e-10);
+		assertEquals(4, c2.getPosXYZ().y, 1e-10);
+		assertEquals(4, c3.getPosXYZ().y, 1e-10);
+		
+	}
+	
+	private static EleConnector connector(List<EleConnector> cs, VectorXZ pos,
+			Object reference, GroundState groundState, double ele) {
+		
+		EleConnector c = new EleConnector(pos, reference, groundState);
+		c.setPosXYZ(pos.xyz(ele));
+		
+		cs.add(c);
+		
+		return c;
+		
+	}
+	
+}
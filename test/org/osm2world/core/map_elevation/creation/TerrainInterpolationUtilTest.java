@@ -0,0 +1,128 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.osm2world.core.map_elevation.data.EleConnector;
+import org.osm2world.core.map_elevation.data.GroundState;
+import org.osm2world.core.math.VectorXYZ;
+import org.osm2world.core.math.VectorXZ;
+
+public class TerrainInterpolationUtilTest {
+	
+	/** a tilted plane which fails for positions with negative x */
+	private static final TerrainInterpolator PLANE = new ConcurrentTerrainInterpolator() {
+		@Override public VectorXYZ interpolateEle(VectorXZ pos) {
+			if (pos.x < 0) {
+				throw new IllegalArgumentException("test exception");
+			}
+			return pos.xyz(0.3 * pos.x - 0.1 * pos.z + 100);
+		}
+	};
+	
+	@Test
+	public void testParallel() {
+		
+		List<EleConnector> connectors = createConnectors(10000, 0);
+		
+		List<EleConnector> result =
+				TerrainInterpolationUtil.interpolateEles(connectors, PLANE, 4);
+		
+		assertEquals(connectors, result);
+		
+		for (EleConnector connector : connectors) {
+			assertEquals(PLANE.interpolateEle(connector.pos),
+					connector.getPosXYZ());
+		}
+		
+	}
+	
+	@Test
+	public void testExceptions() {
+		
+		for (int threadCount : new int[] {1, 4}) {
+			
+			List<EleConnector> connectors = createConnectors(1000, -100);
+			
+			List<EleConnector> result = TerrainInterpolationUtil.interpolateEles(
+					connectors, PLANE, threadCount);
+			
+			List<EleConnector> expected = new ArrayList<EleConnector>();
+			
+			for (EleConnector connector : connectors) {
+				if (connector.pos.x >= 0) {
+					expected.add(connector);
+				}
+			}
+			
+			assertFalse(expected.isEmpty());
+			assertTrue(expected.size() < connectors.size());
+			assertEquals(expected, result);
+			
+		}
+		
+	}
+	
+	@Test
+	public void testSpatialOrder() {
+		
+		List<EleConnector> connectors = createConnectors(1000, 0);
+		
+		List<Integer> order = TerrainInterpolationUtil.getSpatialOrder(connectors);
+		
+		assertEquals(connectors.size(), order.size());
+		assertEquals(connectors.size(), new HashSet<Integer>(order).size());
+		
+		/* the quadrants of the bounding box are visited one after another */
+		
+		double minX = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+		
+		for (EleConnector connector : connectors) {
+			minX = Math.min(minX, connector.pos.x);
+			minZ = Math.min(minZ, connector.pos.z);
+			maxX = Math.max(maxX, connector.pos.x);
+			maxZ = Math.max(maxZ, connector.pos.z);
+		}
+		
+		int previousQuadrant = 0;
+		
+		for (int index : order) {
+			
+			VectorXZ pos = connectors.get(index).pos;
+			
+			int quadrant = 0;
+			if ((int)((pos.x - minX) * (32767 / (maxX - minX))) >= 16384) quadrant += 1;
+			if ((int)((pos.z - minZ) * (32767 / (maxZ - minZ))) >= 16384) quadrant += 2;
+			
+			assertTrue(quadrant >= previousQuadrant);
+			
+			previousQuadrant = quadrant;
+			
+		}
+		
+	}
+	
+	private static List<EleConnector> createConnectors(int count, double minX) {
+		
+		Random random = new Random(count);
+		
+		List<EleConnector> connectors = new ArrayList<EleConnector>();
+		
+		for (int i = 0; i < count; i++) {
+			VectorXZ pos = new VectorXZ(
+					minX + random.nextDouble() * 1000,
+					random.nextDouble() * 1000);
+			connectors.add(new EleConnector(pos, null, GroundState.ON));
+		}
+		
+		return connectors;
+		
+	}
+	
+}
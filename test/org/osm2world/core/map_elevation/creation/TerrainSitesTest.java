@@ -0,0 +1,49 @@
+package org.osm2world.core.map_elevation.creation;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+import org.osm2world.core.math.VectorXYZ;
+
+public class TerrainSitesTest {
+	
+	@Test
+	public void testAddAndGet() {
+		
+		TerrainSites sites = new TerrainSites(1);
+		
+		for (int i = 0; i < 100; i++) {
+			sites.add(i, 2 * i, 3 * i);
+		}
+		
+		assertEquals(100, sites.size());
+		
+		assertEquals(42.0, sites.getX(42), 0);
+		assertEquals(84.0, sites.getY(42), 0);
+		assertEquals(126.0, sites.getZ(42), 0);
+		assertEquals(new VectorXYZ(99, 198, 297), sites.get(99));
+		
+		Iterator<VectorXYZ> iterator = sites.iterator();
+		
+		for (int i = 0; i < 100; i++) {
+			assertTrue(iterator.hasNext());
+			assertEquals(new VectorXYZ(i, 2 * i, 3 * i), iterator.next());
+		}
+		
+		assertFalse(iterator.hasNext());
+		
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testIndexOutOfBounds() {
+		
+		TerrainSites sites = new TerrainSites();
+		sites.add(new VectorXYZ(1, 2, 3));
+		
+		sites.getX(1);
+		
+	}
+	
+}
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -178,4 +179,84 @@ public class PolygonXZTest {
 				new PolygonXZ(Arrays.asList(v1, v2, v6, v3, v4, v5, v1)).isSelfIntersecting());
 	}
 
+	@Test
+	public void testQueriesMatchGeometryUtil() {
+		
+		/* compares the results of queries using packed coordinates
+		 * with straightforward implementations using GeometryUtil */
+		
+		Random random = new Random(1);
+		
+		for (int p = 0; p < 50; p++) {
+			
+			List<VectorXZ> vertexLoop = new ArrayList<VectorXZ>();
+			
+			int vertexCount = 3 + random.nextInt(20);
+			
+			for (int i = 0; i < vertexCount; i++) {
+				/* integer coordinates cause many collinear and shared points */
+				vertexLoop.add(new VectorXZ(random.nextInt(10), random.nextInt(10)));
+			}
+			
+			vertexLoop.add(vertexLoop.get(0));
+			
+			PolygonXZ polygon = new PolygonXZ(vertexLoop);
+			
+			for (int i = 0; i < 200; i++) {
+				
+				VectorXZ p1 = new VectorXZ(random.nextInt(12) - 1, random.nextInt(12) - 1);
+				VectorXZ p2 = random.nextBoolean() ? vertexLoop.get(random.nextInt(vertexCount))
+						: new VectorXZ(random.nextDouble() * 12 - 1, random.nextDouble() * 12 - 1);
+				
+				List<VectorXZ> expectedPositions = new ArrayList<VectorXZ>();
+				LineSegmentXZ expectedClosestSegment = null;
+				double closestDistance = Double.MAX_VALUE;
+				
+				for (LineSegmentXZ segment : polygon.getSegments()) {
+					
+					VectorXZ intersection = GeometryUtil.getTrueLineSegmentIntersection(
+							p1, p2, segment.p1, segment.p2);
+					
+					if (intersection != null) {
+						expectedPositions.add(intersection);
+					}
+					
+					double distance = GeometryUtil.distanceFromLineSegment(p1, segment);
+					
+					if (distance < closestDistance) {
+						expectedClosestSegment = segment;
+						closestDistance = distance;
+					}
+					
+				}
+				
+				LineSegmentXZ segment = new LineSegmentXZ(p1, p2);
+				
+				assertEquals(expectedPositions, polygon.intersectionPositions(segment));
+				assertEquals(expectedPositions.size(), polygon.intersectionSegments(segment).size());
+				assertEquals(!expectedPositions.isEmpty(), polygon.intersects(segment));
+				assertEquals(expectedClosestSegment.p1, polygon.getClosestSegment(p1).p1);
+				assertEquals(expectedClosestSegment.p2, polygon.getClosestSegment(p1).p2);
+				assertEquals(SimplePolygonXZ.contains(vertexLoop, p2),
+						polygon.getPackedVertexLoop().contains(p2.x, p2.z));
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test
+	public void testGetAxisAlignedBoundingBoxXZ() {
+		
+		AxisAlignedBoundingBoxXZ box =
+				new PolygonXZ(outlineB).getAxisAlignedBoundingBoxXZ();
+		
+		assertEquals(-1.1f, box.minX, 0);
+		assertEquals(-1.1f, box.minZ, 0);
+		assertEquals(1.1f, box.maxX, 0);
+		assertEquals(1.1f, box.maxZ, 0);
+		
+	}
+	
 }
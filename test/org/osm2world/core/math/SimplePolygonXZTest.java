@@ -89,4 +89,36 @@ public class SimplePolygonXZTest {
 		
 	}
 	
+	@Test
+	public void testReverse() {
+		
+		assertTrue(p1.isClockwise());
+		
+		SimplePolygonXZ reverseP = p1.reverse();
+		
+		assertFalse(reverseP.isClockwise());
+		assertAlmostEquals(p1.getArea(), reverseP.getArea());
+		assertAlmostEquals(p1.getCentroid(), reverseP.getCentroid());
+		assertEquals(p1.getVertexLoop().get(1), reverseP.getVertexLoop().get(4));
+		
+		assertSame(reverseP, reverseP.makeCounterclockwise());
+		
+	}
+	
+	@Test(expected = InvalidGeometryException.class)
+	public void testAsSimplePolygonSelfIntersecting() {
+		
+		PolygonXZ p = new PolygonXZ(asList(
+				new VectorXZ(0, 0),
+				new VectorXZ(1, 1),
+				new VectorXZ(1, 0),
+				new VectorXZ(0, 1),
+				new VectorXZ(0, 0)));
+		
+		assertFalse(p.isSimple());
+		
+		p.asSimplePolygon();
+		
+	}
+	
 }
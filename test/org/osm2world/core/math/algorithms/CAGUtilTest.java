@@ -1,12 +1,17 @@
 package org.osm2world.core.math.algorithms;
 
 import static java.util.Arrays.asList;
-import static org.junit.Assert.assertSame;
+import static org.junit.Assert.*;
+import static org.osm2world.core.math.JTSConversionUtil.GF;
+import static org.osm2world.core.math.JTSConversionUtil.polygonXZToJTSPolygon;
 import static org.osm2world.core.test.TestUtil.assertSameCyclicOrder;
+import static org.osm2world.core.test.TestUtil.createStar;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 import org.osm2world.core.math.PolygonWithHolesXZ;
@@ -14,6 +19,8 @@ import org.osm2world.core.math.SimplePolygonXZ;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.math.algorithms.CAGUtil;
 
+import com.vividsolutions.jts.geom.Geometry;
+
 public class CAGUtilTest {
 	
 	@Test
@@ -142,4 +149,128 @@ public class CAGUtilTest {
 		
 	}
 	
+	@Test
+	public void testSubtractEqualsSequential() {
+		
+		Random random = new Random(1);
+		
+		for (int test = 0; test < 50; test++) {
+			
+			SimplePolygonXZ basePolygon = createStar(random,
+					0, 0, 50, 100, 3 + random.nextInt(20));
+			
+			/* subtracted polygons overlap each other,
+			 * and some of them are outside the base polygon */
+			
+			List<SimplePolygonXZ> subtractPolygons =
+					new ArrayList<SimplePolygonXZ>();
+			
+			for (int i = 0; i < 30; i++) {
+				subtractPolygons.add(createStar(random,
+						random.nextDouble() * 300 - 150,
+						random.nextDouble() * 300 - 150,
+						5, 30, 3 + random.nextInt(20)));
+			}
+			
+			assertEquivalent(
+					CAGUtil.subtractPolygonsSequentially(basePolygon, subtractPolygons),
+					CAGUtil.subtractPolygons(basePolygon, subtractPolygons));
+			
+		}
+		
+	}
+	
+	@Test
+	public void testSubtractDisjoint() {
+		
+		Random random = new Random(2);
+		
+		SimplePolygonXZ basePolygon = createStar(random,
+				0, 0, 50, 100, 3 + random.nextInt(20));
+		
+		List<SimplePolygonXZ> subtractPolygons = asList(
+				createStar(random, 500, 0, 10, 20, 3 + random.nextInt(20)),
+				createStar(random, 0, -500, 10, 20, 3 + random.nextInt(20)));
+		
+		Collection<PolygonWithHolesXZ> result =
+				CAGUtil.subtractPolygons(basePolygon, subtractPolygons);
+		
+		assertEquivalent(
+				CAGUtil.subtractPolygonsSequentially(basePolygon, subtractPolygons),
+				result);
+		assertEquals(1, result.size());
+		assertEquals(basePolygon.getArea(),
+				result.iterator().next().getArea(), 1e-6);
+		
+	}
+	
+	@Test
+	public void testSubtractHoleAndCover() {
+		
+		Random random = new Random(3);
+		
+		SimplePolygonXZ basePolygon = createStar(random,
+				0, 0, 50, 100, 3 + random.nextInt(20));
+		
+		/* a polygon creating a hole */
+		
+		List<SimplePolygonXZ> subtractPolygons = asList(
+				createStar(random, 0, 0, 10, 20, 3 + random.nextInt(20)));
+		
+		Collection<PolygonWithHolesXZ> result =
+				CAGUtil.subtractPolygons(basePolygon, subtractPolygons);
+		
+		assertEquivalent(
+				CAGUtil.subtractPolygonsSequentially(basePolygon, subtractPolygons),
+				result);
+		assertEquals(1, result.size());
+		assertEquals(1, result.iterator().next().getHoles().size());
+		
+		/* polygons covering everything */
+		
+		subtractPolygons = asList(
+				createStar(random, 0, 0, 10, 20, 3 + random.nextInt(20)),
+				createStar(random, 0, 0, 150, 200, 3 + random.nextInt(20)));
+		
+		assertTrue(CAGUtil.subtractPolygons(
+				basePolygon, subtractPolygons).isEmpty());
+		
+	}
+	
+	/**
+	 * asserts that two collections of polygons cover the same area
+	 */
+	private static void assertEquivalent(
+			Collection<PolygonWithHolesXZ> expected,
+			Collection<PolygonWithHolesXZ> actual) {
+		
+		Geometry expectedGeometry = toJTSGeometry(expected);
+		Geometry actualGeometry = toJTSGeometry(actual);
+		
+		assertEquals(expectedGeometry.getArea(), actualGeometry.getArea(), 1e-6);
+		assertEquals(0, expectedGeometry.symDifference(actualGeometry).getArea(), 1e-6);
+		
+	}
+	
+	private static Geometry toJTSGeometry(
+			Collection<PolygonWithHolesXZ> polygons) {
+		
+		Geometry result = GF.createGeometryCollection(null);
+		
+		for (PolygonWithHolesXZ polygon : polygons) {
+			
+			Geometry geometry = polygonXZToJTSPolygon(polygon.getOuter());
+			
+			for (SimplePolygonXZ hole : polygon.getHoles()) {
+				geometry = geometry.difference(polygonXZToJTSPolygon(hole));
+			}
+			
+			result = result.union(geometry);
+			
+		}
+		
+		return result;
+		
+	}
+	
 }
@@ -0,0 +1,149 @@
+package org.osm2world.core.math.algorithms;
+
+import static org.junit.Assert.*;
+import static org.osm2world.core.test.TestUtil.createStar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.osm2world.core.math.SimplePolygonXZ;
+import org.osm2world.core.math.TriangleXZ;
+import org.osm2world.core.math.VectorXZ;
+
+public class EarcutTriangulationUtilTest {
+	
+	@Test
+	public void testSquare() {
+		
+		SimplePolygonXZ square = new SimplePolygonXZ(Arrays.asList(
+				new VectorXZ(0, 0), new VectorXZ(1, 0), new VectorXZ(1, 1),
+				new VectorXZ(0, 1), new VectorXZ(0, 0)));
+		
+		List<TriangleXZ> triangles = EarcutTriangulationUtil.triangulate(
+				square, Collections.<SimplePolygonXZ>emptyList());
+		
+		assertEquals(2, triangles.size());
+		assertCovers(triangles, square, Collections.<SimplePolygonXZ>emptyList());
+		
+		/* vertex instances are reused */
+		
+		Set<VectorXZ> vertices = new HashSet<VectorXZ>(square.getVertices());
+		
+		for (TriangleXZ triangle : triangles) {
+			assertFalse(triangle.isClockwise());
+			for (VectorXZ v : triangle.getVertices()) {
+				assertTrue(vertices.contains(v));
+			}
+		}
+		
+	}
+	
+	@Test
+	public void testConcave() {
+		
+		SimplePolygonXZ polygon = new SimplePolygonXZ(Arrays.asList(
+				new VectorXZ(0, 0), new VectorXZ(0, 4), new VectorXZ(4, 4),
+				new VectorXZ(4, 0), new VectorXZ(2, 3), new VectorXZ(0, 0)));
+		
+		List<TriangleXZ> triangles = EarcutTriangulationUtil.triangulate(
+				polygon, Collections.<SimplePolygonXZ>emptyList());
+		
+		assertEquals(3, triangles.size());
+		assertCovers(triangles, polygon, Collections.<SimplePolygonXZ>emptyList());
+		
+	}
+	
+	@Test
+	public void testHoles() {
+		
+		Random random = new Random(1);
+		
+		for (int i = 0; i < 50; i++) {
+			
+			SimplePolygonXZ outer = createStar(random, 0, 0, 500, 600, 3 + random.nextInt(200));
+			
+			List<SimplePolygonXZ> holes = new ArrayList<SimplePolygonXZ>();
+			
+			for (int h = 0; h < 4; h++) {
+				holes.add(createStar(random, (h % 2) * 400 - 200, (h / 2) * 400 - 200,
+						20, 150, 3 + random.nextInt(50)));
+			}
+			
+			List<TriangleXZ> triangles =
+					EarcutTriangulationUtil.triangulate(outer, holes);
+			
+			int vertexCount = outer.size();
+			
+			for (SimplePolygonXZ hole : holes) {
+				vertexCount += hole.size();
+			}
+			
+			assertEquals(vertexCount - 2 + 2 * holes.size(), triangles.size());
+			assertCovers(triangles, outer, holes);
+			
+		}
+		
+	}
+	
+	@Test
+	public void testLargePolygon() {
+		
+		/* far above the vertex limit of EarClippingTriangulationUtil */
+		
+		Random random = new Random(2);
+		
+		SimplePolygonXZ outer = createStar(random, 1000, -500, 1000, 2000, 20000);
+		
+		List<SimplePolygonXZ> holes = Collections.singletonList(
+				createStar(random, 1000, -500, 100, 900, 5000));
+		
+		List<TriangleXZ> triangles =
+				EarcutTriangulationUtil.triangulate(outer, holes);
+		
+		assertEquals(20000 + 5000, triangles.size());
+		assertCovers(triangles, outer, holes);
+		
+	}
+	
+	@Test
+	public void testTriangulationUtil() {
+		
+		Random random = new Random(3);
+		
+		SimplePolygonXZ outer = createStar(random, 0, 0, 100, 200, 1000);
+		
+		List<TriangleXZ> triangles = TriangulationUtil.triangulate(
+				outer, Collections.<SimplePolygonXZ>emptyList());
+		
+		assertEquals(998, triangles.size());
+		assertCovers(triangles, outer, Collections.<SimplePolygonXZ>emptyList());
+		
+	}
+	
+	private static void assertCovers(List<TriangleXZ> triangles,
+			SimplePolygonXZ outer, Collection<SimplePolygonXZ> holes) {
+		
+		double expectedArea = outer.getArea();
+		
+		for (SimplePolygonXZ hole : holes) {
+			expectedArea -= hole.getArea();
+		}
+		
+		double area = 0;
+		
+		for (TriangleXZ triangle : triangles) {
+			area += triangle.getArea();
+		}
+		
+		assertEquals(expectedArea, area, 1e-6 * expectedArea);
+		
+	}
+	
+}
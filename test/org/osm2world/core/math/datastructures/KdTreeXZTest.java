@@ -0,0 +1,119 @@
+package org.osm2world.core.math.datastructures;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class KdTreeXZTest {
+	
+	@Test
+	public void testRandomPoints() {
+		
+		Random random = new Random(1);
+		
+		double[] x = new double[1000];
+		double[] z = new double[1000];
+		
+		for (int i = 0; i < x.length; i++) {
+			x[i] = random.nextDouble() * 1000;
+			z[i] = random.nextDouble() * 1000;
+		}
+		
+		assertNearestCorrect(x, z, random);
+		
+	}
+	
+	@Test
+	public void testGridPoints() {
+		
+		/* regular grid, like SRTM data, has lots of equal distances */
+		
+		double[] x = new double[30 * 30];
+		double[] z = new double[30 * 30];
+		
+		for (int i = 0; i < 30; i++) {
+			for (int j = 0; j < 30; j++) {
+				x[i * 30 + j] = i * 90;
+				z[i * 30 + j] = j * 90;
+			}
+		}
+		
+		assertNearestCorrect(x, z, new Random(2));
+		
+	}
+	
+	@Test
+	public void testFewPoints() {
+		
+		KdTreeXZ tree = new KdTreeXZ(
+				new double[] {0, 10, 5}, new double[] {0, 0, 1});
+		
+		int[] result = new int[9];
+		
+		assertEquals(3, tree.findNearest(9, 0, 9, result));
+		assertEquals(1, result[0]);
+		assertEquals(2, result[1]);
+		assertEquals(0, result[2]);
+		
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCountTooLarge() {
+		new KdTreeXZ(new double[] {0, 10, 5}, new double[] {0, 0, 1}, 4);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testDifferentLengths() {
+		new KdTreeXZ(new double[] {0, 10, 5}, new double[] {0, 0});
+	}
+	
+	/**
+	 * compares the results of k nearest neighbor queries
+	 * with a brute force search
+	 */
+	private static void assertNearestCorrect(double[] x, double[] z,
+			Random random) {
+		
+		KdTreeXZ tree = new KdTreeXZ(x, z);
+		
+		for (int k : new int[] {1, 9, 29}) {
+			for (int query = 0; query < 200; query++) {
+				
+				double qx = random.nextDouble() * 3000 - 500;
+				double qz = random.nextDouble() * 3000 - 500;
+				
+				/* brute force */
+				
+				double[] distances = new double[x.length];
+				
+				for (int i = 0; i < x.length; i++) {
+					distances[i] = distanceSquared(x[i], z[i], qx, qz);
+				}
+				
+				Arrays.sort(distances);
+				
+				/* tree */
+				
+				int[] result = new int[k];
+				
+				assertEquals(k, tree.findNearest(qx, qz, k, result));
+				
+				for (int i = 0; i < k; i++) {
+					assertEquals(distances[i], distanceSquared(
+							x[result[i]], z[result[i]], qx, qz), 1e-9);
+				}
+				
+			}
+		}
+		
+	}
+	
+	private static double distanceSquared(double x1, double z1,
+			double x2, double z2) {
+		return (x1 - x2) * (x1 - x2) + (z1 - z2) * (z1 - z2);
+	}
+	
+}
@@ -0,0 +1,201 @@
+package org.osm2world.core.math.datastructures;
+
+import static org.junit.Assert.*;
+import static org.osm2world.core.test.TestUtil.createStar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.osm2world.core.math.AxisAlignedBoundingBoxXZ;
+import org.osm2world.core.math.GeometryUtil;
+import org.osm2world.core.math.PolygonWithHolesXZ;
+import org.osm2world.core.math.SimplePolygonXZ;
+import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.math.datastructures.PolygonCoverageGrid.Coverage;
+
+public class PolygonCoverageGridTest {
+	
+	@Test
+	public void testPointsMatchContains() {
+		
+		Random random = new Random(1);
+		
+		List<PolygonWithHolesXZ> polygons = createPolygons(random);
+		PolygonCoverageGrid grid = new PolygonCoverageGrid(polygons);
+		
+		for (int i = 0; i < 20000; i++) {
+			
+			VectorXZ v = new VectorXZ(
+					random.nextDouble() * 1200 - 100,
+					random.nextDouble() * 1200 - 100);
+			
+			assertEquals(v.toString(), containsNaive(polygons, v), grid.covers(v));
+			
+		}
+		
+	}
+	
+	@Test
+	public void testPolygonVertices() {
+		
+		/* vertices are on the boundary, a common problem for ray casting */
+		
+		Random random = new Random(2);
+		
+		List<PolygonWithHolesXZ> polygons = createPolygons(random);
+		PolygonCoverageGrid grid = new PolygonCoverageGrid(polygons);
+		
+		for (PolygonWithHolesXZ polygon : polygons) {
+			for (SimplePolygonXZ ring : polygon.getPolygons()) {
+				for (VectorXZ v : ring.getVertices()) {
+					assertEquals(containsNaive(polygons, v), grid.covers(v));
+				}
+			}
+		}
+		
+	}
+	
+	@Test
+	public void testBoxCoverage() {
+		
+		Random random = new Random(3);
+		
+		List<PolygonWithHolesXZ> polygons = createPolygons(random);
+		PolygonCoverageGrid grid = new PolygonCoverageGrid(polygons);
+		
+		int[] coverageCounts = new int[Coverage.values().length];
+		
+		for (int i = 0; i < 2000; i++) {
+			
+			double size = random.nextDouble() * 100;
+			
+			AxisAlignedBoundingBoxXZ box = new AxisAlignedBoundingBoxXZ(
+					random.nextDouble() * 1100 - 100,
+					random.nextDouble() * 1100 - 100, 0, 0);
+			box = new AxisAlignedBoundingBoxXZ(box.minX, box.minZ,
+					box.minX + size, box.minZ + size);
+			
+			Coverage coverage = grid.getCoverage(box);
+			coverageCounts[coverage.ordinal()] ++;
+			
+			if (coverage != Coverage.PARTIAL) {
+				for (int j = 0; j < 20; j++) {
+					VectorXZ v = new VectorXZ(
+							box.minX + random.nextDouble() * size,
+							box.minZ + random.nextDouble() * size);
+					assertEquals(coverage == Coverage.COVERED,
+							containsNaive(polygons, v));
+				}
+			}
+			
+		}
+		
+		for (int count : coverageCounts) {
+			assertTrue(count > 0);
+		}
+		
+	}
+	
+	@Test
+	public void testEmpty() {
+		
+		PolygonCoverageGrid grid = new PolygonCoverageGrid(
+				Collections.<PolygonWithHolesXZ>emptyList());
+		
+		assertFalse(grid.covers(VectorXZ.NULL_VECTOR));
+		assertEquals(Coverage.UNCOVERED, grid.getCoverage(
+				new AxisAlignedBoundingBoxXZ(-1, -1, 1, 1)));
+		
+	}
+	
+	@Test
+	public void testSegmentIntersectsBox() {
+		
+		assertTrue(PolygonCoverageGrid.segmentIntersectsBox(
+				-1, 0.5, 2, 0.5, 0, 0, 1, 1));
+		assertTrue(PolygonCoverageGrid.segmentIntersectsBox(
+				0.2, 0.2, 0.8, 0.8, 0, 0, 1, 1));
+		assertTrue(PolygonCoverageGrid.segmentIntersectsBox(
+				-1, 1, 1, -1, 0, 0, 1, 1));
+		assertFalse(PolygonCoverageGrid.segmentIntersectsBox(
+				-1, 0.9, 0.9, -1, 0, 0, 1, 1));
+		assertFalse(PolygonCoverageGrid.segmentIntersectsBox(
+				2, 0, 2, 1, 0, 0, 1, 1));
+		
+	}
+	
+	@Test
+	public void testDistributePointsWithObstacles() {
+		
+		Random random = new Random(4);
+		
+		List<PolygonWithHolesXZ> obstacles = createPolygons(random);
+		
+		PolygonWithHolesXZ area = new PolygonWithHolesXZ(
+				createStar(random, 500, 500, 400, 500, 3 + random.nextInt(40)),
+				Collections.singletonList(createStar(random,
+						500, 500, 50, 100, 3 + random.nextInt(40))));
+		
+		List<VectorXZ> expected = GeometryUtil.distributePointsOn(
+				42, area, null, 0.01, 0);
+		
+		for (Iterator<VectorXZ> it = expected.iterator(); it.hasNext(); ) {
+			if (containsNaive(obstacles, it.next())) {
+				it.remove();
+			}
+		}
+		
+		List<VectorXZ> actual = GeometryUtil.distributePointsOn(
+				42, area, null, 0.01, 0, new PolygonCoverageGrid(obstacles));
+		
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, actual);
+		
+	}
+	
+	/**
+	 * creates overlapping polygons, some of them with holes,
+	 * with coordinates between 0 and 1000
+	 */
+	private static List<PolygonWithHolesXZ> createPolygons(Random random) {
+		
+		List<PolygonWithHolesXZ> result = new ArrayList<PolygonWithHolesXZ>();
+		
+		for (int i = 0; i < 30; i++) {
+			
+			double centerX = 200 + random.nextDouble() * 600;
+			double centerZ = 200 + random.nextDouble() * 600;
+			
+			SimplePolygonXZ outer = createStar(random,
+					centerX, centerZ, 60, 200, 3 + random.nextInt(40));
+			
+			List<SimplePolygonXZ> holes = new ArrayList<SimplePolygonXZ>();
+			
+			if (i % 3 == 0) {
+				holes.add(createStar(random,
+						centerX, centerZ, 10, 50, 3 + random.nextInt(40)));
+			}
+			
+			result.add(new PolygonWithHolesXZ(outer, holes));
+			
+		}
+		
+		return result;
+		
+	}
+	
+	private static boolean containsNaive(
+			List<PolygonWithHolesXZ> polygons, VectorXZ v) {
+		for (PolygonWithHolesXZ polygon : polygons) {
+			if (polygon.contains(v)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+}
@@ -1,16 +1,18 @@
 package org.osm2world.core.osm.creation;
 
+import static org.junit.Assert.*;
+
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import static org.junit.Assert.*;
 import org.junit.Test;
-import org.osm2world.core.osm.creation.OsmosisReader;
 import org.osm2world.core.osm.data.OSMData;
 import org.osm2world.core.osm.data.OSMNode;
 import org.osm2world.core.osm.data.OSMRelation;
-
+import org.osm2world.core.osm.data.OSMWay;
 
 public class OsmosisReaderTest {
 	
@@ -34,5 +36,95 @@ public class OsmosisReaderTest {
 		assertEquals("associatedStreet", relation.tags.getValue("type"));
 		
 	}
-
+	
+	@Test
+	public void testUnsortedReferences() throws IOException {
+		
+		OSMData osmData = new OsmosisReader(
+				new File("test/files/unsorted_references.osm")).getData();
+		
+		assertEquals(4, osmData.getNodes().size());
+		assertEquals(1, osmData.getWays().size());
+		assertEquals(2, osmData.getRelations().size());
+		
+		Map<Long, OSMNode> nodes = new HashMap<Long, OSMNode>();
+		for (OSMNode node : osmData.getNodes()) {
+			nodes.put(node.id, node);
+		}
+		
+		Map<Long, OSMRelation> relations = new HashMap<Long, OSMRelation>();
+		for (OSMRelation relation : osmData.getRelations()) {
+			relations.put(relation.id, relation);
+		}
+		
+		/* way nodes appearing after the way */
+		
+		OSMWay way = osmData.getWays().iterator().next();
+		
+		assertEquals(4, way.nodes.size());
+		assertSame(nodes.get(100L), way.nodes.get(0));
+		assertSame(nodes.get(103L), way.nodes.get(3));
+		assertEquals("test", way.nodes.get(3).tags.getValue("name"));
+		
+		/* relation members appearing after the relation */
+		
+		OSMRelation relation1 = relations.get(1L);
+		
+		assertEquals(3, relation1.relationMembers.size());
+		assertSame(relations.get(2L), relation1.relationMembers.get(0).member);
+		assertSame(way, relation1.relationMembers.get(1).member);
+		assertSame(nodes.get(103L), relation1.relationMembers.get(2).member);
+		assertEquals("sub", relation1.relationMembers.get(0).role);
+		
+		/* missing members are omitted */
+		
+		OSMRelation relation2 = relations.get(2L);
+		
+		assertEquals(1, relation2.relationMembers.size());
+		assertSame(way, relation2.relationMembers.get(0).member);
+		
+	}
+	
+	@Test
+	public void testDuplicateIds() throws IOException {
+		
+		OSMData osmData = new OsmosisReader(
+				new File("test/files/duplicate_ids.osm")).getData();
+		
+		/* the last element with an id is used */
+		
+		assertEquals(3, osmData.getNodes().size());
+		assertEquals(2, osmData.getWays().size());
+		assertEquals(1, osmData.getRelations().size());
+		
+		Map<Long, OSMNode> nodes = new HashMap<Long, OSMNode>();
+		for (OSMNode node : osmData.getNodes()) {
+			nodes.put(node.id, node);
+		}
+		
+		Map<Long, OSMWay> ways = new HashMap<Long, OSMWay>();
+		for (OSMWay way : osmData.getWays()) {
+			ways.put(way.id, way);
+		}
+		
+		assertEquals("second", nodes.get(100L).tags.getValue("name"));
+		
+		OSMWay way = ways.get(10L);
+		
+		assertEquals("service", way.tags.getValue("highway"));
+		assertEquals(3, way.nodes.size());
+		assertSame(nodes.get(100L), way.nodes.get(0));
+		
+		/* references use the last element, too,
+		 * even if they appear before it */
+		
+		assertSame(nodes.get(100L), ways.get(11L).nodes.get(1));
+		
+		OSMRelation relation = osmData.getRelations().iterator().next();
+		
+		assertEquals(1, relation.relationMembers.size());
+		assertSame(way, relation.relationMembers.get(0).member);
+		
+	}
+	
 }
@@ -1,11 +1,12 @@
 package org.osm2world.core.target.common;
 
-import static org.junit.Assert.assertSame;
+import static org.junit.Assert.*;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 import org.osm2world.core.math.TriangleXYZ;
@@ -45,6 +46,69 @@ public class FaceTargetTest {
 		
 	}
 	
+	@Test
+	public void testCombineTrianglesToFacesGrid() {
+		
+		/* a grid of 50x50 squares in shuffled order should become one face */
+		
+		int size = 50;
+		
+		List<IsolatedTriangle> isolatedTriangles = new ArrayList<IsolatedTriangle>();
+		
+		for (int x = 0; x < size; x++) {
+			for (int z = 0; z < size; z++) {
+				
+				VectorXYZ v00 = new VectorXYZ(x, 0, z);
+				VectorXYZ v10 = new VectorXYZ(x + 1, 0, z);
+				VectorXYZ v01 = new VectorXYZ(x, 0, z + 1);
+				VectorXYZ v11 = new VectorXYZ(x + 1, 0, z + 1);
+				
+				isolatedTriangles.add(triangle(v00, v01, v10));
+				isolatedTriangles.add(triangle(v10, v01, v11));
+				
+			}
+		}
+		
+		Collections.shuffle(isolatedTriangles, new Random(42));
+		
+		Collection<Face> faces =
+				FaceTarget.combineTrianglesToFaces(isolatedTriangles);
+		
+		assertEquals(1, faces.size());
+		assertEquals(4 * size, faces.iterator().next().vs.size());
+		
+	}
+	
+	@Test
+	public void testCombineTrianglesToFacesDifferentNormals() {
+		
+		/* two perpendicular squares sharing an edge */
+		
+		VectorXYZ a = new VectorXYZ(0, 0, 0);
+		VectorXYZ b = new VectorXYZ(1, 0, 0);
+		VectorXYZ c = new VectorXYZ(1, 0, 1);
+		VectorXYZ d = new VectorXYZ(0, 0, 1);
+		VectorXYZ e = new VectorXYZ(1, 1, 0);
+		VectorXYZ f = new VectorXYZ(0, 1, 0);
+		
+		List<IsolatedTriangle> isolatedTriangles = new ArrayList<IsolatedTriangle>();
+		
+		isolatedTriangles.add(triangle(a, d, b));
+		isolatedTriangles.add(triangle(b, d, c));
+		isolatedTriangles.add(triangle(a, b, e));
+		isolatedTriangles.add(triangle(a, e, f));
+		
+		Collection<Face> faces =
+				FaceTarget.combineTrianglesToFaces(isolatedTriangles);
+		
+		assertEquals(2, faces.size());
+		
+		for (Face face : faces) {
+			assertEquals(4, face.vs.size());
+		}
+		
+	}
+	
 	private static final IsolatedTriangle triangle(
 			VectorXYZ v1, VectorXYZ v2, VectorXYZ v3) {
 		
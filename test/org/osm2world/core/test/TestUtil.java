@@ -1,13 +1,16 @@
 package org.osm2world.core.test;
 
+import static java.lang.Math.*;
 import static junit.framework.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.openstreetmap.josm.plugins.graphview.core.data.EmptyTagGroup;
+import org.osm2world.core.math.SimplePolygonXZ;
 import org.osm2world.core.math.VectorXYZ;
 import org.osm2world.core.math.VectorXZ;
 import org.osm2world.core.osm.data.OSMNode;
@@ -45,6 +48,30 @@ public final class TestUtil {
 		
 	}
 	
+	/**
+	 * creates a star-shaped polygon with random distances
+	 * between the center and the vertices
+	 */
+	public static final SimplePolygonXZ createStar(Random random,
+			double centerX, double centerZ, double minRadius, double maxRadius,
+			int vertexCount) {
+		
+		List<VectorXZ> vertexLoop = new ArrayList<VectorXZ>();
+		
+		for (int i = 0; i < vertexCount; i++) {
+			double angle = 2 * PI * i / vertexCount;
+			double radius = minRadius + random.nextDouble() * (maxRadius - minRadius);
+			vertexLoop.add(new VectorXZ(
+					centerX + radius * sin(angle),
+					centerZ + radius * cos(angle)));
+		}
+		
+		vertexLoop.add(vertexLoop.get(0));
+		
+		return new SimplePolygonXZ(vertexLoop);
+		
+	}
+	
 	public static final void assertAlmostEquals(
 			double expected, double actual) {
 		if (Math.abs(expected - actual) > 0.001) {
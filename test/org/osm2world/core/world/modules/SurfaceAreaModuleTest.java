@@ -0,0 +1,215 @@
+package org.osm2world.core.world.modules;
+
+import static org.junit.Assert.*;
+import static org.osm2world.core.map_data.creation.EmptyTerrainBuilder.POINT_GRID_DIST;
+import static org.osm2world.core.world.modules.SurfaceAreaModule.triangulateGridPatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.osm2world.core.math.LineSegmentXZ;
+import org.osm2world.core.math.PolygonWithHolesXZ;
+import org.osm2world.core.math.SimplePolygonXZ;
+import org.osm2world.core.math.TriangleXZ;
+import org.osm2world.core.math.VectorGridXZ;
+import org.osm2world.core.math.VectorXZ;
+import org.osm2world.core.math.algorithms.Poly2TriTriangulationUtil;
+import org.osm2world.core.math.datastructures.PolygonCoverageGrid;
+
+public class SurfaceAreaModuleTest {
+	
+	@Test
+	public void testGridPatchSameAsPoly2Tri() {
+		
+		/* a full patch, and smaller patches at the edges of the data bounds */
+		
+		assertSameAsPoly2Tri(createPatch(0, 0, 10, 10));
+		assertSameAsPoly2Tri(createPatch(-20, 30, 10, 10));
+		assertSameAsPoly2Tri(createPatch(10, -10, 3, 10));
+		assertSameAsPoly2Tri(createPatch(-5, -7, 10, 1));
+		assertSameAsPoly2Tri(createPatch(4, 4, 1, 1));
+		
+	}
+	
+	@Test
+	public void testNonGridOutline() {
+		
+		/* outline not aligned with the grid */
+		
+		List<VectorXZ> vertexLoop = createPatchLoop(0, 0, 4, 4);
+		
+		for (int i = 0; i < vertexLoop.size(); i++) {
+			vertexLoop.set(i, vertexLoop.get(i).add(new VectorXZ(1, 0)));
+		}
+		
+		assertNull(triangulateGridPatch(createPolygon(vertexLoop)));
+		
+		/* outline with additional vertices between the grid points */
+		
+		vertexLoop = createPatchLoop(0, 0, 4, 4);
+		vertexLoop.add(1, new VectorXZ(POINT_GRID_DIST / 2, 0));
+		
+		assertNull(triangulateGridPatch(createPolygon(vertexLoop)));
+		
+		/* outline which is not a rectangle */
+		
+		vertexLoop = new ArrayList<VectorXZ>();
+		vertexLoop.add(new VectorXZ(0, 0));
+		vertexLoop.add(new VectorXZ(2 * POINT_GRID_DIST, 0));
+		vertexLoop.add(new VectorXZ(2 * POINT_GRID_DIST, POINT_GRID_DIST));
+		vertexLoop.add(new VectorXZ(POINT_GRID_DIST, POINT_GRID_DIST));
+		vertexLoop.add(new VectorXZ(POINT_GRID_DIST, 2 * POINT_GRID_DIST));
+		vertexLoop.add(new VectorXZ(0, 2 * POINT_GRID_DIST));
+		vertexLoop.add(new VectorXZ(0, 0));
+		
+		assertNull(triangulateGridPatch(createPolygon(vertexLoop)));
+		
+		/* patch with a hole */
+		
+		SimplePolygonXZ outer = new SimplePolygonXZ(createPatchLoop(0, 0, 4, 4));
+		SimplePolygonXZ hole = new SimplePolygonXZ(createPatchLoop(1, 1, 2, 2));
+		
+		assertNull(triangulateGridPatch(
+				new PolygonWithHolesXZ(outer, Collections.singletonList(hole))));
+		
+	}
+	
+	@Test
+	public void testMissingOutlineVertex() {
+		
+		/* vertices in the middle of a side and at a corner */
+		
+		for (int missingIndex : new int[] {2, 4}) {
+			
+			List<VectorXZ> vertexLoop = createPatchLoop(0, 0, 4, 4);
+			vertexLoop.remove(missingIndex);
+			
+			assertNull(triangulateGridPatch(createPolygon(vertexLoop)));
+			
+		}
+		
+	}
+	
+	/**
+	 * checks that the grid patch triangulation uses the same vertices and
+	 * covers the same area as the general triangulation of the polygon
+	 * with a grid of additional points
+	 */
+	private static void assertSameAsPoly2Tri(PolygonWithHolesXZ polygon) {
+		
+		List<TriangleXZ> gridTriangles = triangulateGridPatch(polygon);
+		
+		assertNotNull(gridTriangles);
+		
+		/* triangulate like SurfaceArea does for other areas */
+		
+		List<VectorXZ> points = new ArrayList<VectorXZ>();
+		
+		PolygonCoverageGrid polygonGrid =
+				new PolygonCoverageGrid(Collections.singleton(polygon));
+		
+		for (VectorXZ point : new VectorGridXZ(
+				polygon.getOuter().getAxisAlignedBoundingBoxXZ(), POINT_GRID_DIST)) {
+			if (polygonGrid.covers(point)) {
+				points.add(point);
+			}
+		}
+		
+		List<TriangleXZ> poly2TriTriangles = Poly2TriTriangulationUtil.triangulate(
+				polygon.getOuter(), polygon.getHoles(),
+				Collections.<LineSegmentXZ>emptyList(), points);
+		
+		assertEquals(poly2TriTriangles.size(), gridTriangles.size());
+		assertEquals(getVertices(poly2TriTriangles), getVertices(gridTriangles));
+		assertEquals(getArea(poly2TriTriangles), getArea(gridTriangles), 1e-6);
+		assertEquals(polygon.getArea(), getArea(gridTriangles), 1e-6);
+		
+	}
+	
+	private static Set<VectorXZ> getVertices(List<TriangleXZ> triangles) {
+		
+		Set<VectorXZ> result = new HashSet<VectorXZ>();
+		
+		for (TriangleXZ triangle : triangles) {
+			result.addAll(triangle.getVertices());
+		}
+		
+		return result;
+		
+	}
+	
+	private static double getArea(List<TriangleXZ> triangles) {
+		
+		double area = 0;
+		
+		for (TriangleXZ triangle : triangles) {
+			area += triangle.getArea();
+		}
+		
+		return area;
+		
+	}
+	
+	/**
+	 * creates a patch in the same way as the EmptyTerrainBuilder does,
+	 * with a vertex at each grid point of the outline
+	 *
+	 * @param startX  grid index of the patch's first column
+	 * @param startZ  grid index of the patch's first row
+	 * @param cellsX  number of grid cells in x direction
+	 * @param cellsZ  number of grid cells in z direction
+	 */
+	private static PolygonWithHolesXZ createPatch(int startX, int startZ,
+			int cellsX, int cellsZ) {
+		return createPolygon(createPatchLoop(startX, startZ, cellsX, cellsZ));
+	}
+	
+	/**
+	 * creates the closed vertex loop for {@link #createPatch(int, int, int, int)}
+	 */
+	private static List<VectorXZ> createPatchLoop(int startX, int startZ,
+			int cellsX, int cellsZ) {
+		
+		int endX = startX + cellsX;
+		int endZ = startZ + cellsZ;
+		
+		List<VectorXZ> vertexLoop = new ArrayList<VectorXZ>();
+		
+		// first row
+		for (int x = startX; x <= endX; x++) {
+			vertexLoop.add(gridPoint(x, startZ));
+		}
+		
+		// last column
+		for (int z = startZ + 1; z < endZ; z++) {
+			vertexLoop.add(gridPoint(endX, z));
+		}
+		
+		// last row
+		for (int x = endX; x >= startX; x--) {
+			vertexLoop.add(gridPoint(x, endZ));
+		}
+		
+		// first column
+		for (int z = endZ - 1; z >= startZ /* start will be added again */; z--) {
+			vertexLoop.add(gridPoint(startX, z));
+		}
+		
+		return vertexLoop;
+		
+	}
+	
+	private static VectorXZ gridPoint(int x, int z) {
+		return new VectorXZ(x * POINT_GRID_DIST, z * POINT_GRID_DIST);
+	}
+	
+	private static PolygonWithHolesXZ createPolygon(List<VectorXZ> vertexLoop) {
+		return new PolygonWithHolesXZ(new SimplePolygonXZ(vertexLoop),
+				Collections.<SimplePolygonXZ>emptyList());
+	}
+	
+}
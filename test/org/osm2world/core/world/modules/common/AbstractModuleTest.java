@@ -0,0 +1,96 @@
+package org.osm2world.core.world.modules.common;
+
+import static org.junit.Assert.*;
+import static org.osm2world.core.target.statistics.StatisticsTarget.Stat.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.junit.Test;
+import org.osm2world.core.ConversionFacade;
+import org.osm2world.core.map_data.data.MapData;
+import org.osm2world.core.map_data.data.MapElement;
+import org.osm2world.core.target.TargetUtil;
+import org.osm2world.core.target.statistics.StatisticsTarget;
+import org.osm2world.core.world.creation.WorldModule;
+import org.osm2world.core.world.data.WorldObject;
+import org.osm2world.core.world.modules.BarrierModule;
+import org.osm2world.core.world.modules.StreetFurnitureModule;
+import org.osm2world.core.world.modules.SurfaceAreaModule;
+
+public class AbstractModuleTest {
+	
+	/**
+	 * checks that representations created with multiple threads are
+	 * identical (including their order) to those created with a single thread
+	 */
+	@Test
+	public void testParallelRepresentations() throws IOException {
+		
+		List<String> sequentialRepresentations = describeRepresentations(
+				convert("street_furniture.osm", 1));
+		List<String> parallelRepresentations = describeRepresentations(
+				convert("street_furniture.osm", 4));
+		
+		assertTrue(sequentialRepresentations.size() > 50);
+		assertEquals(sequentialRepresentations, parallelRepresentations);
+		
+	}
+	
+	private static MapData convert(String filename, int threadCount)
+			throws IOException {
+		
+		File testFile = new File("test"+File.separator+"files"
+				+File.separator+filename);
+		
+		Configuration config = new BaseConfiguration();
+		config.setProperty("worldModuleThreads", threadCount);
+		
+		List<WorldModule> modules = new ArrayList<WorldModule>();
+		modules.add(new StreetFurnitureModule());
+		modules.add(new BarrierModule());
+		modules.add(new SurfaceAreaModule());
+		
+		return new ConversionFacade().createRepresentations(
+				testFile, modules, config, null).getMapData();
+		
+	}
+	
+	/**
+	 * describes all representations in a {@link MapData} using the index
+	 * of their element, their type and their geometry,
+	 * so different instances can be compared
+	 */
+	private static List<String> describeRepresentations(MapData mapData) {
+		
+		List<String> result = new ArrayList<String>();
+		
+		int index = 0;
+		
+		for (MapElement element : mapData.getMapElements()) {
+			
+			for (WorldObject representation : element.getRepresentations()) {
+				
+				StatisticsTarget target = new StatisticsTarget();
+				TargetUtil.renderObject(target, representation);
+				
+				result.add(index + ": "
+						+ representation.getClass().getSimpleName() + " "
+						+ target.getGlobalCount(PRIMITIVE_COUNT) + " "
+						+ target.getGlobalCount(TOTAL_TRIANGLE_COUNT));
+				
+			}
+			
+			index ++;
+			
+		}
+		
+		return result;
+		
+	}
+	
+}